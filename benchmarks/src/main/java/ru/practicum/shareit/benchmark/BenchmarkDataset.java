@@ -0,0 +1,122 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генерация данных для бенчмарков: владелец с items вещами, у каждой bookingsPerItem
+ * непересекающихся бронирований в прошлом и будущем от случайных арендаторов и по одному комментарию.
+ */
+public class BenchmarkDataset {
+    private static final int BOOKERS = 50;
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(42);
+
+    public BenchmarkDataset(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static User user(int id, String name) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(name + "@mail.com");
+        return user;
+    }
+
+    public static Item item(int id, User owner, Request request) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName("вещь " + id);
+        item.setDescription("описание вещи " + id);
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item.setRequest(request);
+        return item;
+    }
+
+    public int generate(int items, int bookingsPerItem) {
+        int ownerId = insertUser("owner");
+        List<Integer> bookerIds = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            bookerIds.add(insertUser("booker" + i));
+        }
+
+        List<Object[]> itemRows = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            itemRows.add(new Object[]{"вещь " + i, "описание вещи " + i, true, ownerId});
+        }
+        batchUpdate("INSERT INTO items (name, description, is_available, owner_id) VALUES (?, ?, ?, ?)", itemRows);
+        List<Integer> itemIds = jdbcTemplate.queryForList("SELECT id FROM items WHERE owner_id = ? ORDER BY id", Integer.class, ownerId);
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Object[]> bookingRows = new ArrayList<>();
+        List<Object[]> commentRows = new ArrayList<>();
+        for (int itemId : itemIds) {
+            LocalDateTime start = now.minusDays(bookingsPerItem);
+            for (int i = 0; i < bookingsPerItem; i++) {
+                int bookerId = bookerIds.get(random.nextInt(BOOKERS));
+                String status = random.nextInt(4) == 0 ? "WAITING" : "APPROVED";
+                bookingRows.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(20)), itemId, bookerId, status});
+                start = start.plusDays(2);
+            }
+            commentRows.add(new Object[]{"отзыв о вещи " + itemId, itemId, bookerIds.get(random.nextInt(BOOKERS))});
+        }
+        batchUpdate("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) VALUES (NEXT VALUE FOR bookings_seq, ?, ?, ?, ?, ?)", bookingRows);
+        batchUpdate("INSERT INTO comments (text, item_id, author_id) VALUES (?, ?, ?)", commentRows);
+
+        return ownerId;
+    }
+
+    /**
+     * Пользователь с requests запросами, на каждый, кроме каждого четвертого, отвечают
+     * answersPerRequest вещами другого пользователя.
+     */
+    public int generateRequests(int requests, int answersPerRequest) {
+        int requestorId = insertUser("requestor");
+        int answererId = insertUser("answerer");
+
+        LocalDateTime created = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusMinutes(requests);
+        List<Object[]> requestRows = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            requestRows.add(new Object[]{"запрос " + i, requestorId, Timestamp.valueOf(created.plusMinutes(i))});
+        }
+        batchUpdate("INSERT INTO item_requests (description, requestor, created) VALUES (?, ?, ?)", requestRows);
+        List<Integer> requestIds = jdbcTemplate.queryForList("SELECT id FROM item_requests WHERE requestor = ? ORDER BY id", Integer.class, requestorId);
+
+        List<Object[]> itemRows = new ArrayList<>();
+        for (int i = 0; i < requestIds.size(); i++) {
+            if (i % 4 == 3) {
+                continue;
+            }
+            for (int j = 0; j < answersPerRequest; j++) {
+                itemRows.add(new Object[]{"ответ " + j + " на запрос " + i, "описание ответа " + j, true, answererId, requestIds.get(i)});
+            }
+        }
+        batchUpdate("INSERT INTO items (name, description, is_available, owner_id, request_id) VALUES (?, ?, ?, ?, ?)", itemRows);
+
+        return requestorId;
+    }
+
+    private int insertUser(String name) {
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES (?, ?)", name, name + "@mail.com");
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Integer.class, name + "@mail.com");
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
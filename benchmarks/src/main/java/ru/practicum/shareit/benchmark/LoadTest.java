@@ -0,0 +1,166 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.executor.VirtualThreads;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Сравнение режимов shareit.executor.mode: сервер поднимается в каждом режиме, число одновременных
+ * запросов после прогрева растет ступенями, и для каждого режима печатается наибольшая конкурентность без ошибок
+ * с p99 в пределах slo. Параметры key=value, аргументы с -- передаются серверу как свойства Spring:
+ * java -cp benchmarks.jar ru.practicum.shareit.benchmark.LoadTest modes=platform,virtual levels=100,400,1600 --server.tomcat.threads.max=50
+ */
+public class LoadTest {
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "modes", "platform,virtual",
+            "levels", "50,100,200,400,800,1600",
+            "warmup", "10",
+            "duration", "10",
+            "slo", "500",
+            "path", "/bookings?state=ALL&size=20",
+            "items", "100",
+            "bookingsPerItem", "10");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> serverArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                serverArgs.add(arg);
+            } else {
+                String[] option = arg.split("=", 2);
+                options.put(option[0], option[1]);
+            }
+        }
+
+        List<Integer> levels = Arrays.stream(options.get("levels").split(",")).map(Integer::valueOf).collect(Collectors.toList());
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+        long sloNanos = Duration.ofMillis(Long.parseLong(options.get("slo"))).toNanos();
+        Map<String, Integer> sustainable = new HashMap<>();
+
+        for (String mode : options.get("modes").split(",")) {
+            if (mode.equals("virtual") && !VirtualThreads.isSupported()) {
+                System.out.println("режим virtual пропущен: нужна Java 21+, текущая " + Runtime.version());
+                continue;
+            }
+            ConfigurableApplicationContext context = start(mode, serverArgs);
+            try {
+                JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+                new BenchmarkDataset(jdbcTemplate).generate(Integer.parseInt(options.get("items")), Integer.parseInt(options.get("bookingsPerItem")));
+                int bookerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'booker0@mail.com'", Integer.class);
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URI uri = URI.create("http://localhost:" + port + options.get("path"));
+
+                run(uri, bookerId, levels.get(0), Duration.ofSeconds(Long.parseLong(options.get("warmup"))));
+                System.out.printf("%nmode=%s %s%n%12s %10s %10s %10s %8s%n", mode, uri, "concurrency", "rps", "p50, ms", "p99, ms", "errors");
+                int best = 0;
+                for (int level : levels) {
+                    LevelResult result = run(uri, bookerId, level, duration);
+                    System.out.printf("%12d %10.0f %10.1f %10.1f %8d%n", level, result.throughput, result.p50 / 1e6, result.p99 / 1e6, result.errors);
+                    if (result.errors > 0 || result.p99 > sloNanos) {
+                        break;
+                    }
+                    best = level;
+                }
+                sustainable.put(mode, best);
+            } finally {
+                context.close();
+            }
+        }
+
+        System.out.printf("%nнаибольшая устойчивая конкурентность (p99 <= %s мс, без ошибок): %s%n", options.get("slo"), sustainable);
+    }
+
+    /**
+     * Свойства передаются аргументами командной строки: в отличие от свойств по умолчанию
+     * они перекрывают application.properties.
+     */
+    private static ConfigurableApplicationContext start(String mode, List<String> serverArgs) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:load-" + mode);
+        properties.put("shareit.executor.mode", mode);
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.springframework.transaction.interceptor", "WARN");
+        properties.put("logging.level.org.springframework.orm.jpa.JpaTransactionManager", "WARN");
+        for (String arg : serverArgs) {
+            String[] property = arg.substring(2).split("=", 2);
+            properties.put(property[0], property.length > 1 ? property[1] : "");
+        }
+
+        return new SpringApplicationBuilder(ShareItServer.class)
+                .profiles("test")
+                .run(properties.entrySet().stream().map(property -> "--" + property.getKey() + "=" + property.getValue()).toArray(String[]::new));
+    }
+
+    /**
+     * Замкнутый цикл: ровно concurrency запросов в полете, новый уходит по завершении предыдущего.
+     */
+    private static LevelResult run(URI uri, int userId, int concurrency, Duration duration) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).header("X-Sharer-User-Id", String.valueOf(userId)).timeout(Duration.ofSeconds(30)).build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            long sentAt = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+                if (e != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                } else {
+                    latencies.add(System.nanoTime() - sentAt);
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new LevelResult(sorted.length / seconds, percentile(sorted, 0.5), percentile(sorted, 0.99), errors.get());
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Long.MAX_VALUE;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static class LevelResult {
+        final double throughput;
+        final long p50;
+        final long p99;
+        final int errors;
+
+        LevelResult(double throughput, long p50, long p99, int errors) {
+            this.throughput = throughput;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.errors = errors;
+        }
+    }
+}
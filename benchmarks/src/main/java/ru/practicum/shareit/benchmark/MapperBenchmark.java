@@ -0,0 +1,83 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.RequestAnswerDto;
+import ru.practicum.shareit.request.dto.RequestMapper;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmark {
+    @Param({"1", "10", "100"})
+    public int requestItems;
+
+    private Booking booking;
+    private Item item;
+    private Request request;
+    private List<Item> answers;
+
+    @Setup
+    public void setUp() {
+        User owner = BenchmarkDataset.user(1, "owner");
+        User booker = BenchmarkDataset.user(2, "booker");
+
+        request = new Request();
+        request.setId(1);
+        request.setDescription("нужна дрель");
+        request.setRequestor(booker);
+        request.setCreated(LocalDateTime.now());
+
+        item = BenchmarkDataset.item(1, owner, request);
+
+        booking = new Booking();
+        booking.setId(1);
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+
+        answers = new ArrayList<>();
+        for (int i = 1; i <= requestItems; i++) {
+            answers.add(BenchmarkDataset.item(i, owner, request));
+        }
+    }
+
+    @Benchmark
+    public BookingDto bookingToBookingDto() {
+        return BookingMapper.toBookingDto(booking);
+    }
+
+    @Benchmark
+    public ItemDto itemToItemDto() {
+        return ItemMapper.toItemDto(item);
+    }
+
+    @Benchmark
+    public ItemRequestDto itemToItemRequestDto() {
+        return ItemMapper.toItemRequestDto(item);
+    }
+
+    @Benchmark
+    public RequestAnswerDto requestToRequestAnswerDto() {
+        return RequestMapper.toRequestAnswerDto(request, answers);
+    }
+}
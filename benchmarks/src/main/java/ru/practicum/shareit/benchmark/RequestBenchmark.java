@@ -0,0 +1,63 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.request.dto.RequestAnswerDto;
+import ru.practicum.shareit.request.service.RequestService;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /requests для пользователя с тысячами запросов: platform=h2 собирает ответы в базе
+ * через JSON_ARRAYAGG, platform=all загружает запросы и вещи двумя запросами и группирует в памяти.
+ * java -jar benchmarks.jar RequestBenchmark -p requests=1000,10000 -p answersPerRequest=3
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBenchmark {
+    @Param({"1000", "5000"})
+    public int requests;
+
+    @Param({"3"})
+    public int answersPerRequest;
+
+    @Param({"h2", "all"})
+    public String platform;
+
+    private ConfigurableApplicationContext context;
+    private RequestService requestService;
+    private int requestorId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:request-benchmark",
+                        "--shareit.requests.platform=" + platform,
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN");
+        requestService = context.getBean(RequestService.class);
+        requestorId = new BenchmarkDataset(context.getBean(JdbcTemplate.class)).generateRequests(requests, answersPerRequest);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<RequestAnswerDto> requestorRequestsWithAnswers() {
+        return requestService.getAll(requestorId);
+    }
+}
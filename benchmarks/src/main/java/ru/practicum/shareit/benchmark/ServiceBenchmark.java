@@ -0,0 +1,117 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервисы поверх встроенной H2 (профиль test). Размер набора данных задается параметрами,
+ * например: java -jar benchmarks.jar ServiceBenchmark -p items=100,10000 -p bookingsPerItem=20
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final int CREATE_COUNT = 20;
+
+    @Param({"100", "1000"})
+    public int items;
+
+    @Param({"10"})
+    public int bookingsPerItem;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private BookingService bookingService;
+    private int ownerId;
+    private int bookerId;
+    private List<Integer> itemIds;
+    private LocalDateTime createFrom;
+    private int createSlot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItServer.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+        itemService = context.getBean(ItemService.class);
+        bookingService = context.getBean(BookingService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ownerId = new BenchmarkDataset(jdbcTemplate).generate(items, bookingsPerItem);
+        bookerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'booker0@mail.com'", Integer.class);
+        itemIds = jdbcTemplate.queryForList("SELECT id FROM items WHERE owner_id = ? ORDER BY id", Integer.class, ownerId);
+        createFrom = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusYears(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<ItemDto> userItemsWithBookingIntervals() {
+        return itemService.getUserItemsWithBookingIntervals(ownerId);
+    }
+
+    @Benchmark
+    public Collection<BookingView> ownedItemsBookingsByOffset() {
+        return bookingService.getOwnedItemsBookings(ownerId, BookingState.ALL, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CursorPage<BookingView> ownedItemsBookingsByCursor() {
+        return bookingService.getOwnedItemsBookings(ownerId, BookingState.ALL, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Booking> createBookingsOneByOne() {
+        List<Booking> created = new ArrayList<>(CREATE_COUNT);
+        for (BookingDtoShort newBooking : nextNewBookings()) {
+            created.add(bookingService.create(bookerId, newBooking));
+        }
+        return created;
+    }
+
+    @Benchmark
+    public List<BookingBatchResultDto> createBookingsInBatch() {
+        return bookingService.createBatch(bookerId, nextNewBookings());
+    }
+
+    private List<BookingDtoShort> nextNewBookings() {
+        List<BookingDtoShort> newBookings = new ArrayList<>(CREATE_COUNT);
+        for (int i = 0; i < CREATE_COUNT; i++) {
+            LocalDateTime start = createFrom.plusHours(createSlot++);
+            newBookings.add(BookingDtoShort.builder().itemId(itemIds.get(i % itemIds.size())).start(start).end(start.plusMinutes(30)).build());
+        }
+        return newBookings;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.executor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Режим исполнения HTTP-запросов: пул потоков Tomcat или виртуальный поток на запрос.
+ */
+@Component
+@ConfigurationProperties(prefix = "shareit.executor")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ExecutorProperties {
+    Mode mode = Mode.PLATFORM;
+    TracePinned tracePinned = TracePinned.SHORT;
+    Duration pinnedThreshold = Duration.ofMillis(20);
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    /**
+     * Как журналировать событие JFR jdk.VirtualThreadPinned, то есть блокировку виртуального потока,
+     * закрепленного на несущем (synchronized, нативный вызов), дольше pinnedThreshold:
+     * не журналировать, с верхними кадрами стека или со стеком целиком.
+     */
+    public enum TracePinned {
+        NONE,
+        SHORT,
+        FULL
+    }
+}
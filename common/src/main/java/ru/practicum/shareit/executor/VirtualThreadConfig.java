@@ -0,0 +1,71 @@
+package ru.practicum.shareit.executor;
+
+import jdk.jfr.consumer.RecordedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Включается shareit.executor.mode=virtual: Tomcat и асинхронные ответы MVC (потоковые выгрузки)
+ * выполняются на виртуальных потоках, так что число одновременных запросов больше не ограничено
+ * server.tomcat.threads.max. Ограничением остаются пулы соединений.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "shareit.executor", name = "mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+    private static final int SHORT_STACK_DEPTH = 8;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        log.info("HTTP-запросы обслуживаются на виртуальных потоках");
+        return VirtualThreads.newThreadPerTaskExecutor("http-vt-");
+    }
+
+    /**
+     * Журналирует закрепления виртуальных потоков: на них несущий поток простаивает вместе с виртуальным.
+     */
+    @Bean(destroyMethod = "close")
+    public AutoCloseable pinnedThreadStream(ExecutorProperties properties) {
+        if (properties.getTracePinned() == ExecutorProperties.TracePinned.NONE) {
+            return () -> { };
+        }
+        int depth = properties.getTracePinned() == ExecutorProperties.TracePinned.FULL ? Integer.MAX_VALUE : SHORT_STACK_DEPTH;
+        return VirtualThreads.onPinned(properties.getPinnedThreshold(), event -> log.warn("виртуальный поток {} закреплен на несущем {} мс:{}",
+                event.getThread() == null ? "?" : event.getThread().getJavaName(), event.getDuration().toMillis(), stack(event, depth)));
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncSupport(ExecutorService virtualThreadExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new ConcurrentTaskExecutor(virtualThreadExecutor));
+            }
+        };
+    }
+
+    private static String stack(RecordedEvent event, int depth) {
+        if (event.getStackTrace() == null) {
+            return "";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(depth)
+                .map(frame -> "\n\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining());
+    }
+}
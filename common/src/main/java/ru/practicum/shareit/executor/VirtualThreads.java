@@ -0,0 +1,79 @@
+package ru.practicum.shareit.executor;
+
+import jdk.jfr.EventSettings;
+import jdk.jfr.consumer.RecordedEvent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * Виртуальные потоки через рефлексию: проект собирается под Java 11, а сами потоки есть только с Java 21.
+ */
+public final class VirtualThreads {
+    private static final int MIN_FEATURE_VERSION = 21;
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= MIN_FEATURE_VERSION;
+    }
+
+    /**
+     * Исполнитель, запускающий каждую задачу в новом виртуальном потоке с именем namePrefix + номер.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("виртуальные потоки требуют Java " + MIN_FEATURE_VERSION + "+, текущая версия " + Runtime.version());
+        }
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("не удалось создать исполнитель на виртуальных потоках", e);
+        }
+    }
+
+    /**
+     * Подписка на событие JFR jdk.VirtualThreadPinned: виртуальный поток заблокировался, будучи закрепленным
+     * на несущем потоке, дольше threshold. В отличие от jdk.tracePinnedThreads событие есть во всех версиях
+     * начиная с Java 21. Закрытие результата останавливает запись.
+     */
+    public static AutoCloseable onPinned(Duration threshold, Consumer<RecordedEvent> handler) {
+        if (!isSupported()) {
+            throw new IllegalStateException("виртуальные потоки требуют Java " + MIN_FEATURE_VERSION + "+, текущая версия " + Runtime.version());
+        }
+        try {
+            Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Object stream = streamClass.getConstructor().newInstance();
+            EventSettings settings = (EventSettings) streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            settings.withThreshold(threshold).withStackTrace();
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, handler);
+            streamClass.getMethod("startAsync").invoke(stream);
+            return (AutoCloseable) stream;
+        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("не удалось подписаться на событие " + PINNED_EVENT, e);
+        }
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (!isSupported()) {
+            return false;
+        }
+        try {
+            return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return false;
+        }
+    }
+}
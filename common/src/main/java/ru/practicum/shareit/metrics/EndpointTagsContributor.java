@@ -0,0 +1,55 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import ru.practicum.shareit.booking.dto.BookingState;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Locale;
+
+/**
+ * Добавляет к http.server.requests тег endpoint (контроллер и метод) и тег state бронирований.
+ * Неизвестные значения state сводятся к UNKNOWN, чтобы не плодить временные ряды.
+ */
+@Component
+public class EndpointTagsContributor implements WebMvcTagsContributor {
+    private static final String NONE = "none";
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler, Throwable exception) {
+        return tags(request, handler);
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return tags(request, handler);
+    }
+
+    private static Tags tags(HttpServletRequest request, Object handler) {
+        return Tags.of(Tag.of("endpoint", endpoint(handler)), Tag.of("state", state(request)));
+    }
+
+    private static String endpoint(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return NONE;
+        }
+        HandlerMethod method = (HandlerMethod) handler;
+        return method.getMethod().getDeclaringClass().getSimpleName() + "." + method.getMethod().getName();
+    }
+
+    private static String state(HttpServletRequest request) {
+        String state = request.getParameter("state");
+        if (state == null) {
+            return NONE;
+        }
+        try {
+            return BookingState.valueOf(state.toUpperCase(Locale.ROOT)).name();
+        } catch (IllegalArgumentException e) {
+            return "UNKNOWN";
+        }
+    }
+}
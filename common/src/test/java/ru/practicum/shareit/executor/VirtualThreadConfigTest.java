@@ -0,0 +1,38 @@
+package ru.practicum.shareit.executor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtualThreadConfigTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class))
+            .withUserConfiguration(ExecutorProperties.class, VirtualThreadConfig.class);
+
+    @Test
+    void testPlatformModeByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ExecutorService.class));
+    }
+
+    @Test
+    void testVirtualMode() {
+        contextRunner.withPropertyValues("shareit.executor.mode=virtual").run(context -> {
+            if (!VirtualThreads.isSupported()) {
+                assertThat(context).hasFailed();
+                assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(IllegalStateException.class)
+                        .getRootCause().hasMessageContaining("Java 21");
+                return;
+            }
+            ExecutorService executor = context.getBean(ExecutorService.class);
+            Thread thread = executor.submit(Thread::currentThread).get();
+            assertThat(VirtualThreads.isVirtual(thread)).isTrue();
+            assertThat(thread.getName()).startsWith("http-vt-");
+            assertThat(context).hasBean("pinnedThreadStream");
+        });
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import ru.practicum.shareit.booking.dto.BookingState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EndpointTagsContributorTest {
+    private final EndpointTagsContributor contributor = new EndpointTagsContributor();
+
+    @Test
+    void testEndpointAndStateTags() throws NoSuchMethodException {
+        HandlerMethod handler = new HandlerMethod(new BookingController(), BookingController.class
+                .getMethod("getOwnedItemsBookings", BookingState.class));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookings/owner");
+        request.setParameter("state", "current");
+
+        assertThat(contributor.getTags(request, new MockHttpServletResponse(), handler, null))
+                .containsExactlyInAnyOrder(Tag.of("endpoint", "BookingController.getOwnedItemsBookings"), Tag.of("state", "CURRENT"));
+
+        request.setParameter("state", "someday");
+        assertThat(contributor.getLongRequestTags(request, handler)).contains(Tag.of("state", "UNKNOWN"));
+        assertThat(contributor.getTags(new MockHttpServletRequest(), new MockHttpServletResponse(), null, null))
+                .containsExactlyInAnyOrder(Tag.of("endpoint", "none"), Tag.of("state", "none"));
+    }
+
+    public static class BookingController {
+        public void getOwnedItemsBookings(BookingState state) {
+        }
+    }
+}
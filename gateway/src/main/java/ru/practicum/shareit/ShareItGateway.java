@@ -2,8 +2,10 @@ package ru.practicum.shareit;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ShareItGateway {
     public static void main(String[] args) {
         SpringApplication.run(ShareItGateway.class, args);
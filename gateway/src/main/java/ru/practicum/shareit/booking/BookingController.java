@@ -4,7 +4,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.client.BookingClient;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 import ru.practicum.shareit.booking.dto.BookingState;
 
@@ -24,6 +26,11 @@ public class BookingController {
         return bookingClient.create(userId, newBookingDto);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> createBatch(@RequestHeader(value = HEADER_PARAM) int userId, @Valid @RequestBody BookingBatchDto newBookings) {
+        return bookingClient.createBatch(userId, newBookings);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<Object> approve(@PathVariable int bookingId, @RequestHeader(HEADER_PARAM) int userId, @RequestParam boolean approved) {
         return bookingClient.approve(bookingId, userId, approved);
@@ -35,12 +42,22 @@ public class BookingController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserBookings(@RequestHeader(HEADER_PARAM) int userId, @RequestParam(defaultValue = "ALL") BookingState state, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size) {
-        return bookingClient.getUserBookings(userId, state, from, size);
+    public ResponseEntity<Object> getUserBookings(@RequestHeader(HEADER_PARAM) int userId, @RequestParam(defaultValue = "ALL") BookingState state, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean archived) {
+        return bookingClient.getUserBookings(userId, state, from, size, cursor, archived);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getOwnedItemsBookings(@RequestHeader(HEADER_PARAM) int ownerId, @RequestParam(defaultValue = "ALL") BookingState state, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size) {
-        return bookingClient.getOwnedItemsBookings(ownerId, state, from, size);
+    public ResponseEntity<Object> getOwnedItemsBookings(@RequestHeader(HEADER_PARAM) int ownerId, @RequestParam(defaultValue = "ALL") BookingState state, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean archived) {
+        return bookingClient.getOwnedItemsBookings(ownerId, state, from, size, cursor, archived);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUserBookings(@RequestHeader(HEADER_PARAM) int userId) {
+        return bookingClient.exportUserBookings(userId);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportOwnedItemsBookings(@RequestHeader(HEADER_PARAM) int ownerId) {
+        return bookingClient.exportOwnedItemsBookings(ownerId);
     }
 }
\ No newline at end of file
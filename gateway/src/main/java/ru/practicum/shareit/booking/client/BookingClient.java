@@ -3,14 +3,20 @@ package ru.practicum.shareit.booking.client;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -18,10 +24,12 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory, ResponseCache cache, RequestCoalescer coalescer) {
         super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                cache,
+                coalescer
         );
     }
 
@@ -29,6 +37,10 @@ public class BookingClient extends BaseClient {
         return post("", userId, newBookingDto);
     }
 
+    public ResponseEntity<Object> createBatch(int userId, BookingBatchDto newBookings) {
+        return post("/batch", userId, newBookings);
+    }
+
     public ResponseEntity<Object> approve(int bookingId, int userId, boolean approved) {
         Map<String, Object> parameters = Map.of("approved", approved);
         return patch("/" + bookingId + "?approved={approved}", userId, parameters);
@@ -38,13 +50,39 @@ public class BookingClient extends BaseClient {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getUserBookings(int userId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of("state", state, "from", from, "size", size);
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> getUserBookings(int userId, BookingState state, int from, int size, String cursor, boolean archived) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("state", state, "from", from, "size", size));
+        StringBuilder path = new StringBuilder("?state={state}&from={from}&size={size}");
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path.append("&cursor={cursor}");
+        }
+        if (archived) {
+            parameters.put("archived", true);
+            path.append("&archived={archived}");
+        }
+        return get(path.toString(), userId, parameters);
+    }
+
+    public ResponseEntity<Object> getOwnedItemsBookings(int userId, BookingState state, int from, int size, String cursor, boolean archived) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("state", state, "from", from, "size", size));
+        StringBuilder path = new StringBuilder("/owner?state={state}&from={from}&size={size}");
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path.append("&cursor={cursor}");
+        }
+        if (archived) {
+            parameters.put("archived", true);
+            path.append("&archived={archived}");
+        }
+        return get(path.toString(), userId, parameters);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportUserBookings(int userId) {
+        return getStream("/export", userId, MediaType.APPLICATION_NDJSON);
     }
 
-    public ResponseEntity<Object> getOwnedItemsBookings(int userId, BookingState state, int from, int size) {
-        Map<String, Object> parameters = Map.of("state", state, "from", from, "size", size);
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<StreamingResponseBody> exportOwnedItemsBookings(int userId) {
+        return getStream("/owner/export", userId, MediaType.APPLICATION_NDJSON);
     }
 }
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingBatchDto {
+    @NotEmpty(message = "Пакет бронирований не пустой")
+    @Size(max = 100, message = "В пакете не больше 100 бронирований")
+    @Valid
+    List<BookingDtoShort> bookings;
+}
@@ -1,18 +1,42 @@
 package ru.practicum.shareit.client;
 
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class BaseClient {
+    static final String INVALIDATED_TAGS_HEADER = "X-Invalidated-Tags";
+
     protected final RestTemplate rest;
+    @Nullable
+    private final ResponseCache cache;
+    @Nullable
+    private final RequestCoalescer coalescer;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable ResponseCache cache) {
+        this(rest, cache, null);
+    }
+
+    public BaseClient(RestTemplate rest, @Nullable ResponseCache cache, @Nullable RequestCoalescer coalescer) {
         this.rest = rest;
+        this.cache = cache;
+        this.coalescer = coalescer;
     }
 
     protected ResponseEntity<Object> get(String path) {
@@ -24,7 +48,88 @@ public class BaseClient {
     }
 
     protected ResponseEntity<Object> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+        return get(path, userId, parameters, true);
+    }
+
+    /**
+     * Передает If-None-Match серверу: при совпадении тот отвечает 304 без тела, не собирая ответ.
+     */
+    protected ResponseEntity<Object> getConditional(String path, int userId, @Nullable String ifNoneMatch) {
+        return get(path, userId, null, true, ifNoneMatch);
+    }
+
+    protected ResponseEntity<Object> getCached(String tag, String path, Integer userId, @Nullable Map<String, Object> parameters) {
+        return getCached(tag, path, userId, parameters, true);
+    }
+
+    /**
+     * Кеш хранит полные ответы, поэтому If-None-Match сверяется с ETag ответа из кеша здесь же.
+     */
+    protected ResponseEntity<Object> getCachedConditional(String tag, String path, int userId, @Nullable String ifNoneMatch) {
+        ResponseEntity<Object> response = getCached(tag, path, userId, null);
+        String eTag = response.getHeaders().getETag();
+        if (ifNoneMatch != null && eTag != null && response.getStatusCode().is2xxSuccessful() && matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return response;
+    }
+
+    /**
+     * userScoped = false для ресурсов, ответ которых не зависит от X-Sharer-User-Id:
+     * одинаковые запросы разных пользователей делят одну запись кеша и один вызов сервера.
+     */
+    protected ResponseEntity<Object> getCached(String tag, String path, Integer userId, @Nullable Map<String, Object> parameters, boolean userScoped) {
+        if (cache == null) {
+            return get(path, userId, parameters, userScoped);
+        }
+        String key = tag + " " + (userScoped ? userId : "*") + " " + path + (parameters != null ? " " + new TreeMap<>(parameters) : "");
+        return cache.get(key, tag, () -> get(path, userId, parameters, userScoped));
+    }
+
+    private ResponseEntity<Object> get(String path, Integer userId, @Nullable Map<String, Object> parameters, boolean userScoped) {
+        return get(path, userId, parameters, userScoped, null);
+    }
+
+    private ResponseEntity<Object> get(String path, Integer userId, @Nullable Map<String, Object> parameters, boolean userScoped, @Nullable String ifNoneMatch) {
+        if (coalescer == null) {
+            return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, ifNoneMatch);
+        }
+        URI uri = parameters != null ? rest.getUriTemplateHandler().expand(path, parameters) : rest.getUriTemplateHandler().expand(path);
+        String key = uri + " " + (userScoped ? userId : "*") + (ifNoneMatch != null ? " " + ifNoneMatch : "");
+        return coalescer.execute(key, () -> makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, ifNoneMatch));
+    }
+
+    /**
+     * Проксирует потоковый ответ сервера как есть, не буферизуя тело.
+     * Ошибку сервера отдает целиком, пока статус ответа еще можно поменять.
+     */
+    protected ResponseEntity<StreamingResponseBody> getStream(String path, int userId, MediaType mediaType) {
+        ClientHttpResponse response;
+        try {
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(rest.getUriTemplateHandler().expand(path), HttpMethod.GET);
+            request.getHeaders().setAccept(List.of(mediaType));
+            request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+            response = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("ошибка запроса к серверу: " + e.getMessage(), e);
+        }
+
+        try {
+            ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getRawStatusCode()).contentType(response.getHeaders().getContentType());
+            if (response.getRawStatusCode() / 100 != 2) {
+                byte[] body = StreamUtils.copyToByteArray(response.getBody());
+                response.close();
+                return responseBuilder.body(out -> out.write(body));
+            }
+            return responseBuilder.body(out -> {
+                try (response) {
+                    StreamUtils.copy(response.getBody(), out);
+                }
+            });
+        } catch (IOException e) {
+            response.close();
+            throw new ResourceAccessException("ошибка чтения ответа сервера: " + e.getMessage(), e);
+        }
     }
 
     protected <T> ResponseEntity<Object> post(String path, T body) {
@@ -80,7 +185,15 @@ public class BaseClient {
     }
 
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        return makeAndSendRequest(method, path, userId, parameters, body, null);
+    }
+
+    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body, @Nullable String ifNoneMatch) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (ifNoneMatch != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
 
         ResponseEntity<Object> shareitServerResponse;
         try {
@@ -92,9 +205,28 @@ public class BaseClient {
         } catch (HttpStatusCodeException e) {
             return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
         }
+        if (cache != null && method != HttpMethod.GET && shareitServerResponse.getStatusCode().is2xxSuccessful()) {
+            invalidateWritten(shareitServerResponse);
+        }
         return prepareGatewayResponse(shareitServerResponse);
     }
 
+    /**
+     * Сервер перечисляет теги, измененные записью, в X-Invalidated-Tags: они сбрасываются здесь же,
+     * чтобы следующее чтение через этот шлюз увидело запись, не дожидаясь опроса ленты инвалидаций.
+     */
+    private void invalidateWritten(ResponseEntity<Object> response) {
+        List<String> tags = response.getHeaders().get(INVALIDATED_TAGS_HEADER);
+        if (tags == null) {
+            return;
+        }
+        for (String value : tags) {
+            for (String tag : value.split(",")) {
+                cache.invalidate(tag.trim());
+            }
+        }
+    }
+
     private HttpHeaders defaultHeaders(Integer userId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -107,10 +239,19 @@ public class BaseClient {
 
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
         if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+            if (!response.getHeaders().containsKey(INVALIDATED_TAGS_HEADER)) {
+                return response;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+            headers.remove(INVALIDATED_TAGS_HEADER);
+            return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
         }
 
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+        if (response.getHeaders().getETag() != null) {
+            responseBuilder.eTag(response.getHeaders().getETag());
+        }
 
         if (response.hasBody()) {
             return responseBuilder.body(response.getBody());
@@ -118,4 +259,15 @@ public class BaseClient {
 
         return responseBuilder.build();
     }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
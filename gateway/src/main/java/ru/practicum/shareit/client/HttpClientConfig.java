@@ -0,0 +1,64 @@
+package ru.practicum.shareit.client;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Клиент к shareit-server. Пул Apache HttpClient и его метрики shareit.gateway.http.pool.* есть только в режиме http1:
+ * в режиме h2c все запросы идут по мультиплексированным соединениям JDK HttpClient, и пул не создается.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "shareit-server.http", name = "protocol", havingValue = "http1", matchIfMissing = true)
+    public InstrumentedConnectionManager shareitServerConnectionManager(HttpClientProperties properties) {
+        InstrumentedConnectionManager connectionManager = new InstrumentedConnectionManager(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity((int) properties.getValidateAfterInactivity().toMillis());
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "shareit-server.http", name = "protocol", havingValue = "http1", matchIfMissing = true)
+    public CloseableHttpClient shareitServerHttpClient(InstrumentedConnectionManager connectionManager, HttpClientProperties properties) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) properties.getLeaseTimeout().toMillis())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "shareit-server.http", name = "protocol", havingValue = "http1", matchIfMissing = true)
+    public ClientHttpRequestFactory shareitServerRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "shareit-server.http", name = "protocol", havingValue = "h2c")
+    public ClientHttpRequestFactory shareitServerH2cRequestFactory(HttpClientProperties properties) {
+        HttpClient jdkClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+        return new JdkHttpClientRequestFactory(jdkClient, properties.getReadTimeout());
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.client;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shareit-server.http")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class HttpClientProperties {
+    Protocol protocol = Protocol.HTTP1;
+    int maxTotal = 200;
+    int maxPerRoute = 200;
+    Duration connectTimeout = Duration.ofSeconds(2);
+    Duration readTimeout = Duration.ofSeconds(30);
+    Duration leaseTimeout = Duration.ofSeconds(2);
+    Duration idleTimeout = Duration.ofSeconds(30);
+    Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    /**
+     * maxTotal, maxPerRoute, leaseTimeout, idleTimeout и validateAfterInactivity настраивают пул HTTP/1.1 и в режиме H2C не действуют.
+     */
+    public enum Protocol {
+        HTTP1,
+        H2C
+    }
+}
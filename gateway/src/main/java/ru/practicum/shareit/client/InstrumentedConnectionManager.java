@@ -0,0 +1,65 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул соединений к shareit-server, публикующий свое состояние и время ожидания свободного соединения.
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager implements MeterBinder {
+    private static final String PREFIX = "shareit.gateway.http.pool";
+
+    private Timer leaseTimer;
+
+    public InstrumentedConnectionManager(long idleTimeToLive, TimeUnit unit) {
+        super(idleTimeToLive, unit);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(PREFIX + ".leased", this, manager -> manager.getTotalStats().getLeased()).register(registry);
+        Gauge.builder(PREFIX + ".available", this, manager -> manager.getTotalStats().getAvailable()).register(registry);
+        Gauge.builder(PREFIX + ".pending", this, manager -> manager.getTotalStats().getPending()).register(registry);
+        Gauge.builder(PREFIX + ".max", this, manager -> manager.getTotalStats().getMax()).register(registry);
+        leaseTimer = Timer.builder(PREFIX + ".lease-wait")
+                .description("время ожидания соединения из пула")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest request = super.requestConnection(route, state);
+        Timer timer = leaseTimer;
+        if (timer == null) {
+            return request;
+        }
+
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long started = System.nanoTime();
+                try {
+                    return request.get(timeout, timeUnit);
+                } finally {
+                    timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+}
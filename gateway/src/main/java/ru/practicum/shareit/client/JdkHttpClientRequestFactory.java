@@ -0,0 +1,146 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Фабрика запросов RestTemplate поверх java.net.http.HttpClient. Используется для режима h2c:
+ * клиент договаривается о HTTP/2 через Upgrade и мультиплексирует запросы в одном соединении,
+ * а с сервером без поддержки h2c продолжает работать по HTTP/1.1.
+ */
+public class JdkHttpClientRequestFactory implements ClientHttpRequestFactory {
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.addAll(List.of("Connection", "Content-Length", "Expect", "Host", "Upgrade"));
+    }
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+
+    public JdkHttpClientRequestFactory(HttpClient httpClient, Duration readTimeout) {
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new JdkClientHttpRequest(uri, httpMethod);
+    }
+
+    private class JdkClientHttpRequest extends AbstractClientHttpRequest {
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+        JdkClientHttpRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                    .timeout(readTimeout)
+                    .method(method.name(), body.size() == 0
+                            ? HttpRequest.BodyPublishers.noBody()
+                            : HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (!RESTRICTED_HEADERS.contains(header.getKey())) {
+                    for (String value : header.getValue()) {
+                        request.header(header.getKey(), value);
+                    }
+                }
+            }
+
+            try {
+                return new JdkClientHttpResponse(httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("запрос к " + uri + " прерван", e);
+            }
+        }
+    }
+
+    private static class JdkClientHttpResponse implements ClientHttpResponse {
+        private final HttpResponse<InputStream> response;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        JdkClientHttpResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+            response.headers().map().forEach((name, values) -> {
+                if (!name.startsWith(":")) {
+                    headers.addAll(name, values);
+                }
+            });
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.valueOf(response.statusCode());
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(response.statusCode());
+            return status != null ? status.getReasonPhrase() : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.body();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.body().close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
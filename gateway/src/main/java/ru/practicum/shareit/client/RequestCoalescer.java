@@ -0,0 +1,85 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Схлопывает одинаковые одновременные GET-запросы к shareit-server: первый запрос с данным ключом
+ * идет на сервер, остальные до его завершения ждут и получают тот же ответ или то же исключение.
+ * Результат нигде не хранится — это делает ResponseCache.
+ */
+@Component
+public class RequestCoalescer implements MeterBinder {
+    private static final String PREFIX = "shareit.gateway.coalescing";
+
+    private final boolean enabled;
+    private final Map<String, CompletableFuture<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    public RequestCoalescer(@Value("${shareit-gateway.coalescing.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public ResponseEntity<Object> execute(String key, Supplier<ResponseEntity<Object>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        CompletableFuture<ResponseEntity<Object>> call = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            collapsed.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        try {
+            ResponseEntity<Object> response = loader.get();
+            call.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(PREFIX + ".requests", leaders, LongAdder::sum).tag("result", "leader").register(registry);
+        FunctionCounter.builder(PREFIX + ".requests", collapsed, LongAdder::sum).tag("result", "collapsed").register(registry);
+        Gauge.builder(PREFIX + ".active", this, RequestCoalescer::inFlight).register(registry);
+    }
+
+    private static ResponseEntity<Object> await(CompletableFuture<ResponseEntity<Object>> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * LRU-кеш успешных ответов shareit-server с ограничением по числу записей и TTL.
+ * После истечения ttl запись еще staleWhileRevalidate отдается как есть, а в фоне перезапрашивается.
+ * Записи помечены тегом (путем ресурса) и сбрасываются по ленте инвалидаций сервера.
+ * Ответ не кладется в кеш, только если во время его загрузки сбросили его тег или весь кеш:
+ * для этого запоминается поколение последней инвалидации каждого тега (не больше maxEntries тегов).
+ */
+@Component
+public class ResponseCache implements MeterBinder {
+    private static final String PREFIX = "shareit.gateway.cache";
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final LongSupplier ticker;
+    private final Executor revalidator;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<String>> tagKeys = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expiredEvictions = new LongAdder();
+    private final LongAdder invalidatedEvictions = new LongAdder();
+    private final Map<String, Long> tagInvalidations = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long generation;
+    private long clearedAt;
+    private long prunedThrough;
+
+    @Autowired
+    public ResponseCache(ResponseCacheProperties properties) {
+        this(properties, System::nanoTime, new ThreadPoolExecutor(properties.getRevalidateThreads(), properties.getRevalidateThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getMaxEntries()), runnable -> {
+            Thread thread = new Thread(runnable, "response-cache-revalidate");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ResponseCache(ResponseCacheProperties properties, LongSupplier ticker, Executor revalidator) {
+        this.enabled = properties.isEnabled();
+        this.maxEntries = properties.getMaxEntries();
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.staleNanos = properties.getStaleWhileRevalidate().toNanos();
+        this.ticker = ticker;
+        this.revalidator = revalidator;
+    }
+
+    public ResponseEntity<Object> get(String key, String tag, Supplier<ResponseEntity<Object>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Entry entry;
+        long loadGeneration;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        if (entry != null) {
+            long age = ticker.getAsLong() - entry.storedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return entry.response;
+            }
+            if (age < ttlNanos + staleNanos) {
+                staleHits.increment();
+                revalidate(key, tag, entry, loader, loadGeneration);
+                return entry.response;
+            }
+            expire(key, entry);
+        }
+
+        misses.increment();
+        ResponseEntity<Object> response = loader.get();
+        store(key, tag, response, loadGeneration);
+        return response;
+    }
+
+    public void invalidate(String tag) {
+        lock.lock();
+        try {
+            generation++;
+            tagInvalidations.remove(tag);
+            tagInvalidations.put(tag, generation);
+            if (tagInvalidations.size() > maxEntries) {
+                Iterator<Long> eldest = tagInvalidations.values().iterator();
+                prunedThrough = eldest.next();
+                eldest.remove();
+            }
+            Set<String> keys = tagKeys.remove(tag);
+            if (keys == null) {
+                return;
+            }
+            for (String key : keys) {
+                if (entries.remove(key) != null) {
+                    invalidatedEvictions.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            generation++;
+            clearedAt = generation;
+            tagInvalidations.clear();
+            invalidatedEvictions.add(entries.size());
+            entries.clear();
+            tagKeys.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        requestCounter(registry, "hit", hits);
+        requestCounter(registry, "stale", staleHits);
+        requestCounter(registry, "miss", misses);
+        evictionCounter(registry, "size", sizeEvictions);
+        evictionCounter(registry, "expired", expiredEvictions);
+        evictionCounter(registry, "invalidated", invalidatedEvictions);
+        Gauge.builder(PREFIX + ".size", this, ResponseCache::size).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (revalidator instanceof ExecutorService) {
+            ((ExecutorService) revalidator).shutdownNow();
+        }
+    }
+
+    private void revalidate(String key, String tag, Entry entry, Supplier<ResponseEntity<Object>> loader, long loadGeneration) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            revalidator.execute(() -> {
+                try {
+                    store(key, tag, loader.get(), loadGeneration);
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void store(String key, String tag, ResponseEntity<Object> response, long loadGeneration) {
+        lock.lock();
+        try {
+            if (isInvalidatedSince(tag, loadGeneration)) {
+                return;
+            }
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                remove(key, tag);
+                return;
+            }
+
+            entries.put(key, new Entry(response, ticker.getAsLong(), tag));
+            tagKeys.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+            if (entries.size() > maxEntries) {
+                Map.Entry<String, Entry> eldest = entries.entrySet().iterator().next();
+                remove(eldest.getKey(), eldest.getValue().tag);
+                sizeEvictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Для тегов, вытесненных из tagInvalidations, поколение неизвестно: такие загрузки считаются устаревшими,
+     * если начались до самой поздней вытесненной инвалидации.
+     */
+    private boolean isInvalidatedSince(String tag, long loadGeneration) {
+        return loadGeneration < clearedAt
+                || loadGeneration < prunedThrough
+                || loadGeneration < tagInvalidations.getOrDefault(tag, 0L);
+    }
+
+    private void expire(String key, Entry entry) {
+        lock.lock();
+        try {
+            if (entries.get(key) == entry) {
+                remove(key, entry.tag);
+                expiredEvictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(String key, String tag) {
+        entries.remove(key);
+        Set<String> keys = tagKeys.get(tag);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            tagKeys.remove(tag);
+        }
+    }
+
+    private static void requestCounter(MeterRegistry registry, String result, LongAdder counter) {
+        FunctionCounter.builder(PREFIX + ".requests", counter, LongAdder::sum).tag("result", result).register(registry);
+    }
+
+    private static void evictionCounter(MeterRegistry registry, String cause, LongAdder counter) {
+        FunctionCounter.builder(PREFIX + ".evictions", counter, LongAdder::sum).tag("cause", cause).register(registry);
+    }
+
+    private static class Entry {
+        final ResponseEntity<Object> response;
+        final long storedAt;
+        final String tag;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(ResponseEntity<Object> response, long storedAt, String tag) {
+            this.response = response;
+            this.storedAt = storedAt;
+            this.tag = tag;
+        }
+    }
+}
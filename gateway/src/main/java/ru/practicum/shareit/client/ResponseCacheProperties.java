@@ -0,0 +1,24 @@
+package ru.practicum.shareit.client;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shareit-gateway.cache")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ResponseCacheProperties {
+    boolean enabled = true;
+    int maxEntries = 10000;
+    Duration ttl = Duration.ofSeconds(30);
+    Duration staleWhileRevalidate = Duration.ofSeconds(30);
+    int revalidateThreads = 2;
+    long pollDelay = 1000;
+}
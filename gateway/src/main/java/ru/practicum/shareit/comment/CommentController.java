@@ -21,4 +21,9 @@ public class CommentController {
     public ResponseEntity<Object> addComment(@PathVariable int itemId, @RequestHeader(value = HEADER_PARAM) int userId, @Valid @RequestBody CommentDto commentDto) {
         return commentClient.addComment(itemId, userId, commentDto);
     }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<Object> getItemComments(@PathVariable int itemId, @RequestHeader(value = HEADER_PARAM) int userId, @RequestParam(defaultValue = "20") int size, @RequestParam(required = false) String cursor) {
+        return commentClient.getItemComments(itemId, userId, size, cursor);
+    }
 }
@@ -4,25 +4,42 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.comment.dto.CommentDto;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 public class CommentClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public CommentClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public CommentClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory, ResponseCache cache) {
         super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                cache
         );
     }
 
     public ResponseEntity<Object> addComment(int itemId, int userId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
+
+    /**
+     * Комментарии не зависят от пользователя, поэтому кеш общий и сбрасывается вместе с вещью.
+     */
+    public ResponseEntity<Object> getItemComments(int itemId, int userId, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("size", size));
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            return getCached(API_PREFIX + "/" + itemId, "/" + itemId + "/comments?size={size}&cursor={cursor}", userId, parameters, false);
+        }
+        return getCached(API_PREFIX + "/" + itemId, "/" + itemId + "/comments?size={size}", userId, parameters, false);
+    }
 }
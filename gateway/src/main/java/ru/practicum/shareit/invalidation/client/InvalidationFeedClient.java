@@ -0,0 +1,94 @@
+package ru.practicum.shareit.invalidation.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.invalidation.dto.InvalidationDto;
+import ru.practicum.shareit.invalidation.dto.InvalidationFeedDto;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Читает ленту инвалидаций shareit-server по расписанию и сбрасывает устаревшие записи кеша ответов.
+ * Записи через этот шлюз сбрасывают свои теги сами (BaseClient), лента нужна для записей через другие шлюзы.
+ * Номера записей ленты идут с пропусками и могут становиться видны не по порядку, поэтому каждый опрос
+ * перечитывает OVERLAP номеров ниже последнего прочитанного, а уже примененные номера этого окна пропускает.
+ * Если ленту прочитать не удалось, кеш очищается целиком.
+ */
+@Slf4j
+@Service
+public class InvalidationFeedClient extends BaseClient {
+    private static final String API_PREFIX = "/invalidations";
+    private static final int BATCH_SIZE = 1000;
+    static final int OVERLAP = 200;
+
+    private final ResponseCache cache;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final NavigableSet<Long> applied = new TreeSet<>();
+    private String epoch;
+    private long last;
+
+    @Autowired
+    public InvalidationFeedClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory, ResponseCache cache) {
+        super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .requestFactory(() -> requestFactory)
+                        .build()
+        );
+        this.cache = cache;
+    }
+
+    /**
+     * Полная страница всегда продвигает last: в окне не больше OVERLAP записей, а OVERLAP меньше BATCH_SIZE.
+     */
+    @Scheduled(fixedDelayString = "${shareit-gateway.cache.poll-delay:1000}")
+    public void poll() {
+        lock.lock();
+        try {
+            InvalidationFeedDto feed;
+            do {
+                Map<String, Object> parameters = new HashMap<>();
+                parameters.put("epoch", epoch);
+                parameters.put("after", last);
+                parameters.put("overlap", OVERLAP);
+                parameters.put("limit", BATCH_SIZE);
+                feed = rest.getForObject("?epoch={epoch}&after={after}&overlap={overlap}&limit={limit}", InvalidationFeedDto.class, parameters);
+                if (feed == null) {
+                    throw new RestClientException("пустой ответ ленты инвалидаций");
+                }
+
+                if (feed.isReset()) {
+                    cache.clear();
+                    applied.clear();
+                    last = feed.getLast();
+                } else {
+                    for (InvalidationDto entry : feed.getEntries()) {
+                        if (entry.getId() > last - OVERLAP && applied.add(entry.getId())) {
+                            cache.invalidate(entry.getTag());
+                        }
+                        last = Math.max(last, entry.getId());
+                    }
+                    applied.headSet(last - OVERLAP, true).clear();
+                }
+                epoch = feed.getEpoch();
+            } while (!feed.isReset() && feed.getEntries().size() == BATCH_SIZE);
+        } catch (RestClientException e) {
+            log.warn("не удалось прочитать ленту инвалидаций: {}", e.getMessage());
+            cache.clear();
+            epoch = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
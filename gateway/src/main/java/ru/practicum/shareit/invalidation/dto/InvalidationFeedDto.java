@@ -0,0 +1,22 @@
+package ru.practicum.shareit.invalidation.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class InvalidationFeedDto {
+    String epoch;
+    long last;
+    boolean reset;
+    List<InvalidationDto> entries;
+}
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -8,6 +10,7 @@ import ru.practicum.shareit.item.client.ItemClient;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/items")
@@ -28,17 +31,24 @@ public class ItemController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getItemById(@PathVariable int id, @RequestHeader(HEADER_PARAM) int userId) {
-        return itemClient.getItemById(id, userId);
+    public ResponseEntity<Object> getItemById(@PathVariable int id, @RequestHeader(HEADER_PARAM) int userId, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return itemClient.getItemById(id, userId, ifNoneMatch);
+    }
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<Object> getItemAvailability(@PathVariable int id, @RequestHeader(HEADER_PARAM) int userId,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemClient.getItemAvailability(id, userId, from, to);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserItems(@RequestHeader(HEADER_PARAM) int userId) {
-        return itemClient.getUserItems(userId);
+    public ResponseEntity<Object> getUserItems(@RequestHeader(HEADER_PARAM) int userId, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return itemClient.getUserItems(userId, ifNoneMatch);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestHeader(HEADER_PARAM) int userId, @RequestParam String text, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size) {
-        return itemClient.searchItems(userId, text, from, size);
+    public ResponseEntity<Object> searchItems(@RequestHeader(HEADER_PARAM) int userId, @RequestParam String text, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size, @RequestParam(required = false) String cursor) {
+        return itemClient.searchItems(userId, text, from, size, cursor);
     }
 }
@@ -4,12 +4,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -17,10 +21,12 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory, ResponseCache cache, RequestCoalescer coalescer) {
         super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                cache,
+                coalescer
         );
     }
 
@@ -32,16 +38,29 @@ public class ItemClient extends BaseClient {
         return patch("/" + itemId, userId, newItemDto);
     }
 
-    public ResponseEntity<Object> getItemById(int itemId, int userId) {
-        return get("/" + itemId, userId);
+    public ResponseEntity<Object> getItemById(int itemId, int userId, String ifNoneMatch) {
+        return getCachedConditional(API_PREFIX + "/" + itemId, "/" + itemId, userId, ifNoneMatch);
     }
 
-    public ResponseEntity<Object> getUserItems(int userId) {
-        return get("/", userId);
+    public ResponseEntity<Object> getItemAvailability(int itemId, int userId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of("from", from, "to", to);
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
     }
 
-    public ResponseEntity<Object> searchItems(int userId, String text, int from, int size) {
-        Map<String, Object> parameters = Map.of("text", text, "from", from, "size", size);
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> getUserItems(int userId, String ifNoneMatch) {
+        return getConditional("/", userId, ifNoneMatch);
+    }
+
+    /**
+     * Ключ кеша и объединения запросов включает пользователя: ответ сервера на несуществующего пользователя — 404,
+     * и общий ключ отдал бы ему закешированные 200 других пользователей.
+     */
+    public ResponseEntity<Object> searchItems(int userId, String text, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("text", text, "from", from, "size", size));
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            return getCached(API_PREFIX + "/search", "/search?text={text}&from={from}&size={size}&cursor={cursor}", userId, parameters);
+        }
+        return getCached(API_PREFIX + "/search", "/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 }
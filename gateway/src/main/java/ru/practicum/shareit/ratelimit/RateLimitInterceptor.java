@@ -0,0 +1,53 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверяет лимит до вызова контроллера, то есть до обращения к shareit-server.
+ * Запросы без X-Sharer-User-Id не ограничиваются: они не доходят до сервера от имени пользователя.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String HEADER_PARAM = "X-Sharer-User-Id";
+
+    private final RateLimiter rateLimiter;
+
+    @Autowired
+    public RateLimitInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String header = request.getHeader(HEADER_PARAM);
+        if (header == null) {
+            return true;
+        }
+        int userId;
+        try {
+            userId = Integer.parseInt(header.trim());
+        } catch (NumberFormatException e) {
+            return true;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern != null ? pattern.toString() : request.getRequestURI();
+        boolean write = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+
+        long wait = rateLimiter.tryAcquire(userId, route, write);
+        if (wait > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new TooManyRequestsException("превышен лимит запросов для " + route, retryAfter);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Лимиты запросов на пользователя. Бюджет задается отдельно для чтения и записи,
+ * в routes можно переопределить его для шаблона пути, например routes[/items/search].
+ */
+@Component
+@ConfigurationProperties(prefix = "shareit-gateway.rate-limit")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RateLimitProperties {
+    boolean enabled = true;
+    Budget read = new Budget(200, 100);
+    Budget write = new Budget(40, 20);
+    Map<String, Budget> routes = new HashMap<>();
+
+    /**
+     * capacity — наибольший всплеск, perSecond — скорость пополнения.
+     */
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Budget {
+        int capacity;
+        double perSecond;
+
+        public Budget() {
+        }
+
+        public Budget(int capacity, double perSecond) {
+            this.capacity = capacity;
+            this.perSecond = perSecond;
+        }
+    }
+}
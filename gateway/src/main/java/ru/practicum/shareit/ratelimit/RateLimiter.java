@@ -0,0 +1,88 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Ведра токенов по ключу пользователь + шаблон пути + чтение/запись.
+ * Полные ведра периодически удаляются: новое ведро для того же ключа будет таким же полным.
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+    private static final String PREFIX = "shareit.gateway.rate-limit";
+
+    private final RateLimitProperties properties;
+    private final LongSupplier ticker;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier ticker) {
+        this.properties = properties;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Возвращает 0, если запрос разрешен, иначе сколько наносекунд ждать до следующей попытки.
+     */
+    public long tryAcquire(int userId, String route, boolean write) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        long now = ticker.getAsLong();
+        String key = userId + (write ? " W " : " R ") + route;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            RateLimitProperties.Budget budget = budget(route, write);
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(budget.getCapacity(), budget.getPerSecond(), now));
+        }
+
+        long wait = bucket.tryAcquire(now);
+        if (wait > 0) {
+            rejected.increment();
+        } else {
+            allowed.increment();
+        }
+        return wait;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit-gateway.rate-limit.cleanup-delay:60000}")
+    public void removeFullBuckets() {
+        long now = ticker.getAsLong();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(PREFIX + ".requests", allowed, LongAdder::sum).tag("result", "allowed").register(registry);
+        FunctionCounter.builder(PREFIX + ".requests", rejected, LongAdder::sum).tag("result", "rejected").register(registry);
+        Gauge.builder(PREFIX + ".buckets", this, RateLimiter::size).register(registry);
+    }
+
+    private RateLimitProperties.Budget budget(String route, boolean write) {
+        RateLimitProperties.Budget routeBudget = write ? null : properties.getRoutes().get(route);
+        if (routeBudget != null) {
+            return routeBudget;
+        }
+        return write ? properties.getWrite() : properties.getRead();
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ведро токенов в форме GCRA: вместо счетчика токенов хранится теоретическое время прихода
+ * следующего запроса, так что списание — один compareAndSet без блокировок и фонового пополнения.
+ */
+class TokenBucket {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(int capacity, double perSecond, long now) {
+        this.intervalNanos = (long) (1_000_000_000L / perSecond);
+        this.burstNanos = intervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Возвращает 0, если токен списан, иначе сколько наносекунд ждать до следующего токена.
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    boolean isFull(long now) {
+        return theoreticalArrival.get() <= now;
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -23,13 +24,13 @@ public class RequestController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAll(@RequestHeader("X-Sharer-User-Id") int userId) {
-        return requestClient.getAll(userId);
+    public ResponseEntity<Object> getAll(@RequestHeader("X-Sharer-User-Id") int userId, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return requestClient.getAll(userId, ifNoneMatch);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getOtherUsersRequests(@RequestHeader("X-Sharer-User-Id") int userId, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size) {
-        return requestClient.getOtherUsersRequests(userId, from, size);
+    public ResponseEntity<Object> getOtherUsersRequests(@RequestHeader("X-Sharer-User-Id") int userId, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size, @RequestParam(required = false) String cursor) {
+        return requestClient.getOtherUsersRequests(userId, from, size, cursor);
     }
 
     @GetMapping("/{requestId}")
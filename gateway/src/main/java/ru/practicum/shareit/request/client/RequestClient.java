@@ -4,12 +4,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.request.dto.RequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -17,10 +20,12 @@ public class RequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory, ResponseCache cache, RequestCoalescer coalescer) {
         super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                cache,
+                coalescer
         );
     }
 
@@ -28,16 +33,20 @@ public class RequestClient extends BaseClient {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getAll(int userId) {
-        return get("", userId);
+    public ResponseEntity<Object> getAll(int userId, String ifNoneMatch) {
+        return getConditional("", userId, ifNoneMatch);
     }
 
-    public ResponseEntity<Object> getOtherUsersRequests(int userId, int from, int size) {
-        Map<String, Object> parameters = Map.of("from", from, "size", size);
+    public ResponseEntity<Object> getOtherUsersRequests(int userId, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("from", from, "size", size));
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            return get("/all?from={from}&size={size}&cursor={cursor}", userId, parameters);
+        }
         return get("/all?from={from}&size={size}", userId, parameters);
     }
 
     public ResponseEntity<Object> getRequestByIdFull(int userId, int requestId) {
-        return get("/" + requestId, userId);
+        return getCached(API_PREFIX + "/" + requestId, "/" + requestId, userId, null);
     }
 }
@@ -4,10 +4,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.user.dto.UserDto;
 
 @Service
@@ -15,10 +17,12 @@ public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder, ClientHttpRequestFactory requestFactory, ResponseCache cache, RequestCoalescer coalescer) {
         super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                cache,
+                coalescer
         );
     }
 
@@ -35,7 +39,7 @@ public class UserClient extends BaseClient {
     }
 
     public ResponseEntity<Object> getUserById(int userId) {
-        return get("/" + userId);
+        return getCached(API_PREFIX + "/" + userId, "/" + userId, null, null);
     }
 
     public ResponseEntity<Object> getAll() {
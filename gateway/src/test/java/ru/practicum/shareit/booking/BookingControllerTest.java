@@ -10,9 +10,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.TestConvert;
 import ru.practicum.shareit.booking.client.BookingClient;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 import ru.practicum.shareit.booking.dto.BookingState;
@@ -20,6 +22,7 @@ import ru.practicum.shareit.exception.ExceptionController;
 import ru.practicum.shareit.item.dto.ItemDtoShort;
 import ru.practicum.shareit.user.dto.UserDtoShort;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -82,6 +85,26 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(bookingDto.getStatus().toString())));
     }
 
+    @Test
+    void testCreateBatch() throws Exception {
+        bookingResponse = new ResponseEntity<>(TestConvert.asJsonString(List.of(Map.of("index", 0, "booking", bookingDto), Map.of("index", 1, "error", "нет товара с id 2"))), HttpStatus.OK);
+        when(bookingClient.createBatch(anyInt(), any(BookingBatchDto.class))).thenReturn(bookingResponse);
+        BookingBatchDto batch = BookingBatchDto.builder().bookings(List.of(bookingDtoShort, BookingDtoShort.builder().itemId(2).start(bookingDtoShort.getStart()).end(bookingDtoShort.getEnd()).build())).build();
+
+        mvc.perform(post("/bookings/batch").content(TestConvert.asJsonString(batch)).header(HEADER_PARAM, 1).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].booking.id", is(bookingDto.getId()), Integer.class))
+                .andExpect(jsonPath("$[1].error", is("нет товара с id 2")));
+    }
+
+    @Test
+    void testCreateBatchInvalidBooking() throws Exception {
+        BookingBatchDto batch = BookingBatchDto.builder().bookings(List.of(BookingDtoShort.builder().itemId(1).end(bookingDtoShort.getEnd()).build())).build();
+
+        mvc.perform(post("/bookings/batch").content(TestConvert.asJsonString(batch)).header(HEADER_PARAM, 1).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testApprove() throws Exception {
         when(bookingClient.approve(anyInt(), anyInt(), anyBoolean())).thenReturn(bookingResponse);
@@ -148,7 +171,7 @@ public class BookingControllerTest {
     @Test
     void testGetUserBookings() throws Exception {
         bookingResponse = new ResponseEntity<>(TestConvert.asJsonString(List.of(bookingDto)), HttpStatus.OK);
-        when(bookingClient.getUserBookings(anyInt(), any(BookingState.class), anyInt(), anyInt())).thenReturn(bookingResponse);
+        when(bookingClient.getUserBookings(anyInt(), any(BookingState.class), anyInt(), anyInt(), any(), anyBoolean())).thenReturn(bookingResponse);
 
         mvc.perform(get("/bookings").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)))
@@ -174,7 +197,7 @@ public class BookingControllerTest {
     @Test
     void testGetUserBookingsNotExist() throws Exception {
         bookingResponse = new ResponseEntity<>(TestConvert.asJsonString(Map.of("message", "нет пользователя с id 1")), HttpStatus.NOT_FOUND);
-        when(bookingClient.getUserBookings(anyInt(), any(BookingState.class), anyInt(), anyInt())).thenReturn(bookingResponse);
+        when(bookingClient.getUserBookings(anyInt(), any(BookingState.class), anyInt(), anyInt(), any(), anyBoolean())).thenReturn(bookingResponse);
 
         mvc.perform(get("/bookings").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(content().string(containsString("message")))
@@ -184,7 +207,7 @@ public class BookingControllerTest {
     @Test
     void testGetOwnedItemsBookings() throws Exception {
         bookingResponse = new ResponseEntity<>(TestConvert.asJsonString(List.of(bookingDto)), HttpStatus.OK);
-        when(bookingClient.getOwnedItemsBookings(anyInt(), any(BookingState.class), anyInt(), anyInt())).thenReturn(bookingResponse);
+        when(bookingClient.getOwnedItemsBookings(anyInt(), any(BookingState.class), anyInt(), anyInt(), any(), anyBoolean())).thenReturn(bookingResponse);
 
         mvc.perform(get("/bookings/owner").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)))
@@ -205,4 +228,19 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$[0].booker.name", is(bookingDto.getBooker().getName())))
                 .andExpect(jsonPath("$[0].status", is(bookingDto.getStatus().toString())));
     }
+
+    @Test
+    void testExportUserBookings() throws Exception {
+        String ndjson = TestConvert.asJsonString(bookingDto) + "\n";
+        when(bookingClient.exportUserBookings(anyInt())).thenReturn(ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> out.write(ndjson.getBytes(StandardCharsets.UTF_8))));
+
+        MvcResult result = mvc.perform(get("/bookings/export").header(HEADER_PARAM, 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(ndjson));
+    }
 }
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpClientConfigTest {
+    private final HttpClientConfig config = new HttpClientConfig();
+    private final HttpClientProperties properties = new HttpClientProperties();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] response = (exchange.getRequestMethod() + " " + exchange.getRequestHeaders().getFirst("X-Sharer-User-Id") + " " + body)
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(201, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort() + "/echo";
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.stop(0);
+    }
+
+    @Test
+    void testPooledConnectionsAreReusedAndMeasured() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InstrumentedConnectionManager connectionManager = config.shareitServerConnectionManager(properties);
+        connectionManager.bindTo(registry);
+
+        try (CloseableHttpClient httpClient = config.shareitServerHttpClient(connectionManager, properties)) {
+            RestTemplate rest = new RestTemplate(config.shareitServerRequestFactory(httpClient));
+            for (int i = 0; i < 20; i++) {
+                assertThat(exchange(rest, HttpMethod.GET, null).getBody()).isEqualTo("GET 1 ");
+            }
+
+            assertThat(clientPorts).hasSize(1);
+            assertThat(registry.get("shareit.gateway.http.pool.lease-wait").timer().count()).isEqualTo(20);
+            assertThat(registry.get("shareit.gateway.http.pool.available").gauge().value()).isEqualTo(1);
+            assertThat(registry.get("shareit.gateway.http.pool.leased").gauge().value()).isZero();
+            assertThat(registry.get("shareit.gateway.http.pool.max").gauge().value()).isEqualTo(properties.getMaxTotal());
+        }
+    }
+
+    @Test
+    void testH2cModeSendsBodyAndHeaders() {
+        ClientHttpRequestFactory requestFactory = config.shareitServerH2cRequestFactory(properties);
+        RestTemplate rest = new RestTemplate(requestFactory);
+        ResponseEntity<String> response = exchange(rest, HttpMethod.PATCH, "{\"name\":\"drill\"}");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody()).isEqualTo("PATCH 1 {\"name\":\"drill\"}");
+    }
+
+    @Test
+    void testPoolBuiltOnlyForHttp1() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class))
+                .withUserConfiguration(HttpClientConfig.class, HttpClientProperties.class);
+
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(InstrumentedConnectionManager.class).hasSingleBean(CloseableHttpClient.class);
+            assertThat(context.getBean(ClientHttpRequestFactory.class)).isInstanceOf(HttpComponentsClientHttpRequestFactory.class);
+        });
+        runner.withPropertyValues("shareit-server.http.protocol=h2c").run(context -> {
+            assertThat(context).doesNotHaveBean(InstrumentedConnectionManager.class).doesNotHaveBean(CloseableHttpClient.class);
+            assertThat(context.getBean(ClientHttpRequestFactory.class)).isInstanceOf(JdkHttpClientRequestFactory.class);
+        });
+    }
+
+    private ResponseEntity<String> exchange(RestTemplate rest, HttpMethod method, String body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Sharer-User-Id", "1");
+        headers.set("Content-Type", "application/json; charset=UTF-8");
+        return rest.exchange(baseUrl, method, new HttpEntity<>(body, headers), String.class);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RequestCoalescerTest {
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ExecutorService executor;
+    private RequestCoalescer coalescer;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = Executors.newFixedThreadPool(CALLERS);
+        coalescer = new RequestCoalescer(true);
+        coalescer.bindTo(registry);
+    }
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentIdenticalRequestsShareOneCall() throws Exception {
+        List<Future<ResponseEntity<Object>>> responses = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            responses.add(executor.submit(() -> coalescer.execute("/items/1 1", this::blockingLoad)));
+        }
+        awaitCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<ResponseEntity<Object>> response : responses) {
+            assertThat(response.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(1);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(count("collapsed")).isEqualTo(CALLERS - 1);
+        assertThat(registry.get("shareit.gateway.coalescing.active").gauge().value()).isZero();
+    }
+
+    @Test
+    void testFailureIsSharedAndNotRemembered() throws Exception {
+        Future<ResponseEntity<Object>> leader = executor.submit(() -> coalescer.execute("/items/1 1", () -> {
+            blockingLoad();
+            throw new ResourceAccessException("сервер недоступен");
+        }));
+        awaitActive();
+        Future<ResponseEntity<Object>> follower = executor.submit(() -> coalescer.execute("/items/1 1", this::blockingLoad));
+        awaitCollapsed(1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(ResourceAccessException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(ResourceAccessException.class);
+        assertThat(coalescer.execute("/items/1 1", this::blockingLoad).getBody()).isEqualTo(2);
+    }
+
+    @Test
+    void testDifferentKeysAndSequentialRequestsAreNotCollapsed() {
+        release.countDown();
+
+        coalescer.execute("/items/1 1", this::blockingLoad);
+        coalescer.execute("/items/1 2", this::blockingLoad);
+        coalescer.execute("/items/1 1", this::blockingLoad);
+
+        assertThat(loads).hasValue(3);
+        assertThat(count("collapsed")).isZero();
+    }
+
+    @Test
+    void testDisabled() {
+        release.countDown();
+        coalescer = new RequestCoalescer(false);
+
+        assertThat(coalescer.execute("/items/1 1", this::blockingLoad).getBody()).isEqualTo(1);
+        assertThat(coalescer.inFlight()).isZero();
+    }
+
+    private ResponseEntity<Object> blockingLoad() {
+        int load = loads.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ResponseEntity.ok(load);
+    }
+
+    private double count(String result) {
+        return registry.get("shareit.gateway.coalescing.requests").tag("result", result).functionCounter().count();
+    }
+
+    private void awaitActive() throws InterruptedException {
+        while (coalescer.inFlight() == 0) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitCollapsed(int expected) throws InterruptedException {
+        while (count("collapsed") < expected) {
+            Thread.sleep(5);
+        }
+    }
+}
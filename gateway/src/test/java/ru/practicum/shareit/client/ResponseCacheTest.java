@@ -0,0 +1,153 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseCacheTest {
+    private final ResponseCacheProperties properties = new ResponseCacheProperties();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Runnable> revalidations = new ArrayList<>();
+    private long now;
+    private ResponseCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        properties.setMaxEntries(2);
+        properties.setTtl(Duration.ofSeconds(10));
+        properties.setStaleWhileRevalidate(Duration.ofSeconds(5));
+        cache = new ResponseCache(properties, () -> now, revalidations::add);
+    }
+
+    @Test
+    void testFreshHitAndMiss() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        assertThat(cache.get("a", "/items/1", loader()).getBody()).isEqualTo(1);
+        assertThat(cache.get("a", "/items/1", loader()).getBody()).isEqualTo(1);
+
+        assertThat(loads).hasValue(1);
+        assertThat(registry.get("shareit.gateway.cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("shareit.gateway.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("shareit.gateway.cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void testStaleWhileRevalidate() {
+        cache.get("a", "/items/1", loader());
+        now = Duration.ofSeconds(12).toNanos();
+
+        assertThat(cache.get("a", "/items/1", loader()).getBody()).isEqualTo(1);
+        assertThat(cache.get("a", "/items/1", loader()).getBody()).isEqualTo(1);
+        assertThat(revalidations).hasSize(1);
+
+        revalidations.get(0).run();
+        assertThat(cache.get("a", "/items/1", loader()).getBody()).isEqualTo(2);
+    }
+
+    @Test
+    void testExpiredAndEvictedBySize() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.get("a", "/items/1", loader());
+        cache.get("b", "/items/2", loader());
+        cache.get("a", "/items/1", loader());
+        cache.get("c", "/items/3", loader());
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("b", "/items/2", loader()).getBody()).isEqualTo(4);
+        assertThat(registry.get("shareit.gateway.cache.evictions").tag("cause", "size").functionCounter().count()).isEqualTo(2);
+
+        now = Duration.ofSeconds(20).toNanos();
+        assertThat(cache.get("b", "/items/2", loader()).getBody()).isEqualTo(5);
+        assertThat(registry.get("shareit.gateway.cache.evictions").tag("cause", "expired").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidateByTag() {
+        cache.get("item 1 user 1", "/items/1", loader());
+        cache.get("item 1 user 2", "/items/1", loader());
+
+        cache.invalidate("/items/1");
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get("item 1 user 1", "/items/1", loader()).getBody()).isEqualTo(3);
+    }
+
+    @Test
+    void testResponseLoadedDuringInvalidationIsNotStored() {
+        cache.get("a", "/items/1", () -> {
+            cache.invalidate("/items/1");
+            return loader().get();
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testInvalidationOfOtherTagKeepsLoadedResponse() {
+        cache.get("a", "/items/1", () -> {
+            cache.invalidate("/items/2");
+            return loader().get();
+        });
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testLoadOverlappingPrunedInvalidationIsNotStored() {
+        cache.get("a", "/items/1", () -> {
+            cache.invalidate("/items/2");
+            cache.invalidate("/items/3");
+            cache.invalidate("/items/4");
+            return loader().get();
+        });
+        cache.get("b", "/items/5", loader());
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testResponseLoadedDuringClearIsNotStored() {
+        cache.get("a", "/items/1", () -> {
+            cache.clear();
+            return loader().get();
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testErrorsAreNotCached() {
+        cache.get("a", "/items/1", () -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testDisabledCacheAlwaysLoads() {
+        properties.setEnabled(false);
+        cache = new ResponseCache(properties, () -> now, revalidations::add);
+
+        cache.get("a", "/items/1", loader());
+        cache.get("a", "/items/1", loader());
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    private Supplier<ResponseEntity<Object>> loader() {
+        return () -> ResponseEntity.ok(loads.incrementAndGet());
+    }
+}
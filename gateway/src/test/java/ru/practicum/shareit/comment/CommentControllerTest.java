@@ -21,6 +21,7 @@ import java.time.LocalDateTime;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -66,4 +67,14 @@ public class CommentControllerTest {
                 .andExpect(jsonPath("$.created[3]", is(commentDto.getCreated().getHour())))
                 .andExpect(jsonPath("$.created[4]", is(commentDto.getCreated().getMinute())));
     }
+
+    @Test
+    void testGetItemComments() throws Exception {
+        when(commentClient.getItemComments(anyInt(), anyInt(), anyInt(), any())).thenReturn(new ResponseEntity<>("[]", HttpStatus.OK));
+
+        mvc.perform(get("/items/1/comments").param("cursor", "abc").header(HEADER_PARAM, 1))
+                .andExpect(status().isOk());
+
+        verify(commentClient).getItemComments(1, 1, 20, "abc");
+    }
 }
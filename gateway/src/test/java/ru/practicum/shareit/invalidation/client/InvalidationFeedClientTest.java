@@ -0,0 +1,101 @@
+package ru.practicum.shareit.invalidation.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ResponseCacheProperties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InvalidationFeedClientTest {
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final List<String> responses = new ArrayList<>();
+    private final ResponseCache cache = new ResponseCache(new ResponseCacheProperties());
+    private HttpServer server;
+    private InvalidationFeedClient client;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/invalidations", exchange -> {
+            queries.add(exchange.getRequestURI().getQuery());
+            byte[] response = responses.remove(0).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        client = new InvalidationFeedClient("http://localhost:" + server.getAddress().getPort(), new RestTemplateBuilder(),
+                new SimpleClientHttpRequestFactory(), cache);
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.stop(0);
+        cache.shutdown();
+    }
+
+    @Test
+    void testPollInvalidatesTagsAndResetsOnNewEpoch() {
+        responses.add("{\"epoch\":\"e1\",\"last\":4,\"reset\":true,\"entries\":[]}");
+        client.poll();
+
+        cache.get("item 1", "/items/1", () -> ResponseEntity.ok("item"));
+        cache.get("user 2", "/users/2", () -> ResponseEntity.ok("user"));
+        responses.add("{\"epoch\":\"e1\",\"last\":5,\"reset\":false,\"entries\":[{\"id\":5,\"tag\":\"/items/1\"}]}");
+        client.poll();
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(queries.get(1)).isEqualTo("epoch=e1&after=4&overlap=" + InvalidationFeedClient.OVERLAP + "&limit=1000");
+
+        responses.add("{\"epoch\":\"e2\",\"last\":0,\"reset\":true,\"entries\":[]}");
+        client.poll();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    /**
+     * Запись 6 стала видна позже записи 7: она приходит в окне перечитывания, а повтор 7 тег больше не сбрасывает.
+     */
+    @Test
+    void testLateEntryInOverlapIsAppliedOnce() {
+        responses.add("{\"epoch\":\"e1\",\"last\":5,\"reset\":true,\"entries\":[]}");
+        client.poll();
+        responses.add("{\"epoch\":\"e1\",\"last\":7,\"reset\":false,\"entries\":[{\"id\":7,\"tag\":\"/users/7\"}]}");
+        client.poll();
+
+        cache.get("item 6", "/items/6", () -> ResponseEntity.ok("item"));
+        cache.get("user 7", "/users/7", () -> ResponseEntity.ok("user"));
+        responses.add("{\"epoch\":\"e1\",\"last\":7,\"reset\":false,\"entries\":[{\"id\":6,\"tag\":\"/items/6\"},{\"id\":7,\"tag\":\"/users/7\"}]}");
+        client.poll();
+
+        assertThat(queries.get(2)).startsWith("epoch=e1&after=7&");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("user 7", "/users/7", () -> ResponseEntity.ok("reloaded")).getBody()).isEqualTo("user");
+    }
+
+    @Test
+    void testUnreachableFeedClearsCache() {
+        cache.get("item 1", "/items/1", () -> ResponseEntity.ok("item"));
+        server.stop(0);
+
+        client.poll();
+
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -118,7 +118,7 @@ public class ItemControllerTest {
 
     @Test
     void testGetItemById() throws Exception {
-        when(itemClient.getItemById(anyInt(), anyInt())).thenReturn(itemResponse);
+        when(itemClient.getItemById(anyInt(), anyInt(), any())).thenReturn(itemResponse);
 
         mvc.perform(get("/items/1").content(TestConvert.asJsonString(itemDto)).header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id", is(itemDto.getId()), Integer.class))
@@ -130,7 +130,7 @@ public class ItemControllerTest {
     @Test
     void testGetItemByIdNotExist() throws Exception {
         itemResponse = new ResponseEntity<>(Map.of("message", "нет товара с id 1"), HttpStatus.NOT_FOUND);
-        when(itemClient.getItemById(anyInt(), anyInt())).thenReturn(itemResponse);
+        when(itemClient.getItemById(anyInt(), anyInt(), any())).thenReturn(itemResponse);
 
         mvc.perform(get("/items/1").content(TestConvert.asJsonString(itemDto)).header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
@@ -141,7 +141,7 @@ public class ItemControllerTest {
     @Test
     void testGetUserItems() throws Exception {
         itemResponse = new ResponseEntity<>(List.of(itemDtoWithNulls), HttpStatus.OK);
-        when(itemClient.getUserItems(anyInt())).thenReturn(itemResponse);
+        when(itemClient.getUserItems(anyInt(), any())).thenReturn(itemResponse);
 
         mvc.perform(get("/items?from=1&size=20").content(TestConvert.asJsonString(itemDto)).header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)))
@@ -155,7 +155,7 @@ public class ItemControllerTest {
     @Test
     void testSearchItems() throws Exception {
         itemResponse = new ResponseEntity<>(List.of(itemDto), HttpStatus.OK);
-        when(itemClient.searchItems(anyInt(), anyString(), anyInt(), anyInt())).thenReturn(itemResponse);
+        when(itemClient.searchItems(anyInt(), anyString(), anyInt(), anyInt(), any())).thenReturn(itemResponse);
 
         mvc.perform(get("/items/search?text=search&from=1&size=20").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)))
@@ -171,4 +171,21 @@ public class ItemControllerTest {
         mvc.perform(get("/items/search?&from=1&size=20").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void testGetItemAvailability() throws Exception {
+        itemResponse = new ResponseEntity<>(List.of(Map.of("start", "2023-05-06T11:00:00", "end", "2023-06-05T11:00:00")), HttpStatus.OK);
+        when(itemClient.getItemAvailability(anyInt(), anyInt(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(itemResponse);
+
+        mvc.perform(get("/items/1/availability?from=2023-05-01T00:00:00&to=2023-07-01T00:00:00").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].start", is("2023-05-06T11:00:00")));
+    }
+
+    @Test
+    void testGetItemAvailabilityWrongDate() throws Exception {
+        mvc.perform(get("/items/1/availability?from=вчера&to=2023-07-01T00:00:00").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
 }
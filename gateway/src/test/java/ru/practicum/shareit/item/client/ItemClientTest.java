@@ -0,0 +1,128 @@
+package ru.practicum.shareit.item.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import ru.practicum.shareit.client.RequestCoalescer;
+import ru.practicum.shareit.client.ResponseCache;
+import ru.practicum.shareit.client.ResponseCacheProperties;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemClientTest {
+    private static final String ETAG = "\"items-1.0\"";
+    private static final String UNKNOWN_USER = "999";
+
+    private final List<String> ifNoneMatches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger gets = new AtomicInteger();
+    private final ResponseCache cache = new ResponseCache(new ResponseCacheProperties());
+    private HttpServer server;
+    private ItemClient client;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/items", exchange -> {
+            if (exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().add("X-Invalidated-Tags", "/items/1");
+                exchange.getResponseHeaders().add("X-Invalidated-Tags", "/items/search");
+                byte[] response = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(201, response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+                return;
+            }
+            gets.incrementAndGet();
+            if (UNKNOWN_USER.equals(exchange.getRequestHeaders().getFirst("X-Sharer-User-Id"))) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatches.add(String.valueOf(ifNoneMatch));
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            if (ETAG.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] response = "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        client = new ItemClient("http://localhost:" + server.getAddress().getPort(), new RestTemplateBuilder(),
+                new SimpleClientHttpRequestFactory(), cache, new RequestCoalescer(true));
+    }
+
+    @AfterEach
+    void afterEach() {
+        server.stop(0);
+        cache.shutdown();
+    }
+
+    @Test
+    void testGetUserItemsPassesValidatorsThrough() {
+        ResponseEntity<Object> response = client.getUserItems(1, null);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo(ETAG);
+
+        ResponseEntity<Object> notModified = client.getUserItems(1, ETAG);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(notModified.hasBody()).isFalse();
+        assertThat(ifNoneMatches).containsExactly("null", ETAG);
+    }
+
+    @Test
+    void testSearchCachedPerUser() {
+        assertThat(client.searchItems(1, "дрель", 0, 10, null).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(client.searchItems(Integer.parseInt(UNKNOWN_USER), "дрель", 0, 10, null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(client.searchItems(1, "дрель", 0, 10, null).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(gets).hasValue(2);
+    }
+
+    @Test
+    void testGetItemByIdAnswersNotModifiedFromCache() {
+        assertThat(client.getItemById(1, 1, null).getHeaders().getETag()).isEqualTo(ETAG);
+
+        ResponseEntity<Object> notModified = client.getItemById(1, 1, "\"other\", W/" + ETAG);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModified.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(client.getItemById(1, 1, "\"other\"").getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(ifNoneMatches).containsExactly("null");
+    }
+
+    @Test
+    void testWriteInvalidatesReturnedTagsWithoutPolling() {
+        client.getItemById(1, 1, null);
+        client.getItemById(1, 1, null);
+        assertThat(gets).hasValue(1);
+
+        ResponseEntity<Object> created = client.create(1, ItemDto.builder().name("Дрель").description("Простая").available(true).build());
+
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(created.getHeaders().containsKey("X-Invalidated-Tags")).isFalse();
+        client.getItemById(1, 1, null);
+        assertThat(gets).hasValue(2);
+    }
+}
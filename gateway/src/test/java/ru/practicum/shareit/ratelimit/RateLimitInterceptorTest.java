@@ -0,0 +1,69 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareit.exception.ExceptionController;
+import ru.practicum.shareit.item.ItemController;
+import ru.practicum.shareit.item.client.ItemClient;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class RateLimitInterceptorTest {
+    private static final String HEADER_PARAM = "X-Sharer-User-Id";
+
+    @Mock
+    private ItemClient itemClient;
+
+    @InjectMocks
+    private ItemController itemController;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void beforeEach() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRead(new RateLimitProperties.Budget(100, 100));
+        properties.setRoutes(Map.of("/items/search", new RateLimitProperties.Budget(2, 0.1)));
+        mvc = MockMvcBuilders.standaloneSetup(itemController)
+                .setControllerAdvice(ExceptionController.class)
+                .addInterceptors(new RateLimitInterceptor(new RateLimiter(properties)))
+                .build();
+        lenient().when(itemClient.searchItems(anyInt(), anyString(), anyInt(), anyInt(), any())).thenReturn(ResponseEntity.ok("[]"));
+    }
+
+    @Test
+    void testTooManyRequests() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(get("/items/search").param("text", "дрель").header(HEADER_PARAM, 1))
+                    .andExpect(status().isOk());
+        }
+
+        mvc.perform(get("/items/search").param("text", "дрель").header(HEADER_PARAM, 1))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "10"))
+                .andExpect(jsonPath("$.message").value("превышен лимит запросов для /items/search"));
+        mvc.perform(get("/items/search").param("text", "дрель").header(HEADER_PARAM, 2))
+                .andExpect(status().isOk());
+        verify(itemClient, times(3)).searchItems(anyInt(), anyString(), anyInt(), anyInt(), any());
+    }
+}
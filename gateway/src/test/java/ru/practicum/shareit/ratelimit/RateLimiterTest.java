@@ -0,0 +1,121 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RateLimitProperties properties;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void beforeEach() {
+        properties = new RateLimitProperties();
+        properties.setRead(new RateLimitProperties.Budget(3, 1));
+        properties.setWrite(new RateLimitProperties.Budget(1, 0.5));
+        properties.setRoutes(Map.of("/items/search", new RateLimitProperties.Budget(1, 1)));
+        rateLimiter = new RateLimiter(properties, now::get);
+        rateLimiter.bindTo(registry);
+    }
+
+    @Test
+    void testBurstThenRejectWithRetryAfter() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire(1, "/items", false)).isZero();
+        }
+
+        assertThat(rateLimiter.tryAcquire(1, "/items", false)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        assertThat(rateLimiter.tryAcquire(1, "/items", false)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(600));
+        assertThat(count("allowed")).isEqualTo(3);
+        assertThat(count("rejected")).isEqualTo(2);
+    }
+
+    @Test
+    void testRefill() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire(1, "/items", false);
+        }
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertThat(rateLimiter.tryAcquire(1, "/items", false)).isZero();
+        assertThat(rateLimiter.tryAcquire(1, "/items", false)).isZero();
+        assertThat(rateLimiter.tryAcquire(1, "/items", false)).isPositive();
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire(1, "/items", false)).isZero();
+        }
+        assertThat(rateLimiter.tryAcquire(1, "/items", false)).isPositive();
+    }
+
+    @Test
+    void testReadAndWriteBudgetsAreSeparate() {
+        assertThat(rateLimiter.tryAcquire(1, "/items", true)).isZero();
+        assertThat(rateLimiter.tryAcquire(1, "/items", true)).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+
+        assertThat(rateLimiter.tryAcquire(1, "/items", false)).isZero();
+    }
+
+    @Test
+    void testUsersAndRoutesAreSeparate() {
+        assertThat(rateLimiter.tryAcquire(1, "/items/search", false)).isZero();
+        assertThat(rateLimiter.tryAcquire(1, "/items/search", false)).isPositive();
+
+        assertThat(rateLimiter.tryAcquire(2, "/items/search", false)).isZero();
+        assertThat(rateLimiter.tryAcquire(1, "/items", false)).isZero();
+    }
+
+    @Test
+    void testRemoveFullBuckets() {
+        rateLimiter.tryAcquire(1, "/items", false);
+        rateLimiter.tryAcquire(2, "/items", false);
+        rateLimiter.tryAcquire(2, "/items", false);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        rateLimiter.removeFullBuckets();
+
+        assertThat(rateLimiter.size()).isEqualTo(1);
+        assertThat(registry.get("shareit.gateway.rate-limit.buckets").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void testDisabled() {
+        properties.setEnabled(false);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.tryAcquire(1, "/items", true)).isZero();
+        }
+        assertThat(rateLimiter.size()).isZero();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkTryAcquire() {
+        properties.setRead(new RateLimitProperties.Budget(Integer.MAX_VALUE / 2, 1_000_000));
+        rateLimiter = new RateLimiter(properties);
+        int iterations = 5_000_000;
+        for (int i = 0; i < iterations; i++) {
+            rateLimiter.tryAcquire(i % 1000, "/items/{itemId}", false);
+        }
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            rateLimiter.tryAcquire(i % 1000, "/items/{itemId}", false);
+        }
+        System.out.printf("RateLimiter.tryAcquire: %.3f мкс на вызов%n", (System.nanoTime() - startedAt) / 1e3 / iterations);
+    }
+
+    private double count(String result) {
+        return registry.get("shareit.gateway.rate-limit.requests").tag("result", result).functionCounter().count();
+    }
+}
@@ -109,7 +109,7 @@ public class RequestControllerTest {
     @Test
     void testGetAll() throws Exception {
         requestResponse = new ResponseEntity<>(TestConvert.asJsonString(List.of(requestAnswerDto)), HttpStatus.OK);
-        when(requestClient.getAll(anyInt())).thenReturn(requestResponse);
+        when(requestClient.getAll(anyInt(), any())).thenReturn(requestResponse);
 
         mvc.perform(get("/requests").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)))
@@ -131,7 +131,7 @@ public class RequestControllerTest {
     @Test
     void testGetRequestsForUserOwnedItems() throws Exception {
         requestResponse = new ResponseEntity<>(TestConvert.asJsonString(List.of(requestAnswerDto)), HttpStatus.OK);
-        when(requestClient.getOtherUsersRequests(anyInt(), anyInt(), anyInt())).thenReturn(requestResponse);
+        when(requestClient.getOtherUsersRequests(anyInt(), anyInt(), anyInt(), any())).thenReturn(requestResponse);
 
         mvc.perform(get("/requests/all?from=0&size=4").header(HEADER_PARAM, 1).accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(1)))
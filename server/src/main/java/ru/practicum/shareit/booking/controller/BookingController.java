@@ -1,14 +1,28 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.user.service.UserService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @RestController
@@ -16,11 +30,15 @@ import java.util.stream.Collectors;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final UserService userService;
+    private final ObjectWriter ndjsonWriter;
     private static final String HEADER_PARAM = "X-Sharer-User-Id";
 
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, UserService userService, ObjectMapper objectMapper) {
         this.bookingService = bookingService;
+        this.userService = userService;
+        this.ndjsonWriter = objectMapper.writerFor(BookingDto.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     @PostMapping
@@ -28,6 +46,11 @@ public class BookingController {
         return BookingMapper.toBookingDto(bookingService.create(userId, newBookingDto));
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBatch(@RequestHeader(value = HEADER_PARAM) int userId, @RequestBody BookingBatchDto newBookings) {
+        return bookingService.createBatch(userId, newBookings.getBookings());
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto approve(@PathVariable int bookingId, @RequestHeader(HEADER_PARAM) int userId, @RequestParam boolean approved) {
         return BookingMapper.toBookingDto(bookingService.approve(bookingId, userId, approved));
@@ -39,12 +62,47 @@ public class BookingController {
     }
 
     @GetMapping
-    public Collection<BookingDto> getUserBookings(@RequestHeader(HEADER_PARAM) int userId, @RequestParam(defaultValue = "ALL") BookingState state, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size) {
-        return bookingService.getUserBookings(userId, state, from, size).stream().map(BookingMapper::toBookingDto).collect(Collectors.toList());
+    public ResponseEntity<Collection<BookingDto>> getUserBookings(@RequestHeader(HEADER_PARAM) int userId, @RequestParam(defaultValue = "ALL") BookingState state, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean archived) {
+        if (archived) {
+            return bookingService.getUserBookingsWithArchive(userId, state, cursor, size).map(BookingMapper::toBookingDto).toResponse();
+        }
+        if (cursor != null) {
+            return bookingService.getUserBookings(userId, state, cursor, size).map(BookingMapper::toBookingDto).toResponse();
+        }
+        return ResponseEntity.ok(bookingService.getUserBookings(userId, state, from, size).stream().map(BookingMapper::toBookingDto).collect(Collectors.toList()));
     }
 
     @GetMapping("/owner")
-    public Collection<BookingDto> getOwnedItemsBookings(@RequestHeader(HEADER_PARAM) int ownerId, @RequestParam(defaultValue = "ALL") BookingState state, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size) {
-        return bookingService.getOwnedItemsBookings(ownerId, state, from, size).stream().map(BookingMapper::toBookingDto).collect(Collectors.toList());
+    public ResponseEntity<Collection<BookingDto>> getOwnedItemsBookings(@RequestHeader(HEADER_PARAM) int ownerId, @RequestParam(defaultValue = "ALL") BookingState state, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") boolean archived) {
+        if (archived) {
+            return bookingService.getOwnedItemsBookingsWithArchive(ownerId, state, cursor, size).map(BookingMapper::toBookingDto).toResponse();
+        }
+        if (cursor != null) {
+            return bookingService.getOwnedItemsBookings(ownerId, state, cursor, size).map(BookingMapper::toBookingDto).toResponse();
+        }
+        return ResponseEntity.ok(bookingService.getOwnedItemsBookings(ownerId, state, from, size).stream().map(BookingMapper::toBookingDto).collect(Collectors.toList()));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUserBookings(@RequestHeader(HEADER_PARAM) int userId) {
+        userService.getUserById(userId);
+        return toNdjson(consumer -> bookingService.exportUserBookings(userId, consumer));
+    }
+
+    @GetMapping(value = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOwnedItemsBookings(@RequestHeader(HEADER_PARAM) int ownerId) {
+        userService.getUserById(ownerId);
+        return toNdjson(consumer -> bookingService.exportOwnedItemsBookings(ownerId, consumer));
+    }
+
+    private ResponseEntity<StreamingResponseBody> toNdjson(Consumer<Consumer<BookingView>> export) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> export.accept(booking -> {
+            try {
+                ndjsonWriter.writeValue(out, BookingMapper.toBookingDto(booking));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Результат одного бронирования пакета: созданное бронирование или причина отказа.
+ */
+@Data
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingBatchResultDto {
+    int index;
+    BookingDto booking;
+    String error;
+}
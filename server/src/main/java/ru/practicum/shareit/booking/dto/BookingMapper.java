@@ -1,7 +1,9 @@
 package ru.practicum.shareit.booking.dto;
 
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingHistory;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingView;
 import ru.practicum.shareit.item.dto.ItemDtoShort;
 import ru.practicum.shareit.user.dto.UserDtoShort;
 
@@ -27,6 +29,17 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingDto toBookingDto(BookingView booking) {
+        return BookingDto.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .item(ItemDtoShort.builder().id(booking.getItemId()).name(booking.getItemName()).build())
+                .booker(UserDtoShort.builder().id(booking.getBookerId()).name(booking.getBookerName()).build())
+                .status(BookingState.valueOf(booking.getStatus().name()))
+                .build();
+    }
+
     public static BookingTimeIntervalDto toBookingTimeIntervalDto(Booking booking) {
         return BookingTimeIntervalDto.builder()
                 .id(booking.getId())
@@ -35,4 +48,28 @@ public class BookingMapper {
                 .bookerId(booking.getBooker().getId())
                 .build();
     }
+
+    public static BookingTimeIntervalDto toBookingTimeIntervalDto(BookingHistory booking) {
+        return BookingTimeIntervalDto.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .bookerId(booking.getBooker().getId())
+                .build();
+    }
+
+    /**
+     * Архивное бронирование в виде Booking только для ответа: сохранять его нельзя, в bookings такой строки нет.
+     */
+    public static Booking toBooking(BookingHistory booking) {
+        return Booking.builder()
+                .id(booking.getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .item(booking.getItem())
+                .booker(booking.getBooker())
+                .status(booking.getStatus())
+                .version(booking.getVersion())
+                .build();
+    }
 }
@@ -1,12 +0,0 @@
-package ru.practicum.shareit.booking.dto;
-
-public enum BookingState {
-    ALL,
-    CURRENT,
-    PAST,
-    FUTURE,
-    WAITING,
-    REJECTED,
-    APPROVED,
-    CANCELED
-}
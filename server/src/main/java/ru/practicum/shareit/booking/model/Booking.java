@@ -19,19 +19,22 @@ import java.time.LocalDateTime;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     int id;
     @Column(name = "start_date", nullable = false)
     LocalDateTime start;
     @Column(name = "end_date", nullable = false)
     LocalDateTime end;
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", referencedColumnName = "id", nullable = false)
     Item item;
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id", referencedColumnName = "id")
     User booker;
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     BookingStatus status;
+    @Version
+    int version;
 }
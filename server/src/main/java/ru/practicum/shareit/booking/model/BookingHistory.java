@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Immutable;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование из archive.bookings_history: живые бронирования вместе с отсоединенными в архив партициями
+ * (профиль partitioned), без него это просто bookings. Только для чтения: изменяется Booking.
+ */
+@Entity
+@Immutable
+@Table(name = "bookings_history", schema = "archive")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookingHistory {
+    @Id
+    int id;
+    @Column(name = "start_date", nullable = false)
+    LocalDateTime start;
+    @Column(name = "end_date", nullable = false)
+    LocalDateTime end;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", referencedColumnName = "id", nullable = false)
+    Item item;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id", referencedColumnName = "id")
+    User booker;
+    @Enumerated(EnumType.STRING)
+    BookingStatus status;
+    int version;
+}
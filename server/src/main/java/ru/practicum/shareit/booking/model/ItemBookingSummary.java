@@ -0,0 +1,37 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Последнее и следующее бронирование вещи. Сводка верна до validUntil (начала следующего
+ * бронирования), после чего ее нужно пересчитать; null означает, что сводка не устаревает.
+ * Бронирования читаются из истории: последнее могло уйти в архивную партицию.
+ */
+@Entity
+@Table(name = "item_booking_summary", schema = "public")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemBookingSummary {
+    @Id
+    @Column(name = "item_id")
+    int itemId;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id", referencedColumnName = "id")
+    BookingHistory lastBooking;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id", referencedColumnName = "id")
+    BookingHistory nextBooking;
+    @Column(name = "valid_until")
+    LocalDateTime validUntil;
+
+    public boolean isStale(LocalDateTime now) {
+        return validUntil != null && !validUntil.isAfter(now);
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingIntervalTree;
+import ru.practicum.shareit.booking.storage.BookingItemIntervalView;
+import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сохраняет бронирование, не допуская пересечения с неотклоненными бронированиями вещи
+ * на уровне базы. В режиме CONSTRAINT это делает исключающее ограничение ex_bookings_item_period
+ * (Postgres), в режиме LOCK - проверка пересечений под блокировкой строки вещи.
+ * Строка вещи блокируется в обоих режимах до записи бронирования: сводку вещи пересчитывают под той же
+ * блокировкой, и все записи бронирований берут блокировки в одном порядке.
+ */
+@Component
+public class BookingOverlapGuard {
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private final BookingStorageDb bookingStorage;
+    private final ItemStorageDb itemStorage;
+    private final BookingProperties bookingProperties;
+
+    @Autowired
+    public BookingOverlapGuard(BookingStorageDb bookingStorage, ItemStorageDb itemStorage, BookingProperties bookingProperties) {
+        this.bookingStorage = bookingStorage;
+        this.itemStorage = itemStorage;
+        this.bookingProperties = bookingProperties;
+    }
+
+    @Transactional
+    public Booking save(Booking booking) {
+        int itemId = booking.getItem().getId();
+        itemStorage.findByIdForUpdate(itemId).orElseThrow(() -> new NotFoundException("нет товара с id " + itemId));
+
+        if (bookingProperties.getOverlapGuard() == BookingProperties.OverlapGuard.LOCK) {
+            if (bookingStorage.existsOverlapping(itemId, booking.getId(), booking.getStart(), booking.getEnd(), BookingStatus.REJECTED)) {
+                throw overlap(itemId);
+            }
+            return bookingStorage.save(booking);
+        }
+
+        try {
+            return bookingStorage.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (isExclusionViolation(e)) {
+                throw overlap(itemId);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Блокирует строки вещей пакета в порядке id, чтобы пакеты с общими вещами не взаимоблокировались.
+     */
+    @Transactional
+    public Map<Integer, Item> lockItems(Collection<Integer> itemIds) {
+        return itemStorage.findAllByIdInForUpdate(itemIds).stream().collect(Collectors.toMap(Item::getId, Function.identity()));
+    }
+
+    /**
+     * Ключи бронирований пакета, пересекающихся с сохраненными или с более ранними бронированиями пакета.
+     * Проверка идет одним запросом под блокировкой из lockItems в обоих режимах: блокировка строк вещей
+     * дожидается вставок, уже проверивших внешний ключ, поэтому в режиме CONSTRAINT пересечение
+     * не доходит до flush и не проваливает весь пакет.
+     */
+    @Transactional
+    public Set<Integer> findOverlaps(Map<Integer, Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return Set.of();
+        }
+        Set<Integer> itemIds = bookings.values().stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet());
+        LocalDateTime from = bookings.values().stream().map(Booking::getStart).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = bookings.values().stream().map(Booking::getEnd).max(Comparator.naturalOrder()).orElseThrow();
+
+        Map<Integer, BookingIntervalTree> trees = new HashMap<>();
+        for (BookingItemIntervalView interval : bookingStorage.findIntervalsByItemIdInAndStatusNot(itemIds, BookingStatus.REJECTED, from, to)) {
+            trees.computeIfAbsent(interval.getItemId(), id -> new BookingIntervalTree()).insert(interval.getId(), interval.getStart(), interval.getEnd());
+        }
+
+        Set<Integer> overlaps = new HashSet<>();
+        for (Map.Entry<Integer, Booking> entry : bookings.entrySet()) {
+            Booking booking = entry.getValue();
+            BookingIntervalTree tree = trees.computeIfAbsent(booking.getItem().getId(), id -> new BookingIntervalTree());
+            if (tree.overlaps(booking.getStart(), booking.getEnd())) {
+                overlaps.add(entry.getKey());
+            } else {
+                // у бронирований пакета еще нет id, в дереве их отличает отрицательный ключ
+                tree.insert(-entry.getKey() - 1, booking.getStart(), booking.getEnd());
+            }
+        }
+        return overlaps;
+    }
+
+    @Transactional
+    public void flush() {
+        try {
+            bookingStorage.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isExclusionViolation(e)) {
+                throw new BookingOverlapException("бронирования пакета пересекаются с сохраненными бронированиями");
+            }
+            throw e;
+        }
+    }
+
+    private static BookingOverlapException overlap(int itemId) {
+        return new BookingOverlapException("товар с id " + itemId + " уже забронирован на пересекающийся период");
+    }
+
+    private static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,201 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Помесячные партиции bookings по start_date (профиль partitioned, только PostgreSQL).
+ * Создает партиции на monthsAhead месяцев вперед и на прошедшие месяцы из bookings_default, забирая их строки,
+ * а партиции старше retentionMonths, все бронирования которых закончились до окна хранения, отсоединяет в схему archive.
+ * Архив читается через archive.bookings_history.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "shareit.booking.partitions", name = "enabled", havingValue = "true")
+public class BookingPartitionMaintainer {
+    private static final String DEFAULT_PARTITION = "bookings_default";
+    private static final String ARCHIVE_SCHEMA = "archive";
+    private static final String COLUMNS = "id, start_date, end_date, item_id, booker_id, status, version";
+    /**
+     * Ключ advisory-блокировки обслуживания: экземпляры сервера не создают и не переносят партиции одновременно.
+     */
+    private static final long MAINTENANCE_LOCK = 0x73686172656974L;
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'bookings_p'yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingProperties.Partitions properties;
+
+    @Autowired
+    public BookingPartitionMaintainer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, BookingProperties bookingProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = bookingProperties.getPartitions();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.partitions.maintenance-delay:3600000}")
+    public void maintain() {
+        YearMonth now = YearMonth.now();
+        List<String> attached = new ArrayList<>(jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'public.bookings'::regclass", String.class));
+        List<YearMonth> defaultMonths = jdbcTemplate.queryForList("SELECT DISTINCT to_char(start_date, 'YYYY-MM') FROM " + DEFAULT_PARTITION, String.class)
+                .stream()
+                .map(YearMonth::parse)
+                .collect(Collectors.toList());
+
+        for (YearMonth month : monthsToCreate(now, defaultMonths, attached)) {
+            Boolean created = transactionTemplate.execute(status -> createPartition(month));
+            if (Boolean.TRUE.equals(created)) {
+                attached.add(partitionName(month));
+                log.info("Создана партиция {}", partitionName(month));
+            }
+        }
+        LocalDateTime cutoff = retentionStart(now);
+        for (String partition : partitionsToArchive(now, attached, this::lastEnd)) {
+            Boolean archived = transactionTemplate.execute(status -> archivePartition(partition, cutoff));
+            if (Boolean.TRUE.equals(archived)) {
+                log.info("Партиция {} перенесена в схему {}", partition, ARCHIVE_SCHEMA);
+            }
+        }
+    }
+
+    /**
+     * Партиции на monthsAhead месяцев вперед и на каждый прошедший месяц, чьи строки лежат в bookings_default,
+     * например история, перенесенная миграцией. Устаревшие из них тот же запуск сразу отправит в архив.
+     */
+    List<YearMonth> monthsToCreate(YearMonth now, Collection<YearMonth> defaultMonths, Collection<String> attached) {
+        YearMonth last = now.plusMonths(properties.getMonthsAhead());
+        Set<YearMonth> months = new TreeSet<>();
+        for (YearMonth month = now; !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        defaultMonths.stream().filter(month -> month.isBefore(now)).forEach(months::add);
+
+        return months.stream()
+                .filter(month -> !attached.contains(partitionName(month)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Партиция делится по началу бронирования, поэтому долгое бронирование держит ее в bookings,
+     * пока не закончится раньше окна хранения. lastEnd возвращает null для пустой партиции.
+     */
+    List<String> partitionsToArchive(YearMonth now, Collection<String> attached, Function<String, LocalDateTime> lastEnd) {
+        YearMonth oldestKept = now.minusMonths(properties.getRetentionMonths());
+        LocalDateTime cutoff = retentionStart(now);
+        return attached.stream()
+                .filter(partition -> partitionMonth(partition).filter(month -> month.isBefore(oldestKept)).isPresent())
+                .filter(partition -> isFinished(lastEnd.apply(partition), cutoff))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private LocalDateTime retentionStart(YearMonth now) {
+        return now.minusMonths(properties.getRetentionMonths()).atDay(1).atStartOfDay();
+    }
+
+    private static boolean isFinished(LocalDateTime lastEnd, LocalDateTime cutoff) {
+        return lastEnd == null || lastEnd.isBefore(cutoff);
+    }
+
+    /**
+     * Партицию, которую уже перенес другой экземпляр, считаем незаконченной: ее пропускаем.
+     */
+    private LocalDateTime lastEnd(String partition) {
+        if (!exists(partition)) {
+            return LocalDateTime.MAX;
+        }
+        return jdbcTemplate.queryForObject("SELECT MAX(end_date) FROM " + partition, LocalDateTime.class);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_NAME.format(month);
+    }
+
+    static Optional<YearMonth> partitionMonth(String partition) {
+        try {
+            return Optional.of(YearMonth.parse(partition, PARTITION_NAME));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Строки месяца, попавшие в партицию по умолчанию, переносятся в новую партицию до ATTACH:
+     * иначе PostgreSQL откажет, найдя их в bookings_default. Блокировка bookings_default не дает
+     * параллельным записям добавить или изменить строки месяца между переносом и ATTACH,
+     * а перенос одним оператором DELETE ... RETURNING не теряет строк.
+     */
+    private boolean createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        if (!tryLockMaintenance() || exists(partition)) {
+            return false;
+        }
+        jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN SHARE ROW EXCLUSIVE MODE");
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE bookings INCLUDING DEFAULTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE start_date >= ? AND start_date < ? RETURNING " + COLUMNS + ") " +
+                "INSERT INTO " + partition + " (" + COLUMNS + ") SELECT " + COLUMNS + " FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + partition + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+
+        return true;
+    }
+
+    /**
+     * Окончание бронирований перепроверяется под блокировкой партиции: между выбором и переносом
+     * бронирование могли продлить. Сводки не трогаются, последние бронирования они читают через историю.
+     */
+    private boolean archivePartition(String partition, LocalDateTime cutoff) {
+        if (!tryLockMaintenance() || !exists(partition)) {
+            return false;
+        }
+        jdbcTemplate.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+        if (!isFinished(lastEnd(partition), cutoff)) {
+            return false;
+        }
+        jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + partition);
+        jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + ARCHIVE_SCHEMA);
+
+        List<String> archived = jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables " +
+                "WHERE table_schema = ? AND table_name LIKE 'bookings\\_p%' ORDER BY table_name", String.class, ARCHIVE_SCHEMA);
+        String history = archived.stream()
+                .map(table -> " UNION ALL SELECT " + COLUMNS + " FROM " + ARCHIVE_SCHEMA + "." + table)
+                .collect(Collectors.joining());
+        jdbcTemplate.execute("CREATE OR REPLACE VIEW " + ARCHIVE_SCHEMA + ".bookings_history AS SELECT " + COLUMNS + " FROM public.bookings" + history);
+
+        return true;
+    }
+
+    /**
+     * Блокировка держится до конца транзакции. Занята — другой экземпляр уже обслуживает партиции, шаг пропускается.
+     */
+    private boolean tryLockMaintenance() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK));
+    }
+
+    private boolean exists(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, "public." + partition));
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "shareit.booking")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookingProperties {
+    OverlapGuard overlapGuard = OverlapGuard.LOCK;
+    long summaryRefreshDelay = 60000;
+    Partitions partitions = new Partitions();
+
+    public enum OverlapGuard {
+        CONSTRAINT,
+        LOCK
+    }
+
+    /**
+     * Помесячные партиции bookings по start_date, только PostgreSQL с профилем partitioned.
+     */
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Partitions {
+        boolean enabled;
+        int monthsAhead = 3;
+        int retentionMonths = 12;
+        long maintenanceDelay = 3600000;
+    }
+}
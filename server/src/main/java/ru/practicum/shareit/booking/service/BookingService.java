@@ -5,33 +5,53 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingHistoryStorageDb;
+import ru.practicum.shareit.booking.storage.BookingIntervalView;
 import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.booking.storage.BookingView;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.pagination.Pagination;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService implements BookingServiceInterface {
 
     private final BookingStorageDb bookingStorage;
+    private final BookingHistoryStorageDb historyStorage;
     private final ItemService itemService;
     private final UserService userService;
+    private final BookingOverlapGuard overlapGuard;
+    private final InvalidationFeed invalidationFeed;
+    private final ItemBookingSummaryService summaryService;
 
     @Autowired
-    public BookingService(BookingStorageDb bookingStorage, ItemService itemService, UserService userService) {
+    public BookingService(BookingStorageDb bookingStorage, BookingHistoryStorageDb historyStorage, ItemService itemService, UserService userService, BookingOverlapGuard overlapGuard, InvalidationFeed invalidationFeed, ItemBookingSummaryService summaryService) {
         this.bookingStorage = bookingStorage;
+        this.historyStorage = historyStorage;
         this.itemService = itemService;
         this.userService = userService;
+        this.overlapGuard = overlapGuard;
+        this.invalidationFeed = invalidationFeed;
+        this.summaryService = summaryService;
     }
 
     @Override
@@ -41,28 +61,82 @@ public class BookingService implements BookingServiceInterface {
             throw new ValidationException("период бронирования не валидный");
         }
         Item itemToBook = itemService.getItemById(newBooking.getItemId());
-        if (itemToBook.getOwner().getId() == userId) {
-            throw new BookerIsOwnerException("пользователь с id " + userId + " является владельцем товара с id " + itemToBook.getId());
+        checkBookable(itemToBook, userId);
+
+        Booking booking = toNewBooking(newBooking, itemToBook, userService.getUserById(userId));
+        invalidationFeed.publish(InvalidationFeed.itemTag(itemToBook.getId()));
+
+        Booking createdBooking = overlapGuard.save(booking);
+        summaryService.refresh(itemToBook);
+
+        return createdBooking;
+    }
+
+    /**
+     * Создает бронирования пакета в одной транзакции. Строки вещей блокируются один раз на пакет. Пересечения проверяются до вставки в обоих режимах защиты, поэтому
+     * ошибки отдельных бронирований возвращаются в результатах, а вставки уходят в базу одним
+     * JDBC-пакетом при flush (идентификаторы выдает последовательность bookings_seq без обращения к таблице).
+     */
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> createBatch(int userId, List<BookingDtoShort> newBookings) {
+        User booker = userService.getUserById(userId);
+        Map<Integer, Item> items = overlapGuard.lockItems(newBookings.stream().map(BookingDtoShort::getItemId).collect(Collectors.toSet()));
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        Map<Integer, Booking> prepared = new LinkedHashMap<>();
+
+        for (int i = 0; i < newBookings.size(); i++) {
+            BookingDtoShort newBooking = newBookings.get(i);
+            results.add(BookingBatchResultDto.builder().index(i).build());
+            try {
+                if (!isValidPeriod(newBooking)) {
+                    throw new ValidationException("период бронирования не валидный");
+                }
+                Item itemToBook = items.get(newBooking.getItemId());
+                if (itemToBook == null) {
+                    throw new NotFoundException("нет товара с id " + newBooking.getItemId());
+                }
+                checkBookable(itemToBook, userId);
+
+                prepared.put(i, toNewBooking(newBooking, itemToBook, booker));
+            } catch (ValidationException | NotFoundException | BookerIsOwnerException | UnavailableItemException e) {
+                results.get(i).setError(e.getMessage());
+            }
         }
-        if (!itemToBook.getAvailable()) {
-            throw new UnavailableItemException("не доступен товар с id " + itemToBook.getId());
+        for (int i : overlapGuard.findOverlaps(prepared)) {
+            Booking booking = prepared.remove(i);
+            results.get(i).setError("товар с id " + booking.getItem().getId() + " уже забронирован на пересекающийся период");
         }
 
-        Booking booking = new Booking();
-        booking.setStart(newBooking.getStart());
-        booking.setEnd(newBooking.getEnd());
-        booking.setItem(itemToBook);
-        booking.setBooker(userService.getUserById(userId));
-        booking.setStatus(BookingStatus.WAITING);
+        Map<Integer, Item> bookedItems = new HashMap<>();
+        for (Map.Entry<Integer, Booking> entry : prepared.entrySet()) {
+            Booking createdBooking = bookingStorage.save(entry.getValue());
+            results.get(entry.getKey()).setBooking(BookingMapper.toBookingDto(createdBooking));
+            bookedItems.put(createdBooking.getItem().getId(), createdBooking.getItem());
+        }
+        if (bookedItems.isEmpty()) {
+            return results;
+        }
 
-        return bookingStorage.save(booking);
+        overlapGuard.flush();
+        summaryService.refreshLocked(bookedItems.values());
+        for (int itemId : bookedItems.keySet()) {
+            invalidationFeed.publish(InvalidationFeed.itemTag(itemId));
+        }
+
+        return results;
     }
 
+    /**
+     * Решение владельца зависит от прочитанного статуса, поэтому конфликт версий здесь не повторяется:
+     * повтор применил бы решение к статусу, которого владелец не видел. Конфликт отдается как 409.
+     */
     @Override
     @Transactional
     public Booking approve(int bookingId, int userId, boolean isApproved) {
         User owner = userService.getUserById(userId);
-        Booking bookingToApprove = getBookingById(bookingId, owner.getId());
+        Booking bookingToApprove = bookingStorage.findById(bookingId).orElseThrow(() -> new NotFoundException("нет букинга с id " + bookingId));
+        checkAccess(bookingToApprove, owner.getId());
 
         if (bookingToApprove.getItem().getOwner().getId() != owner.getId()) {
             throw new CannotApproveException("нет возможности подтвердить бюронирование " + bookingToApprove.getItem().getId());
@@ -71,30 +145,54 @@ public class BookingService implements BookingServiceInterface {
                 (bookingToApprove.getStatus().equals(BookingStatus.REJECTED) && !isApproved)) {
             throw new SameApproveStatusException("одинаковый статус " + bookingToApprove.getStatus());
         }
+        invalidationFeed.publish(InvalidationFeed.itemTag(bookingToApprove.getItem().getId()));
 
+        if (!isApproved || bookingToApprove.getStatus().equals(BookingStatus.REJECTED)) {
+            // как create и createBatch, эти ветки блокируют строку вещи до изменения бронирования:
+            // встречный порядок взаимоблокировал бы их с созданием бронирований
+            overlapGuard.lockItems(List.of(bookingToApprove.getItem().getId()));
+        }
         if (!isApproved) {
             bookingToApprove.setStatus(BookingStatus.REJECTED);
-        } else {
+            Booking rejectedBooking = bookingStorage.save(bookingToApprove);
+            summaryService.refresh(rejectedBooking.getItem());
+
+            return rejectedBooking;
+        }
+        if (bookingToApprove.getStatus().equals(BookingStatus.REJECTED)) {
             bookingToApprove.setStatus(BookingStatus.APPROVED);
+            Booking approvedBooking = overlapGuard.save(bookingToApprove);
+            summaryService.refresh(approvedBooking.getItem());
+
+            return approvedBooking;
         }
 
+        bookingToApprove.setStatus(BookingStatus.APPROVED);
         return bookingStorage.save(bookingToApprove);
     }
 
+    /**
+     * Бронирование, ушедшее в архивную партицию, читается из истории.
+     */
     @Override
     public Booking getBookingById(int bookingId, int userId) {
-        Booking booking = bookingStorage.findById(bookingId).orElseThrow(() -> new NotFoundException("нет букинга с id " + bookingId));
+        Booking booking = bookingStorage.findById(bookingId)
+                .or(() -> historyStorage.findById(bookingId).map(BookingMapper::toBooking))
+                .orElseThrow(() -> new NotFoundException("нет букинга с id " + bookingId));
+        checkAccess(booking, userId);
+
+        return booking;
+    }
 
+    private static void checkAccess(Booking booking, int userId) {
         if (booking.getBooker().getId() != userId && booking.getItem().getOwner().getId() != userId) {
             throw new NoAccessToBookException("пользователь с id " + userId + " не имеет доступа к " + booking.getId());
         }
-
-        return booking;
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Collection<Booking> getUserBookings(int userId, BookingState state, int from, int size) {
+    public Collection<BookingView> getUserBookings(int userId, BookingState state, int from, int size) {
         if (!Pagination.isValid(from, size)) {
             throw new ValidationException("некорректная пагинация");
         }
@@ -121,29 +219,196 @@ public class BookingService implements BookingServiceInterface {
 
     @Override
     @Transactional(readOnly = true)
-    public Collection<Booking> getOwnedItemsBookings(int ownerId, BookingState state, int from, int size) {
+    public Collection<BookingView> getOwnedItemsBookings(int ownerId, BookingState state, int from, int size) {
         if (!Pagination.isValid(from, size)) {
             throw new ValidationException("некорректная пагинация");
         }
 
         int newFrom = Pagination.adjustFrom(from, size);
         Pageable pageable = PageRequest.of(newFrom, size);
-        Collection<Item> items = itemService.getUserItems(ownerId);
+        User owner = userService.getUserById(ownerId);
 
         if (state.equals(BookingState.ALL)) {
-            return bookingStorage.findBookingsByItemInOrderByStartDesc(items, pageable);
+            return bookingStorage.findBookingsByOwnerOrderByStartDesc(owner, pageable);
         }
         if (state.equals(BookingState.FUTURE)) {
-            return bookingStorage.findBookingsByItemInAndStartAfterOrderByStartDesc(items, LocalDateTime.now(), pageable);
+            return bookingStorage.findBookingsByOwnerAndStartAfterOrderByStartDesc(owner, LocalDateTime.now(), pageable);
         }
         if (state.equals(BookingState.PAST)) {
-            return bookingStorage.findBookingsByItemInAndEndBeforeOrderByStartDesc(items, LocalDateTime.now(), pageable);
+            return bookingStorage.findBookingsByOwnerAndEndBeforeOrderByStartDesc(owner, LocalDateTime.now(), pageable);
         }
         if (state.equals(BookingState.CURRENT)) {
-            return bookingStorage.findBookingsByItemInAndStartBeforeAndEndAfterOrderByStartDesc(items, LocalDateTime.now(), LocalDateTime.now(), pageable);
+            return bookingStorage.findBookingsByOwnerAndStartBeforeAndEndAfterOrderByStartDesc(owner, LocalDateTime.now(), LocalDateTime.now(), pageable);
+        }
+
+        return bookingStorage.findBookingsByOwnerAndStatusOrderByStartDesc(owner, BookingStatus.valueOf(state.toString()), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingView> getUserBookings(int userId, BookingState state, String cursor, int size) {
+        if (!Pagination.isValid(0, size)) {
+            throw new ValidationException("некорректная пагинация");
+        }
+
+        Cursor after = Cursor.isFirstPage(cursor) ? Cursor.of(Cursor.MAX_TIME, Integer.MAX_VALUE) : Cursor.decode(cursor);
+        LocalDateTime cursorStart = after.getTime();
+        Pageable pageable = PageRequest.of(0, size);
+        LocalDateTime now = LocalDateTime.now();
+        User user = userService.getUserById(userId);
+        List<BookingView> bookings;
+
+        switch (state) {
+            case ALL:
+                bookings = bookingStorage.findBookingsByBookerBeforeCursor(user, cursorStart, after.getId(), pageable);
+                break;
+            case FUTURE:
+                bookings = bookingStorage.findFutureBookingsByBookerBeforeCursor(user, now, cursorStart, after.getId(), pageable);
+                break;
+            case PAST:
+                bookings = bookingStorage.findPastBookingsByBookerBeforeCursor(user, now, cursorStart, after.getId(), pageable);
+                break;
+            case CURRENT:
+                bookings = bookingStorage.findCurrentBookingsByBookerBeforeCursor(user, now, cursorStart, after.getId(), pageable);
+                break;
+            default:
+                bookings = bookingStorage.findBookingsByBookerAndStatusBeforeCursor(user, BookingStatus.valueOf(state.toString()), cursorStart, after.getId(), pageable);
+        }
+
+        return CursorPage.of(bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingView> getOwnedItemsBookings(int ownerId, BookingState state, String cursor, int size) {
+        if (!Pagination.isValid(0, size)) {
+            throw new ValidationException("некорректная пагинация");
+        }
+
+        Cursor after = Cursor.isFirstPage(cursor) ? Cursor.of(Cursor.MAX_TIME, Integer.MAX_VALUE) : Cursor.decode(cursor);
+        LocalDateTime cursorStart = after.getTime();
+        Pageable pageable = PageRequest.of(0, size);
+        LocalDateTime now = LocalDateTime.now();
+        User owner = userService.getUserById(ownerId);
+        List<BookingView> bookings;
+
+        switch (state) {
+            case ALL:
+                bookings = bookingStorage.findBookingsByOwnerBeforeCursor(owner, cursorStart, after.getId(), pageable);
+                break;
+            case FUTURE:
+                bookings = bookingStorage.findFutureBookingsByOwnerBeforeCursor(owner, now, cursorStart, after.getId(), pageable);
+                break;
+            case PAST:
+                bookings = bookingStorage.findPastBookingsByOwnerBeforeCursor(owner, now, cursorStart, after.getId(), pageable);
+                break;
+            case CURRENT:
+                bookings = bookingStorage.findCurrentBookingsByOwnerBeforeCursor(owner, now, cursorStart, after.getId(), pageable);
+                break;
+            default:
+                bookings = bookingStorage.findBookingsByOwnerAndStatusBeforeCursor(owner, BookingStatus.valueOf(state.toString()), cursorStart, after.getId(), pageable);
         }
 
-        return bookingStorage.findBookingsByItemInAndStatusOrderByStartDesc(items, BookingStatus.valueOf(state.toString()), pageable);
+        return CursorPage.of(bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
+    }
+
+    /**
+     * Завершенные бронирования пользователя вместе с архивом. Архив читается только постранично по курсору.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingView> getUserBookingsWithArchive(int userId, BookingState state, String cursor, int size) {
+        Cursor after = validateArchiveRequest(state, cursor, size);
+        User user = userService.getUserById(userId);
+        List<BookingView> bookings = bookingStorage.findPastBookingsByBookerWithArchiveBeforeCursor(user.getId(), LocalDateTime.now(), after.getTime(), after.getId(), PageRequest.of(0, size));
+
+        return CursorPage.of(bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingView> getOwnedItemsBookingsWithArchive(int ownerId, BookingState state, String cursor, int size) {
+        Cursor after = validateArchiveRequest(state, cursor, size);
+        User owner = userService.getUserById(ownerId);
+        List<BookingView> bookings = bookingStorage.findPastBookingsByOwnerWithArchiveBeforeCursor(owner.getId(), LocalDateTime.now(), after.getTime(), after.getId(), PageRequest.of(0, size));
+
+        return CursorPage.of(bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
+    }
+
+    private Cursor validateArchiveRequest(BookingState state, String cursor, int size) {
+        if (state != BookingState.PAST) {
+            throw new ValidationException("архив доступен только для state=PAST");
+        }
+        if (!Pagination.isValid(0, size)) {
+            throw new ValidationException("некорректная пагинация");
+        }
+        return Cursor.isFirstPage(cursor) ? Cursor.of(Cursor.MAX_TIME, Integer.MAX_VALUE) : Cursor.decode(cursor);
+    }
+
+    /**
+     * Отдает всю историю бронирований пользователя построчно, не собирая ее в память.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUserBookings(int userId, Consumer<BookingView> consumer) {
+        User user = userService.getUserById(userId);
+        try (Stream<BookingView> bookings = bookingStorage.streamBookingsByBooker(user)) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOwnedItemsBookings(int ownerId, Consumer<BookingView> consumer) {
+        User owner = userService.getUserById(ownerId);
+        try (Stream<BookingView> bookings = bookingStorage.streamBookingsByOwner(owner)) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TimeWindowDto> getItemAvailability(int itemId, int userId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("период не валидный");
+        }
+        userService.getUserById(userId);
+        Item item = itemService.getItemById(itemId);
+
+        List<TimeWindowDto> windows = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (BookingIntervalView interval : bookingStorage.findIntervalsByItemIdAndStatusNot(item.getId(), BookingStatus.REJECTED, from, to)) {
+            if (interval.getStart().isAfter(freeFrom)) {
+                windows.add(new TimeWindowDto(freeFrom, interval.getStart()));
+            }
+            if (interval.getEnd().isAfter(freeFrom)) {
+                freeFrom = interval.getEnd();
+            }
+        }
+        if (freeFrom.isBefore(to)) {
+            windows.add(new TimeWindowDto(freeFrom, to));
+        }
+
+        return windows;
+    }
+
+    private void checkBookable(Item item, int userId) {
+        if (item.getOwner().getId() == userId) {
+            throw new BookerIsOwnerException("пользователь с id " + userId + " является владельцем товара с id " + item.getId());
+        }
+        if (!item.getAvailable()) {
+            throw new UnavailableItemException("не доступен товар с id " + item.getId());
+        }
+    }
+
+    private Booking toNewBooking(BookingDtoShort newBooking, Item item, User booker) {
+        Booking booking = new Booking();
+        booking.setStart(newBooking.getStart());
+        booking.setEnd(newBooking.getEnd());
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.WAITING);
+        return booking;
     }
 
     private boolean isValidPeriod(BookingDtoShort bookingDto) {
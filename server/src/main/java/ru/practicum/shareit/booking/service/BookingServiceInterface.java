@@ -1,19 +1,42 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.pagination.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingServiceInterface {
     Booking create(int userId, BookingDtoShort newBooking);
 
+    List<BookingBatchResultDto> createBatch(int userId, List<BookingDtoShort> newBookings);
+
     Booking approve(int bookingId, int userId, boolean isApproved);
 
     Booking getBookingById(int bookingId, int userId);
 
-    Collection<Booking> getUserBookings(int userId, BookingState state, int from, int size);
+    Collection<BookingView> getUserBookings(int userId, BookingState state, int from, int size);
+
+    Collection<BookingView> getOwnedItemsBookings(int ownerId, BookingState state, int from, int size);
+
+    CursorPage<BookingView> getUserBookings(int userId, BookingState state, String cursor, int size);
+
+    CursorPage<BookingView> getOwnedItemsBookings(int ownerId, BookingState state, String cursor, int size);
+
+    CursorPage<BookingView> getUserBookingsWithArchive(int userId, BookingState state, String cursor, int size);
+
+    CursorPage<BookingView> getOwnedItemsBookingsWithArchive(int ownerId, BookingState state, String cursor, int size);
+
+    void exportUserBookings(int userId, Consumer<BookingView> consumer);
+
+    void exportOwnedItemsBookings(int ownerId, Consumer<BookingView> consumer);
 
-    Collection<Booking> getOwnedItemsBookings(int ownerId, BookingState state, int from, int size);
+    List<TimeWindowDto> getItemAvailability(int itemId, int userId, LocalDateTime from, LocalDateTime to);
 }
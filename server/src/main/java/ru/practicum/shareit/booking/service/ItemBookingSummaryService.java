@@ -0,0 +1,119 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.BookingHistory;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+import ru.practicum.shareit.booking.storage.BookingHistoryStorageDb;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryStorageDb;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сводки последнего и следующего бронирования вещей.
+ * Запись бронирования пересчитывает сводку своей вещи под блокировкой строки вещи,
+ * планировщик пересчитывает устаревшие и недостающие сводки, а чтение досчитывает
+ * такие сводки на лету, не дожидаясь планировщика.
+ */
+@Service
+public class ItemBookingSummaryService {
+    private static final int REFRESH_BATCH = 500;
+
+    private final ItemBookingSummaryStorageDb summaryStorage;
+    private final BookingHistoryStorageDb bookingStorage;
+    private final ItemStorageDb itemStorage;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ItemBookingSummaryService(ItemBookingSummaryStorageDb summaryStorage, BookingHistoryStorageDb bookingStorage, ItemStorageDb itemStorage, PlatformTransactionManager transactionManager) {
+        this.summaryStorage = summaryStorage;
+        this.bookingStorage = bookingStorage;
+        this.itemStorage = itemStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional
+    public void initialize(Item item) {
+        summaryStorage.save(ItemBookingSummary.builder().itemId(item.getId()).build());
+    }
+
+    @Transactional
+    public void refresh(Item item) {
+        itemStorage.findByIdForUpdate(item.getId());
+        refreshLocked(List.of(item));
+    }
+
+    /**
+     * Пересчитывает сводки вещей, строки которых вызывающий уже заблокировал.
+     */
+    @Transactional
+    public void refreshLocked(Collection<Item> items) {
+        bookingStorage.flush();
+        summaryStorage.saveAll(compute(items).values());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Integer, ItemBookingSummary> getSummaries(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return new HashMap<>();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Integer, ItemBookingSummary> summaries = summaryStorage.findByItemIdIn(itemIds).stream()
+                .filter(summary -> !summary.isStale(now))
+                .collect(Collectors.toMap(ItemBookingSummary::getItemId, Function.identity()));
+
+        List<Item> outdated = items.stream().filter(item -> !summaries.containsKey(item.getId())).collect(Collectors.toList());
+        if (!outdated.isEmpty()) {
+            summaries.putAll(compute(outdated));
+        }
+        return summaries;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.summary-refresh-delay:60000}", initialDelayString = "${shareit.booking.summary-refresh-delay:60000}")
+    public void refreshOutdated() {
+        Integer refreshed;
+        do {
+            refreshed = transactionTemplate.execute(status -> refreshOutdatedBatch());
+        } while (refreshed != null && refreshed == REFRESH_BATCH);
+    }
+
+    private int refreshOutdatedBatch() {
+        List<Integer> itemIds = new ArrayList<>(summaryStorage.findStaleItemIds(LocalDateTime.now(), PageRequest.of(0, REFRESH_BATCH)));
+        if (itemIds.size() < REFRESH_BATCH) {
+            itemIds.addAll(summaryStorage.findItemIdsWithoutSummary(PageRequest.of(0, REFRESH_BATCH - itemIds.size())));
+        }
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+
+        refreshLocked(itemStorage.findAllByIdInForUpdate(itemIds));
+        return itemIds.size();
+    }
+
+    private Map<Integer, ItemBookingSummary> compute(Collection<Item> items) {
+        Map<Integer, ItemBookingSummary> summaries = new HashMap<>();
+        for (Item item : items) {
+            summaries.put(item.getId(), ItemBookingSummary.builder().itemId(item.getId()).build());
+        }
+        for (BookingHistory booking : bookingStorage.getItemsLastBookings(items)) {
+            summaries.get(booking.getItem().getId()).setLastBooking(booking);
+        }
+        for (BookingHistory booking : bookingStorage.getItemsNextBookings(items)) {
+            ItemBookingSummary summary = summaries.get(booking.getItem().getId());
+            summary.setNextBooking(booking);
+            summary.setValidUntil(booking.getStart());
+        }
+        return summaries;
+    }
+}
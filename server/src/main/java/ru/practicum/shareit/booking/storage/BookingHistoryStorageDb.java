@@ -0,0 +1,61 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.model.BookingHistory;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Чтения, которым нужны и архивные бронирования: получение по id, право на комментарий и последнее бронирование вещи.
+ */
+public interface BookingHistoryStorageDb extends JpaRepository<BookingHistory, Integer> {
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<BookingHistory> findById(Integer id);
+
+    @Query("SELECT COUNT(b) > 0 FROM BookingHistory b WHERE b.booker.id = :bookerId AND b.item.id = :itemId AND b.end < :now AND b.status = :status")
+    boolean existsFinished(@Param("bookerId") int bookerId, @Param("itemId") int itemId, @Param("now") LocalDateTime now, @Param("status") BookingStatus status);
+
+    @Query(value = "SELECT id, start_date, end_date, item_id, booker_id, status, version\n" +
+            "FROM (SELECT b.id,\n" +
+            "             b.start_date,\n" +
+            "             b.end_date,\n" +
+            "             b.booker_id,\n" +
+            "             b.item_id,\n" +
+            "             b.status,\n" +
+            "             b.version,\n" +
+            "             ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.end_date DESC ) AS rn\n" +
+            "      FROM archive.bookings_history b\n" +
+            "      WHERE b.item_id IN ?1\n" +
+            "        AND (b.end_date < CURRENT_TIMESTAMP OR (b.start_date < CURRENT_TIMESTAMP AND b.end_date > CURRENT_TIMESTAMP))\n" +
+            "        AND b.status != 'REJECTED') s\n" +
+            "WHERE s.rn = 1", nativeQuery = true)
+    List<BookingHistory> getItemsLastBookings(Collection<Item> items);
+
+    /**
+     * Будущие бронирования архивными быть не могут, поэтому запрос идет прямо в bookings.
+     */
+    @Query(value = "SELECT id, start_date, end_date, item_id, booker_id, status, version\n" +
+            "FROM (SELECT b.id,\n" +
+            "             b.start_date,\n" +
+            "             b.end_date,\n" +
+            "             b.booker_id,\n" +
+            "             b.item_id,\n" +
+            "             b.status,\n" +
+            "             b.version,\n" +
+            "             ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date) AS rn\n" +
+            "      FROM bookings b\n" +
+            "      WHERE b.item_id IN ?1\n" +
+            "        AND b.start_date > CURRENT_TIMESTAMP\n" +
+            "        AND b.status != 'REJECTED') s\n" +
+            "WHERE s.rn = 1", nativeQuery = true)
+    List<BookingHistory> getItemsNextBookings(Collection<Item> items);
+}
@@ -0,0 +1,190 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * АВЛ-дерево интервалов бронирования [start, end) одной вещи.
+ * Узлы упорядочены по (start, id) и хранят максимальный end своего поддерева,
+ * поэтому проверка пересечения выполняется за O(log n).
+ */
+public class BookingIntervalTree {
+    private Node root;
+    private int size;
+
+    public void insert(int id, LocalDateTime start, LocalDateTime end) {
+        root = insert(root, id, start, end);
+    }
+
+    public boolean remove(int id, LocalDateTime start) {
+        int sizeBefore = size;
+        root = remove(root, id, start);
+        return size < sizeBefore;
+    }
+
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        Node node = root;
+        while (node != null) {
+            if (node.start.isBefore(to) && node.end.isAfter(from)) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd.isAfter(from)) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    public List<Interval> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<Interval> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void collect(Node node, LocalDateTime from, LocalDateTime to, List<Interval> result) {
+        if (node == null || !node.maxEnd.isAfter(from)) {
+            return;
+        }
+        collect(node.left, from, to, result);
+        if (!node.start.isBefore(to)) {
+            return;
+        }
+        if (node.end.isAfter(from)) {
+            result.add(new Interval(node.id, node.start, node.end));
+        }
+        collect(node.right, from, to, result);
+    }
+
+    private Node insert(Node node, int id, LocalDateTime start, LocalDateTime end) {
+        if (node == null) {
+            size++;
+            return new Node(id, start, end);
+        }
+
+        int cmp = node.compareTo(id, start);
+        if (cmp == 0) {
+            node.end = end;
+        } else if (cmp > 0) {
+            node.left = insert(node.left, id, start, end);
+        } else {
+            node.right = insert(node.right, id, start, end);
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, int id, LocalDateTime start) {
+        if (node == null) {
+            return null;
+        }
+
+        int cmp = node.compareTo(id, start);
+        if (cmp > 0) {
+            node.left = remove(node.left, id, start);
+        } else if (cmp < 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            if (node.left == null || node.right == null) {
+                size--;
+                return node.left != null ? node.left : node.right;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.id = successor.id;
+            node.start = successor.start;
+            node.end = successor.end;
+            node.right = remove(node.right, successor.id, successor.start);
+        }
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        node.update();
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    @Value
+    public static class Interval {
+        int id;
+        LocalDateTime start;
+        LocalDateTime end;
+    }
+
+    private static class Node {
+        int id;
+        LocalDateTime start;
+        LocalDateTime end;
+        LocalDateTime maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(int id, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+
+        int compareTo(int otherId, LocalDateTime otherStart) {
+            int cmp = start.compareTo(otherStart);
+            return cmp != 0 ? cmp : Integer.compare(id, otherId);
+        }
+
+        void update() {
+            height = 1 + Math.max(BookingIntervalTree.height(left), BookingIntervalTree.height(right));
+            maxEnd = end;
+            if (left != null && left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+}
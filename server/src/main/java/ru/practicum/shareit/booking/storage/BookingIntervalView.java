@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.storage;
+
+import java.time.LocalDateTime;
+
+public interface BookingIntervalView {
+    int getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+}
@@ -0,0 +1,5 @@
+package ru.practicum.shareit.booking.storage;
+
+public interface BookingItemIntervalView extends BookingIntervalView {
+    int getItemId();
+}
@@ -1,70 +1,130 @@
 package ru.practicum.shareit.booking.storage;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface BookingStorageDb extends JpaRepository<Booking, Integer> {
-    List<Booking> findBookingsByBookerOrderByStartDesc(User user, Pageable pageable);
+    String VIEW = "SELECT b.id AS id, b.start AS start, b.end AS end, b.status AS status, " +
+            "i.id AS itemId, i.name AS itemName, u.id AS bookerId, u.name AS bookerName " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u ";
+    String HISTORY = "SELECT b.id AS \"id\", b.start_date AS \"start\", b.end_date AS \"end\", b.status AS \"status\", " +
+            "i.id AS \"itemId\", i.name AS \"itemName\", u.id AS \"bookerId\", u.name AS \"bookerName\" " +
+            "FROM archive.bookings_history b JOIN items i ON i.id = b.item_id JOIN users u ON u.id = b.booker_id ";
+    String EXPORT_FETCH_SIZE = "500";
+
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findById(Integer id);
+
+    @Query(VIEW + "WHERE b.booker = :user ORDER BY b.start DESC")
+    List<BookingView> findBookingsByBookerOrderByStartDesc(@Param("user") User user, Pageable pageable);
+
+    @Query(VIEW + "WHERE b.booker = :user AND b.status = :status ORDER BY b.start DESC")
+    List<BookingView> findBookingsByBookerAndStatusOrderByStartDesc(@Param("user") User user, @Param("status") BookingStatus state, Pageable pageable);
+
+    @Query(VIEW + "WHERE b.booker = :user AND b.start > :now ORDER BY b.start DESC")
+    List<BookingView> findBookingsByBookerAndStartAfterOrderByStartDesc(@Param("user") User user, @Param("now") LocalDateTime currentTime, Pageable pageable);
+
+    @Query(VIEW + "WHERE b.booker = :user AND b.end < :now ORDER BY b.start DESC")
+    List<BookingView> findBookingsByBookerAndEndBeforeOrderByStartDesc(@Param("user") User user, @Param("now") LocalDateTime currentTime, Pageable pageable);
+
+    @Query(VIEW + "WHERE b.booker = :user AND b.start < :now1 AND b.end > :now2 ORDER BY b.start DESC")
+    List<BookingView> findBookingsByBookerAndStartBeforeAndEndAfterOrderByStartDesc(@Param("user") User user, @Param("now1") LocalDateTime currentTime1, @Param("now2") LocalDateTime currentTime2, Pageable pageable);
+
+    @Query(VIEW + "WHERE i.owner = :owner ORDER BY b.start DESC")
+    List<BookingView> findBookingsByOwnerOrderByStartDesc(@Param("owner") User owner, Pageable pageable);
+
+    @Query(VIEW + "WHERE i.owner = :owner AND b.status = :status ORDER BY b.start DESC")
+    List<BookingView> findBookingsByOwnerAndStatusOrderByStartDesc(@Param("owner") User owner, @Param("status") BookingStatus state, Pageable pageable);
 
-    List<Booking> findBookingsByBookerAndStatusOrderByStartDesc(User user, BookingStatus state, Pageable pageable);
+    @Query(VIEW + "WHERE i.owner = :owner AND b.start > :now ORDER BY b.start DESC")
+    List<BookingView> findBookingsByOwnerAndStartAfterOrderByStartDesc(@Param("owner") User owner, @Param("now") LocalDateTime currentTime, Pageable pageable);
 
-    List<Booking> findBookingsByBookerAndStartAfterOrderByStartDesc(User user, LocalDateTime currentTime, Pageable pageable);
+    @Query(VIEW + "WHERE i.owner = :owner AND b.end < :now ORDER BY b.start DESC")
+    List<BookingView> findBookingsByOwnerAndEndBeforeOrderByStartDesc(@Param("owner") User owner, @Param("now") LocalDateTime currentTime, Pageable pageable);
 
-    List<Booking> findBookingsByBookerAndEndBeforeOrderByStartDesc(User user, LocalDateTime currentTime, Pageable pageable);
+    @Query(VIEW + "WHERE i.owner = :owner AND b.start < :now1 AND b.end > :now2 ORDER BY b.start DESC")
+    List<BookingView> findBookingsByOwnerAndStartBeforeAndEndAfterOrderByStartDesc(@Param("owner") User owner, @Param("now1") LocalDateTime currentTime1, @Param("now2") LocalDateTime currentTime2, Pageable pageable);
 
-    List<Booking> findBookingsByBookerAndStartBeforeAndEndAfterOrderByStartDesc(User user, LocalDateTime currentTime1, LocalDateTime currentTime2, Pageable pageable);
+    @Query(VIEW + "WHERE b.booker = :user AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findBookingsByBookerBeforeCursor(@Param("user") User user, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
 
-    List<Booking> findBookingsByItemInOrderByStartDesc(Collection<Item> items, Pageable pageable);
+    @Query(VIEW + "WHERE b.booker = :user AND b.status = :status AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findBookingsByBookerAndStatusBeforeCursor(@Param("user") User user, @Param("status") BookingStatus status, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
 
-    List<Booking> findBookingsByItemInAndStatusOrderByStartDesc(Collection<Item> items, BookingStatus state, Pageable pageable);
+    @Query(VIEW + "WHERE b.booker = :user AND b.start > :now AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findFutureBookingsByBookerBeforeCursor(@Param("user") User user, @Param("now") LocalDateTime now, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
 
-    List<Booking> findBookingsByItemInAndStartAfterOrderByStartDesc(Collection<Item> items, LocalDateTime currentTime, Pageable pageable);
+    @Query(VIEW + "WHERE b.booker = :user AND b.end < :now AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findPastBookingsByBookerBeforeCursor(@Param("user") User user, @Param("now") LocalDateTime now, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
 
-    List<Booking> findBookingsByItemInAndEndBeforeOrderByStartDesc(Collection<Item> items, LocalDateTime currentTime, Pageable pageable);
+    @Query(VIEW + "WHERE b.booker = :user AND b.start < :now AND b.end > :now AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findCurrentBookingsByBookerBeforeCursor(@Param("user") User user, @Param("now") LocalDateTime now, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
 
-    List<Booking> findBookingsByItemInAndStartBeforeAndEndAfterOrderByStartDesc(Collection<Item> items, LocalDateTime currentTime1, LocalDateTime currentTime2, Pageable pageable);
+    @Query(VIEW + "WHERE i.owner = :owner AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findBookingsByOwnerBeforeCursor(@Param("owner") User owner, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
 
-    @Query(value = "SELECT id,start_date,end_date,item_id,booker_id,status\n" +
-            "FROM (SELECT b.id,\n" +
-            "             b.start_date,\n" +
-            "             b.end_date,\n" +
-            "             b.booker_id,\n" +
-            "             b.item_id,\n" +
-            "             b.status,\n" +
-            "             ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.end_date DESC ) AS rn\n" +
-            "      FROM bookings b\n" +
-            "      WHERE b.item_id IN ?1\n" +
-            "        AND (b.end_date < CURRENT_TIMESTAMP OR (b.start_date < CURRENT_TIMESTAMP AND b.end_date > CURRENT_TIMESTAMP))\n" +
-            "        AND b.status != 'REJECTED') s\n" +
-            "WHERE s.rn = 1", nativeQuery = true)
-    List<Booking> getItemsLastBookings(Collection<Item> items);
+    @Query(VIEW + "WHERE i.owner = :owner AND b.status = :status AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findBookingsByOwnerAndStatusBeforeCursor(@Param("owner") User owner, @Param("status") BookingStatus status, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
 
-    @Query(value = "SELECT id, start_date, end_date, item_id, booker_id, status\n" +
-            "FROM (SELECT b.id,\n" +
-            "             b.start_date,\n" +
-            "             b.end_date,\n" +
-            "             b.booker_id,\n" +
-            "             b.item_id,\n" +
-            "             b.status,\n" +
-            "             ROW_NUMBER() OVER (PARTITION BY b.item_id ORDER BY b.start_date) AS rn\n" +
-            "      FROM bookings b\n" +
-            "      WHERE b.item_id IN ?1\n" +
-            "        AND b.start_date > CURRENT_TIMESTAMP\n" +
-            "        AND b.status != 'REJECTED') s\n" +
-            "WHERE s.rn = 1", nativeQuery = true)
-    List<Booking> getItemsNextBookings(Collection<Item> items);
+    @Query(VIEW + "WHERE i.owner = :owner AND b.start > :now AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findFutureBookingsByOwnerBeforeCursor(@Param("owner") User owner, @Param("now") LocalDateTime now, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
 
-    Collection<Booking> getBookingsByBookerAndItemAndEndIsBeforeAndStatus(User user, Item item, LocalDateTime currentTime, BookingStatus state);
+    @Query(VIEW + "WHERE i.owner = :owner AND b.end < :now AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findPastBookingsByOwnerBeforeCursor(@Param("owner") User owner, @Param("now") LocalDateTime now, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
+
+    @Query(VIEW + "WHERE i.owner = :owner AND b.start < :now AND b.end > :now AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ORDER BY b.start DESC, b.id DESC")
+    List<BookingView> findCurrentBookingsByOwnerBeforeCursor(@Param("owner") User owner, @Param("now") LocalDateTime now, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
+
+    /**
+     * Завершенные бронирования вместе с архивными партициями: archive.bookings_history объединяет bookings
+     * и отсоединенные партиции, без профиля partitioned это просто bookings.
+     */
+    @Query(value = HISTORY + "WHERE b.booker_id = :bookerId AND b.end_date < :now " +
+            "AND (b.start_date < :cursorStart OR (b.start_date = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findPastBookingsByBookerWithArchiveBeforeCursor(@Param("bookerId") int bookerId, @Param("now") LocalDateTime now, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
+
+    @Query(value = HISTORY + "WHERE i.owner_id = :ownerId AND b.end_date < :now " +
+            "AND (b.start_date < :cursorStart OR (b.start_date = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start_date DESC, b.id DESC", nativeQuery = true)
+    List<BookingView> findPastBookingsByOwnerWithArchiveBeforeCursor(@Param("ownerId") int ownerId, @Param("now") LocalDateTime now, @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") int cursorId, Pageable pageable);
+
+    @Query(VIEW + "WHERE b.booker = :user ORDER BY b.start DESC, b.id DESC")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<BookingView> streamBookingsByBooker(@Param("user") User user);
+
+    @Query(VIEW + "WHERE i.owner = :owner ORDER BY b.start DESC, b.id DESC")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<BookingView> streamBookingsByOwner(@Param("owner") User owner);
 
     List<Booking> findBookingsByItemInAndStatusNot(Collection<Item> items, BookingStatus status);
 
+    @Query("SELECT COUNT(b) > 0 FROM Booking b WHERE b.item.id = :itemId AND b.id <> :bookingId AND b.status <> :status AND b.start < :end AND b.end > :start")
+    boolean existsOverlapping(@Param("itemId") int itemId, @Param("bookingId") int bookingId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end, @Param("status") BookingStatus status);
+
+    @Query("SELECT b.id AS id, b.start AS start, b.end AS end FROM Booking b WHERE b.item.id = :itemId AND b.status <> :status AND b.start < :to AND b.end > :from ORDER BY b.start")
+    List<BookingIntervalView> findIntervalsByItemIdAndStatusNot(@Param("itemId") int itemId, @Param("status") BookingStatus status, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT b.id AS id, b.item.id AS itemId, b.start AS start, b.end AS end FROM Booking b WHERE b.item.id IN :itemIds AND b.status <> :status AND b.start < :to AND b.end > :from")
+    List<BookingItemIntervalView> findIntervalsByItemIdInAndStatusNot(@Param("itemIds") Collection<Integer> itemIds, @Param("status") BookingStatus status, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
 }
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Поля бронирования для списков: только то, что читает BookingMapper.toBookingDto.
+ */
+public interface BookingView {
+    int getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    BookingStatus getStatus();
+
+    int getItemId();
+
+    String getItemName();
+
+    int getBookerId();
+
+    String getBookerName();
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemBookingSummaryStorageDb extends JpaRepository<ItemBookingSummary, Integer> {
+    @EntityGraph(attributePaths = {"lastBooking", "nextBooking"})
+    List<ItemBookingSummary> findByItemIdIn(Collection<Integer> itemIds);
+
+    @Query("SELECT s.itemId FROM ItemBookingSummary s WHERE s.validUntil <= ?1 ORDER BY s.itemId")
+    List<Integer> findStaleItemIds(LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT i.id FROM Item i WHERE NOT EXISTS (SELECT s.itemId FROM ItemBookingSummary s WHERE s.itemId = i.id) ORDER BY i.id")
+    List<Integer> findItemIdsWithoutSummary(Pageable pageable);
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.cache;
+
+import lombok.AllArgsConstructor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * LRU-кэш на maxEntries записей, каждая живет не дольше ttl с момента загрузки: изменения,
+ * сделанные через другой экземпляр сервера, сюда не доходят. Недостающие ключи загружаются одним вызовом,
+ * а загрузка, во время которой кэш изменился, в него не попадает.
+ */
+public class ExpiringCache<K, V> {
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<K, Entry<V>> entries;
+    private long generation;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ExpiringCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    public ExpiringCache(int maxEntries, Duration ttl, LongSupplier nanoTime) {
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Ключи, которых нет в результате loader, получают absent.
+     */
+    public Map<K, V> getAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader, V absent) {
+        Map<K, V> result = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        long loadGeneration;
+        lock.lock();
+        try {
+            long now = nanoTime.getAsLong();
+            for (K key : keys) {
+                Entry<V> cached = entries.get(key);
+                if (cached != null && now - cached.expiresAt < 0) {
+                    result.put(key, cached.value);
+                } else {
+                    missing.add(key);
+                }
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long expiresAt = nanoTime.getAsLong() + ttlNanos;
+        Map<K, V> loaded = loader.apply(missing);
+        lock.lock();
+        try {
+            for (K key : missing) {
+                V value = loaded.getOrDefault(key, absent);
+                if (generation == loadGeneration) {
+                    entries.put(key, new Entry<>(value, expiresAt));
+                }
+                result.put(key, value);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Применяет изменение к закэшированному значению, сохраняя срок его жизни. Отсутствующий ключ не загружается.
+     */
+    public void update(K key, UnaryOperator<V> change) {
+        lock.lock();
+        try {
+            generation++;
+            Entry<V> cached = entries.get(key);
+            if (cached != null) {
+                entries.put(key, new Entry<>(change.apply(cached.value), cached.expiresAt));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            generation++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+    }
+}
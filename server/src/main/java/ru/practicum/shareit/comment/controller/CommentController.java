@@ -1,11 +1,14 @@
 package ru.practicum.shareit.comment.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentMapper;
 import ru.practicum.shareit.comment.service.CommentService;
 
+import java.util.Collection;
+
 @RestController
 @RequestMapping("/items")
 public class CommentController {
@@ -21,4 +24,9 @@ public class CommentController {
     public CommentDto addComment(@PathVariable int itemId, @RequestHeader(value = HEADER_PARAM) int userId, @RequestBody CommentDto commentDto) {
         return CommentMapper.toCommentDto(commentService.addComment(itemId, userId, CommentMapper.fromCommentDto(commentDto)));
     }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<Collection<CommentDto>> getItemComments(@PathVariable int itemId, @RequestParam(defaultValue = "20") int size, @RequestParam(required = false) String cursor) {
+        return commentService.getItemComments(itemId, cursor, size).map(CommentMapper::toCommentDto).toResponse();
+    }
 }
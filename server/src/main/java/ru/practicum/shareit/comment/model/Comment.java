@@ -21,12 +21,14 @@ public class Comment {
     int id;
     @Column(nullable = false)
     String text;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", referencedColumnName = "id", nullable = false)
     Item item;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id", referencedColumnName = "id", nullable = false)
     User author;
     @Column(nullable = false)
     LocalDateTime created;
+    @Version
+    int version;
 }
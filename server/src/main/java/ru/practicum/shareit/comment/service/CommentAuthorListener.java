@@ -0,0 +1,35 @@
+package ru.practicum.shareit.comment.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.comment.storage.CommentStorageDb;
+import ru.practicum.shareit.comment.storage.ItemCommentsCache;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
+import ru.practicum.shareit.user.service.UserRenamedEvent;
+
+/**
+ * Имя автора показывается в комментариях вещей, поэтому после переименования устаревают
+ * окна комментариев и ответы по вещам, которые он комментировал.
+ */
+@Component
+public class CommentAuthorListener {
+    private final CommentStorageDb commentStorage;
+    private final ItemCommentsCache commentsCache;
+    private final InvalidationFeed invalidationFeed;
+
+    @Autowired
+    public CommentAuthorListener(CommentStorageDb commentStorage, ItemCommentsCache commentsCache, InvalidationFeed invalidationFeed) {
+        this.commentStorage = commentStorage;
+        this.commentsCache = commentsCache;
+        this.invalidationFeed = invalidationFeed;
+    }
+
+    @EventListener
+    public void onUserRenamed(UserRenamedEvent event) {
+        commentsCache.onAuthorRenamed();
+        invalidationFeed.publish(commentStorage.findCommentedItemIds(event.getUserId()).stream()
+                .map(InvalidationFeed::itemTag)
+                .toArray(String[]::new));
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.comment.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "shareit.comments")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CommentProperties {
+    int recent = 10;
+    int cacheMaxEntries = 10000;
+    Duration cacheTtl = Duration.ofMinutes(1);
+}
@@ -1,35 +1,45 @@
 package ru.practicum.shareit.comment.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.booking.storage.BookingHistoryStorageDb;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.comment.storage.CommentStorageDb;
+import ru.practicum.shareit.comment.storage.ItemCommentsCache;
 import ru.practicum.shareit.exception.CannotCommentException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.pagination.Pagination;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
+import java.util.List;
 
 @Service
 public class CommentService implements CommentServiceInterface {
     private final UserService userService;
     private final CommentStorageDb commentStorage;
     private final ItemService itemService;
-    private final BookingStorageDb bookingStorage;
+    private final BookingHistoryStorageDb bookingStorage;
+    private final InvalidationFeed invalidationFeed;
+    private final ItemCommentsCache commentsCache;
 
     @Autowired
-    public CommentService(UserService userService, CommentStorageDb commentStorage, ItemService itemService, BookingStorageDb bookingStorage) {
+    public CommentService(UserService userService, CommentStorageDb commentStorage, ItemService itemService, BookingHistoryStorageDb bookingStorage, InvalidationFeed invalidationFeed, ItemCommentsCache commentsCache) {
         this.itemService = itemService;
         this.commentStorage = commentStorage;
         this.userService = userService;
         this.bookingStorage = bookingStorage;
+        this.invalidationFeed = invalidationFeed;
+        this.commentsCache = commentsCache;
     }
 
     @Override
@@ -37,16 +47,32 @@ public class CommentService implements CommentServiceInterface {
     public Comment addComment(int itemId, int userId, Comment newComment) {
         User user = userService.getUserById(userId);
         Item item = itemService.getItemById(itemId);
-        Collection<Booking> finishedBookings = bookingStorage.getBookingsByBookerAndItemAndEndIsBeforeAndStatus(user, item, LocalDateTime.now(), BookingStatus.APPROVED);
-
-        if (finishedBookings.size() == 0) {
+        if (!bookingStorage.existsFinished(user.getId(), item.getId(), LocalDateTime.now(), BookingStatus.APPROVED)) {
             throw new CannotCommentException("пользователь с id " + userId + " не может комментировать товар с id " + itemId + " ");
         }
 
         newComment.setItem(item);
         newComment.setAuthor(user);
         newComment.setCreated(LocalDateTime.now());
+        invalidationFeed.publish(InvalidationFeed.itemTag(itemId));
+
+        Comment savedComment = commentStorage.save(newComment);
+        commentsCache.onCommentAdded(savedComment);
+
+        return savedComment;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Comment> getItemComments(int itemId, String cursor, int size) {
+        if (!Pagination.isValid(0, size)) {
+            throw new ValidationException("некорректная пагинация");
+        }
+
+        Item item = itemService.getItemById(itemId);
+        Cursor after = Cursor.isFirstPage(cursor) ? Cursor.of(Cursor.MAX_TIME, Integer.MAX_VALUE) : Cursor.decode(cursor);
+        List<Comment> comments = commentStorage.findItemCommentsBeforeCursor(item.getId(), after.getTime(), after.getId(), PageRequest.of(0, size));
 
-        return commentStorage.save(newComment);
+        return CursorPage.of(comments, size, comment -> Cursor.of(comment.getCreated(), comment.getId()));
     }
 }
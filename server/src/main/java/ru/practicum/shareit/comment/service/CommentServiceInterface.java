@@ -1,7 +1,10 @@
 package ru.practicum.shareit.comment.service;
 
 import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.pagination.CursorPage;
 
 public interface CommentServiceInterface {
     Comment addComment(int itemId, int userId, Comment newComment);
+
+    CursorPage<Comment> getItemComments(int itemId, String cursor, int size);
 }
@@ -1,13 +1,33 @@
 package ru.practicum.shareit.comment.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.comment.model.Comment;
-import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 public interface CommentStorageDb extends JpaRepository<Comment, Integer> {
-    @Query(value = "SELECT * FROM comments WHERE item_id IN ?1", nativeQuery = true)
-    Collection<Comment> getCommentsByItems(Collection<Item> items);
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.item.id = :itemId AND (c.created < :cursorCreated OR (c.created = :cursorCreated AND c.id < :cursorId)) ORDER BY c.created DESC, c.id DESC")
+    List<Comment> findItemCommentsBeforeCursor(@Param("itemId") int itemId, @Param("cursorCreated") LocalDateTime cursorCreated, @Param("cursorId") int cursorId, Pageable pageable);
+
+    /**
+     * Не больше limit последних комментариев каждой вещи: [item_id, число комментариев вещи, id, text, имя автора, created].
+     * Вещи без комментариев в результат не попадают.
+     */
+    @Query(value = "SELECT s.item_id, s.total, s.id, s.text, u.name, s.created FROM (" +
+            "SELECT c.item_id, c.id, c.text, c.author_id, c.created, " +
+            "ROW_NUMBER() OVER (PARTITION BY c.item_id ORDER BY c.created DESC, c.id DESC) AS rn, " +
+            "COUNT(*) OVER (PARTITION BY c.item_id) AS total " +
+            "FROM comments c WHERE c.item_id IN (:itemIds)) s " +
+            "JOIN users u ON u.id = s.author_id " +
+            "WHERE s.rn <= :limit " +
+            "ORDER BY s.item_id, s.rn", nativeQuery = true)
+    List<Object[]> findRecentComments(@Param("itemIds") Collection<Integer> itemIds, @Param("limit") int limit);
+
+    @Query("SELECT DISTINCT c.item.id FROM Comment c WHERE c.author.id = :authorId")
+    List<Integer> findCommentedItemIds(@Param("authorId") int authorId);
 }
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.comment.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.AfterCommit;
+import ru.practicum.shareit.cache.ExpiringCache;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.CommentMapper;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.service.CommentProperties;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Число комментариев вещи и recent последних из них, новые первыми. Недостающие вещи загружаются
+ * одним запросом к базе, дальше окно поддерживает CommentService после фиксации транзакции.
+ * Комментарии, добавленные через другой экземпляр сервера, видны не позже чем через cacheTtl.
+ */
+@Component
+public class ItemCommentsCache {
+    private static final Summary EMPTY = new Summary(0, List.of());
+
+    private final CommentStorageDb commentStorage;
+    private final int recent;
+    private final ExpiringCache<Integer, Summary> summaries;
+
+    @Autowired
+    public ItemCommentsCache(CommentStorageDb commentStorage, CommentProperties properties) {
+        this(commentStorage, properties, System::nanoTime);
+    }
+
+    ItemCommentsCache(CommentStorageDb commentStorage, CommentProperties properties, LongSupplier nanoTime) {
+        this.commentStorage = commentStorage;
+        this.recent = properties.getRecent();
+        this.summaries = new ExpiringCache<>(properties.getCacheMaxEntries(), properties.getCacheTtl(), nanoTime);
+    }
+
+    public Map<Integer, Summary> getSummaries(Collection<Integer> itemIds) {
+        return summaries.getAll(itemIds, this::load, EMPTY);
+    }
+
+    /**
+     * Добавляет комментарий в окно вещи после фиксации текущей транзакции.
+     */
+    public void onCommentAdded(Comment comment) {
+        int itemId = comment.getItem().getId();
+        CommentDto commentDto = CommentMapper.toCommentDto(comment);
+        AfterCommit.run(() -> summaries.update(itemId, cached -> add(cached, commentDto)));
+    }
+
+    /**
+     * Имя автора хранится в окне, поэтому после переименования пользователя кэш сбрасывается целиком.
+     */
+    public void onAuthorRenamed() {
+        AfterCommit.run(this::clear);
+    }
+
+    public void clear() {
+        summaries.clear();
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    private Summary add(Summary cached, CommentDto commentDto) {
+        List<CommentDto> window = new ArrayList<>(recent);
+        window.add(commentDto);
+        for (CommentDto dto : cached.getRecent()) {
+            if (window.size() == recent) {
+                break;
+            }
+            window.add(dto);
+        }
+        return new Summary(cached.getCount() + 1, List.copyOf(window));
+    }
+
+    private Map<Integer, Summary> load(List<Integer> itemIds) {
+        Map<Integer, Long> counts = new HashMap<>();
+        Map<Integer, List<CommentDto>> windows = new HashMap<>();
+        for (Object[] row : commentStorage.findRecentComments(itemIds, recent)) {
+            int itemId = ((Number) row[0]).intValue();
+            counts.put(itemId, ((Number) row[1]).longValue());
+            windows.computeIfAbsent(itemId, id -> new ArrayList<>()).add(CommentDto.builder()
+                    .id(((Number) row[2]).intValue())
+                    .text((String) row[3])
+                    .authorName((String) row[4])
+                    .created(((Timestamp) row[5]).toLocalDateTime())
+                    .build());
+        }
+
+        Map<Integer, Summary> loaded = new HashMap<>();
+        windows.forEach((itemId, window) -> loaded.put(itemId, new Summary(counts.get(itemId), List.copyOf(window))));
+        return loaded;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Summary {
+        private final long count;
+        private final List<CommentDto> recent;
+    }
+}
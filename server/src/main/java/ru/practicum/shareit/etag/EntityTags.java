@@ -0,0 +1,16 @@
+package ru.practicum.shareit.etag;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Сильные ETag из версий строк. Версия строки при изменении только растет, а id новой строки больше всех прежних,
+ * поэтому для каждого набора строк берутся число строк, сумма и максимум версий и максимальный id.
+ * Изменение строки меняет сумму версий, удаление без вставки уменьшает число строк, а вставка
+ * поднимает максимальный id, даже если одновременно исчезли другие строки.
+ */
+public class EntityTags {
+    public static String of(String resource, Object... parts) {
+        return "\"" + resource + "-" + Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining(".")) + "\"";
+    }
+}
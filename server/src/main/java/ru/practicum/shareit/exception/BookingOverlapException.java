@@ -0,0 +1,9 @@
+package ru.practicum.shareit.exception;
+
+public class BookingOverlapException extends RuntimeException {
+
+    public BookingOverlapException(final String message) {
+        super(message);
+    }
+
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.exception.controller;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -29,12 +31,24 @@ public class ExceptionController {
         return Map.of("message", ex.getMessage());
     }
 
-    @ExceptionHandler({DuplicateEmailException.class})
+    @ExceptionHandler({DuplicateEmailException.class, BookingOverlapException.class})
     @ResponseStatus(HttpStatus.CONFLICT)
-    public Map<String, String> handleDuplicateEmailExceptions(RuntimeException ex) {
+    public Map<String, String> handleConflictExceptions(RuntimeException ex) {
         return Map.of("message", ex.getMessage());
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return Map.of("message", "данные изменены другим запросом, повторите запрос");
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        return Map.of("message", "нарушение целостности данных");
+    }
+
     @ExceptionHandler(WrongBookingStatusException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleWrongStatusException(RuntimeException ex) {
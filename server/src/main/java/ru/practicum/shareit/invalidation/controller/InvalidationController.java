@@ -0,0 +1,28 @@
+package ru.practicum.shareit.invalidation.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.invalidation.dto.InvalidationFeedDto;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
+
+@RestController
+@RequestMapping(path = "/invalidations")
+public class InvalidationController {
+    private final InvalidationFeed invalidationFeed;
+
+    @Autowired
+    public InvalidationController(InvalidationFeed invalidationFeed) {
+        this.invalidationFeed = invalidationFeed;
+    }
+
+    @GetMapping
+    public InvalidationFeedDto getInvalidations(@RequestParam(required = false) String epoch,
+                                                @RequestParam(defaultValue = "0") long after,
+                                                @RequestParam(defaultValue = "0") int overlap,
+                                                @RequestParam(defaultValue = "1000") int limit) {
+        return invalidationFeed.getAfter(epoch, after, overlap, limit);
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.invalidation.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.invalidation.dto.InvalidationDto;
+import ru.practicum.shareit.invalidation.dto.InvalidationFeedDto;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Лента изменившихся ресурсов для кеша шлюза, общая для всех экземпляров сервера: она хранится в базе.
+ * Тег совпадает с путем ресурса, например /items/5. Теги пишутся в той же транзакции перед коммитом,
+ * поэтому откаченные изменения не публикуются. Номера записей выдает identity-столбец без общей блокировки:
+ * запись с меньшим номером может стать видна позже записи с большим, а номера откаченных вставок пропадают.
+ * Поэтому клиент перечитывает окно overlap номеров ниже последнего прочитанного и сам отбрасывает повторы.
+ * Теги записи еще и возвращаются в заголовке X-Invalidated-Tags ответа на нее: шлюз сбрасывает их сразу,
+ * не дожидаясь опроса ленты. Хранятся последние capacity записей. Если клиент отстал за обрезанную границу
+ * или база пересоздана (сменилась эпоха), клиент должен сбросить кеш целиком.
+ */
+@Component
+public class InvalidationFeed {
+    public static final String SEARCH_TAG = "/items/search";
+    public static final String TAGS_HEADER = "X-Invalidated-Tags";
+    private static final RowMapper<InvalidationDto> ENTRY_MAPPER = (rs, rowNum) -> InvalidationDto.builder()
+            .id(rs.getLong("id"))
+            .tag(rs.getString("tag"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+
+    @Autowired
+    public InvalidationFeed(JdbcTemplate jdbcTemplate, @Value("${shareit.invalidation.capacity:10000}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = capacity;
+    }
+
+    public static String itemTag(int itemId) {
+        return "/items/" + itemId;
+    }
+
+    public static String userTag(int userId) {
+        return "/users/" + userId;
+    }
+
+    public static String requestTag(int requestId) {
+        return "/requests/" + requestId;
+    }
+
+    public void publish(String... changed) {
+        if (changed.length == 0) {
+            return;
+        }
+        exposeToResponse(changed);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            append(changed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                append(changed);
+            }
+        });
+    }
+
+    /**
+     * Записи читаются раньше границы обрезки: trim сдвигает границу до удаления,
+     * поэтому если между запросами ленту обрезали, клиент получит сброс, а не пропуск.
+     */
+    public InvalidationFeedDto getAfter(String clientEpoch, long after, int overlap, int limit) {
+        List<InvalidationDto> entries = jdbcTemplate.query("SELECT id, tag FROM invalidation_feed WHERE id > ? ORDER BY id LIMIT ?",
+                ENTRY_MAPPER, Math.max(after - overlap, 0), limit);
+        Map<String, Object> state = jdbcTemplate.queryForMap("SELECT epoch, trimmed_through FROM invalidation_state WHERE id = 1");
+        String epoch = (String) state.get("epoch");
+        long trimmedThrough = ((Number) state.get("trimmed_through")).longValue();
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM invalidation_feed", Long.class);
+        long last = Math.max(max == null ? 0 : max, trimmedThrough);
+        if (!epoch.equals(clientEpoch) || after > last || after < trimmedThrough) {
+            return reset(epoch, last);
+        }
+
+        long pageLast = entries.isEmpty() ? after : Math.max(after, entries.get(entries.size() - 1).getId());
+        return InvalidationFeedDto.builder().epoch(epoch).last(pageLast).reset(false).entries(entries).build();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.invalidation.trim-delay:60000}")
+    public void trim() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM invalidation_feed", Long.class);
+        if (max == null || max <= capacity) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE invalidation_state SET trimmed_through = GREATEST(trimmed_through, ?) WHERE id = 1", max - capacity);
+        jdbcTemplate.update("DELETE FROM invalidation_feed WHERE id <= ?", max - capacity);
+    }
+
+    private void append(String[] changed) {
+        List<Object[]> rows = new ArrayList<>();
+        for (String tag : changed) {
+            rows.add(new Object[]{tag});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO invalidation_feed (tag) VALUES (?)", rows);
+    }
+
+    private static void exposeToResponse(String[] changed) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return;
+        }
+        HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+        if (response != null && !response.isCommitted()) {
+            for (String tag : changed) {
+                response.addHeader(TAGS_HEADER, tag);
+            }
+        }
+    }
+
+    private static InvalidationFeedDto reset(String epoch, long last) {
+        return InvalidationFeedDto.builder().epoch(epoch).last(last).reset(true).entries(List.of()).build();
+    }
+}
@@ -1,23 +1,32 @@
 package ru.practicum.shareit.item.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
+import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/items")
 public class ItemController {
     private final ItemService itemService;
+    private final BookingService bookingService;
     private static final String HEADER_PARAM = "X-Sharer-User-Id";
 
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, BookingService bookingService) {
         this.itemService = itemService;
+        this.bookingService = bookingService;
     }
 
     @PostMapping
@@ -30,18 +39,44 @@ public class ItemController {
         return ItemMapper.toItemDto(itemService.update(id, userId, ItemMapper.fromItemDto(newItem)));
     }
 
+    /**
+     * ETag считается до сборки ответа: если данные изменятся между ними, клиент получит
+     * более новое тело со старым ETag и при следующем запросе просто перечитает его.
+     */
     @GetMapping("/{id}")
-    public ItemDto getItemById(@PathVariable int id, @RequestHeader(HEADER_PARAM) int userId) {
-        return itemService.getItemByIdWithBookingIntervals(id, userId);
+    public ResponseEntity<ItemDto> getItemById(@PathVariable int id, @RequestHeader(HEADER_PARAM) int userId, WebRequest request) {
+        Optional<String> eTag = itemService.getItemETag(id, userId);
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        eTag.ifPresent(response::eTag);
+        return response.body(itemService.getItemByIdWithBookingIntervals(id, userId));
+    }
+
+    @GetMapping("/{id}/availability")
+    public Collection<TimeWindowDto> getItemAvailability(@PathVariable int id, @RequestHeader(HEADER_PARAM) int userId,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return bookingService.getItemAvailability(id, userId, from, to);
     }
 
     @GetMapping
-    public Collection<ItemDto> getUserItems(@RequestHeader(HEADER_PARAM) int userId) {
-        return itemService.getUserItemsWithBookingIntervals(userId);
+    public ResponseEntity<Collection<ItemDto>> getUserItems(@RequestHeader(HEADER_PARAM) int userId, WebRequest request) {
+        Optional<String> eTag = itemService.getUserItemsETag(userId);
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        eTag.ifPresent(response::eTag);
+        return response.body(itemService.getUserItemsWithBookingIntervals(userId));
     }
 
     @GetMapping("/search")
-    public Collection<ItemDto> searchItems(@RequestHeader(HEADER_PARAM) int userId, @RequestParam String text, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size) {
-        return itemService.searchItems(text, from, size).stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+    public ResponseEntity<Collection<ItemDto>> searchItems(@RequestHeader(HEADER_PARAM) int userId, @RequestParam String text, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size, @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return itemService.searchItems(text, cursor, size).map(ItemMapper::toItemDto).toResponse();
+        }
+        return ResponseEntity.ok(itemService.searchItems(text, from, size).stream().map(ItemMapper::toItemDto).collect(Collectors.toList()));
     }
 }
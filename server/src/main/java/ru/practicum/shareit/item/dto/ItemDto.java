@@ -25,5 +25,6 @@ public class ItemDto {
     BookingTimeIntervalDto lastBooking;
     BookingTimeIntervalDto nextBooking;
     Collection<CommentDto> comments;
+    long commentCount;
     Integer requestId;
 }
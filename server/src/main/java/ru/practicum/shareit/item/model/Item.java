@@ -26,10 +26,12 @@ public class Item {
     String description;
     @Column(name = "is_available",nullable = false)
     Boolean available;
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", referencedColumnName = "id", nullable = false)
     User owner;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id", referencedColumnName = "id")
     Request request;
+    @Version
+    int version;
 }
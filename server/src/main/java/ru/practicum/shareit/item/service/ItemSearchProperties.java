@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "shareit.search")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemSearchProperties {
+    Mode mode = Mode.INDEX;
+    String platform = "all";
+    long resyncDelay = 60000;
+
+    public boolean isFullTextSupported() {
+        return "postgresql".equals(platform);
+    }
+
+    /**
+     * LIKE и FULLTEXT ищут подстроку, FULLTEXT еще ранжирует по сходству. INDEX сопоставляет термы запроса
+     * с префиксами слов: "дрель" и "дре" находят "Дрель", "рель" — нет.
+     */
+    public enum Mode {
+        INDEX,
+        LIKE,
+        FULLTEXT
+    }
+}
@@ -1,46 +1,86 @@
 package ru.practicum.shareit.item.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.storage.BookingStorageDb;
-import ru.practicum.shareit.comment.dto.CommentMapper;
-import ru.practicum.shareit.comment.model.Comment;
-import ru.practicum.shareit.comment.storage.CommentStorageDb;
+import ru.practicum.shareit.booking.model.BookingHistory;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+import ru.practicum.shareit.booking.service.ItemBookingSummaryService;
+import ru.practicum.shareit.cache.AfterCommit;
+import ru.practicum.shareit.comment.storage.ItemCommentsCache;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.ItemStorageDb;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.pagination.Pagination;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.request.storage.RequestAnswersCache;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ItemService implements ItemServiceInterface {
     private final ItemStorageDb itemStorage;
-    private final CommentStorageDb commentStorage;
+    private final ItemCommentsCache commentsCache;
     private final UserService userService;
-    private final BookingStorageDb bookingStorage;
     private final RequestService requestService;
+    private final ItemSearchIndex searchIndex;
+    private final ItemSearchProperties searchProperties;
+    private final InvalidationFeed invalidationFeed;
+    private final ItemBookingSummaryService summaryService;
+    private final RequestAnswersCache answersCache;
 
     @Autowired
-    public ItemService(ItemStorageDb itemStorage, UserService userService, CommentStorageDb commentStorage, BookingStorageDb bookingStorage, RequestService requestService) {
+    public ItemService(ItemStorageDb itemStorage, UserService userService, ItemCommentsCache commentsCache, RequestService requestService, ItemSearchIndex searchIndex, ItemSearchProperties searchProperties, InvalidationFeed invalidationFeed, ItemBookingSummaryService summaryService, RequestAnswersCache answersCache) {
         this.itemStorage = itemStorage;
         this.userService = userService;
-        this.commentStorage = commentStorage;
-        this.bookingStorage = bookingStorage;
+        this.commentsCache = commentsCache;
         this.requestService = requestService;
+        this.searchIndex = searchIndex;
+        this.searchProperties = searchProperties;
+        this.invalidationFeed = invalidationFeed;
+        this.summaryService = summaryService;
+        this.answersCache = answersCache;
+    }
+
+    @Transactional(readOnly = true)
+    public void rebuildSearchIndex() {
+        searchIndex.replaceAll(itemStorage::findAvailableForSearch);
+    }
+
+    /**
+     * Индекс строится при старте и, так как каждый экземпляр видит только свои изменения, периодически
+     * перестраивается из базы, подхватывая вещи, измененные на других экземплярах. В режимах LIKE и FULLTEXT
+     * индекс не читается, и его не строят.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shareit.search.resync-delay:60000}", initialDelayString = "${shareit.search.resync-delay:60000}")
+    @Transactional(readOnly = true)
+    public void resyncSearchIndex() {
+        if (searchProperties.getMode() == ItemSearchProperties.Mode.INDEX) {
+            rebuildSearchIndex();
+        }
     }
 
     @Override
@@ -58,11 +98,23 @@ public class ItemService implements ItemServiceInterface {
         i.setAvailable(newItemDto.getAvailable());
         i.setOwner(owner);
 
-        return itemStorage.save(i);
+        Item createdItem = itemStorage.save(i);
+        AfterCommit.run(() -> searchIndex.index(createdItem));
+        summaryService.initialize(createdItem);
+        answersCache.onAnswerSaved(createdItem);
+        publishChanged(createdItem);
+
+        return createdItem;
     }
 
+    /**
+     * Изменение накладывается на текущую версию вещи, поэтому при конфликте версий его можно
+     * безопасно повторить: повтор перечитает вещь и применит те же поля поверх чужого изменения.
+     */
     @Override
     @Transactional
+    @Retryable(value = OptimisticLockingFailureException.class, maxAttemptsExpression = "${shareit.retry.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${shareit.retry.delay:10}", multiplierExpression = "${shareit.retry.multiplier:2}", random = true))
     public Item update(int itemId, int userId, Item item) {
         Item itemToUpdate = getItemById(itemId);
         User user = userService.getUserById(userId);
@@ -78,6 +130,7 @@ public class ItemService implements ItemServiceInterface {
         itemForUpd.setAvailable(itemToUpdate.getAvailable());
         itemForUpd.setOwner(itemToUpdate.getOwner());
         itemForUpd.setRequest(itemToUpdate.getRequest());
+        itemForUpd.setVersion(itemToUpdate.getVersion());
 
         if (Objects.nonNull(item.getName())) {
             itemForUpd.setName(item.getName());
@@ -89,7 +142,12 @@ public class ItemService implements ItemServiceInterface {
             itemForUpd.setAvailable(item.getAvailable());
         }
 
-        return itemStorage.save(itemForUpd);
+        Item updatedItem = itemStorage.save(itemForUpd);
+        AfterCommit.run(() -> searchIndex.index(updatedItem));
+        answersCache.onAnswerSaved(updatedItem);
+        publishChanged(updatedItem);
+
+        return updatedItem;
     }
 
     @Override
@@ -104,18 +162,16 @@ public class ItemService implements ItemServiceInterface {
         User user = userService.getUserById(userId);
         Item item = getItemById(itemId);
         ItemDto itemDto = ItemMapper.toItemDto(item);
-        Collection<Comment> comments = commentStorage.getCommentsByItems(List.of(item));
-        itemDto.setComments(comments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList()));
+        setComments(itemDto, commentsCache.getSummaries(List.of(item.getId())).get(item.getId()));
 
         if (item.getOwner().getId() == user.getId()) {
-            List<Booking> lastBookings = bookingStorage.getItemsLastBookings(List.of(item));
-            List<Booking> nextBookings = bookingStorage.getItemsNextBookings(List.of(item));
+            ItemBookingSummary summary = summaryService.getSummaries(List.of(item)).get(item.getId());
 
-            if (!lastBookings.isEmpty()) {
-                itemDto.setLastBooking(BookingMapper.toBookingTimeIntervalDto(lastBookings.get(0)));
+            if (Objects.nonNull(summary.getLastBooking())) {
+                itemDto.setLastBooking(BookingMapper.toBookingTimeIntervalDto(summary.getLastBooking()));
             }
-            if (!nextBookings.isEmpty()) {
-                itemDto.setNextBooking(BookingMapper.toBookingTimeIntervalDto(nextBookings.get(0)));
+            if (Objects.nonNull(summary.getNextBooking())) {
+                itemDto.setNextBooking(BookingMapper.toBookingTimeIntervalDto(summary.getNextBooking()));
             }
         }
 
@@ -134,28 +190,19 @@ public class ItemService implements ItemServiceInterface {
     public Collection<ItemDto> getUserItemsWithBookingIntervals(int userId) {
         List<ItemDto> itemDtoList = new ArrayList<>();
         List<ItemDto> itemDtoListNullIntervals = new ArrayList<>();
-        Map<Item, Collection<Comment>> itemToComments = new HashMap<>();
 
         User user = userService.getUserById(userId);
         Collection<Item> items = getUserItems(user.getId());
 
-        Map<Item, Booking> lastBookings = bookingStorage.getItemsLastBookings(items).stream().collect(Collectors.toMap(Booking::getItem, val -> val));
-        Map<Item, Booking> nextBookings = bookingStorage.getItemsNextBookings(items).stream().collect(Collectors.toMap(Booking::getItem, val -> val));
-        Collection<Comment> comments = commentStorage.getCommentsByItems(items);
-
-        for (Comment comment : comments) {
-            if (itemToComments.containsKey(comment.getItem())) {
-                itemToComments.get(comment.getItem()).add(comment);
-            } else {
-                itemToComments.put(comment.getItem(), List.of(comment));
-            }
-        }
+        Map<Integer, ItemBookingSummary> summaries = summaryService.getSummaries(items);
+        Map<Integer, ItemCommentsCache.Summary> comments = commentsCache.getSummaries(items.stream().map(Item::getId).collect(Collectors.toList()));
 
         for (Item item : items) {
             ItemDto itemDto = ItemMapper.toItemDto(item);
-            Booking lastBooking = lastBookings.get(item);
-            Booking nextBooking = nextBookings.get(item);
-            Collection<Comment> itemComments = itemToComments.get(item);
+            ItemBookingSummary summary = summaries.get(item.getId());
+            BookingHistory lastBooking = summary.getLastBooking();
+            BookingHistory nextBooking = summary.getNextBooking();
+            setComments(itemDto, comments.get(item.getId()));
 
             if (lastBooking == null && nextBooking == null) {
                 itemDtoListNullIntervals.add(itemDto);
@@ -168,9 +215,6 @@ public class ItemService implements ItemServiceInterface {
             if (Objects.nonNull(nextBooking)) {
                 itemDto.setNextBooking(BookingMapper.toBookingTimeIntervalDto(nextBooking));
             }
-            if (Objects.nonNull(itemComments)) {
-                itemDto.setComments(itemComments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList()));
-            }
             itemDtoList.add(itemDto);
         }
 
@@ -179,8 +223,28 @@ public class ItemService implements ItemServiceInterface {
         return itemDtoList;
     }
 
+    /**
+     * Бронирования в ETag входят только для владельца: остальным они не показываются.
+     */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public Optional<String> getItemETag(int itemId, int userId) {
+        return itemStorage.getItemVersions(itemId, userId).stream().findFirst().map(versions -> {
+            if (((Number) versions[5]).intValue() != userId) {
+                return EntityTags.of("item", versions[0], versions[1], versions[2], versions[3], versions[4]);
+            }
+            return EntityTags.of("item-owner", versions);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getUserItemsETag(int userId) {
+        return itemStorage.getOwnerItemsVersions(userId).stream().findFirst().map(versions -> EntityTags.of("items", versions));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Collection<Item> searchItems(String text, int from, int size) {
         if (!Pagination.isValid(from, size)) {
             throw new ValidationException("некорректная пагинация");
@@ -192,6 +256,89 @@ public class ItemService implements ItemServiceInterface {
             return List.of();
         }
 
-        return itemStorage.searchItems(text.toLowerCase(), PageRequest.of(newFrom, size));
+        switch (searchProperties.getMode()) {
+            case LIKE:
+                return itemStorage.searchItems(text.toLowerCase(), PageRequest.of(newFrom, size));
+            case FULLTEXT:
+                return searchItemsFullText(text, PageRequest.of(newFrom, size));
+            default:
+                return searchItemsInIndex(text, newFrom, size);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Item> searchItems(String text, String cursor, int size) {
+        if (!Pagination.isValid(0, size)) {
+            throw new ValidationException("некорректная пагинация");
+        }
+
+        if (text.isBlank()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // во всех режимах курсор идет по id: оценка BM25 меняется вместе с индексом и не годится как ключ страницы
+        int afterId = Cursor.isFirstPage(cursor) ? 0 : Cursor.decode(cursor).getId();
+        if (searchProperties.getMode() == ItemSearchProperties.Mode.INDEX) {
+            return searchItemsInIndexAfterId(text, afterId, size);
+        }
+
+        // FULLTEXT отличается от LIKE только ранжированием, а курсор идет по id
+        List<Item> items = itemStorage.searchItemsAfterId(text.toLowerCase(), afterId, PageRequest.of(0, size));
+
+        return CursorPage.of(items, size, item -> Cursor.of(item.getId()));
+    }
+
+    private List<Item> searchItemsFullText(String text, PageRequest pageRequest) {
+        if (!searchProperties.isFullTextSupported()) {
+            return itemStorage.searchItems(text.toLowerCase(), pageRequest);
+        }
+
+        return itemStorage.searchItemsFullText(text.toLowerCase(), pageRequest);
+    }
+
+    private List<Item> searchItemsInIndex(String text, int page, int size) {
+        List<Integer> rankedIds = searchIndex.search(text);
+        long offset = (long) page * size;
+        if (offset >= rankedIds.size()) {
+            return List.of();
+        }
+        List<Integer> pageIds = rankedIds.subList((int) offset, (int) Math.min(offset + size, rankedIds.size()));
+
+        Map<Integer, Item> foundItems = itemStorage.findAllById(pageIds).stream()
+                .filter(Item::getAvailable)
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        return pageIds.stream().map(foundItems::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private CursorPage<Item> searchItemsInIndexAfterId(String text, int afterId, int size) {
+        List<Integer> pageIds = searchIndex.searchAfterId(text, afterId, size);
+
+        Map<Integer, Item> foundItems = itemStorage.findAllById(pageIds).stream()
+                .filter(Item::getAvailable)
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<Item> items = pageIds.stream().map(foundItems::get).filter(Objects::nonNull).collect(Collectors.toList());
+
+        if (pageIds.size() < size) {
+            return new CursorPage<>(items, null);
+        }
+        return new CursorPage<>(items, Cursor.of(pageIds.get(pageIds.size() - 1)).encode());
+    }
+
+    /**
+     * Вещь показывает только число комментариев и последние из них, остальные отдает GET /items/{id}/comments.
+     */
+    private static void setComments(ItemDto itemDto, ItemCommentsCache.Summary comments) {
+        itemDto.setComments(comments.getRecent());
+        itemDto.setCommentCount(comments.getCount());
+    }
+
+    private void publishChanged(Item item) {
+        if (item.getRequest() != null) {
+            invalidationFeed.publish(InvalidationFeed.itemTag(item.getId()), InvalidationFeed.SEARCH_TAG, InvalidationFeed.requestTag(item.getRequest().getId()));
+        } else {
+            invalidationFeed.publish(InvalidationFeed.itemTag(item.getId()), InvalidationFeed.SEARCH_TAG);
+        }
     }
 }
@@ -2,8 +2,10 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 
 import java.util.Collection;
+import java.util.Optional;
 
 public interface ItemServiceInterface {
     Item create(int userId, ItemDto newItemDto);
@@ -18,5 +20,11 @@ public interface ItemServiceInterface {
 
     Collection<ItemDto> getUserItemsWithBookingIntervals(int userId);
 
+    Optional<String> getItemETag(int itemId, int userId);
+
+    Optional<String> getUserItemsETag(int userId);
+
     Collection<Item> searchItems(String text, int from, int size);
+
+    CursorPage<Item> searchItems(String text, String cursor, int size);
 }
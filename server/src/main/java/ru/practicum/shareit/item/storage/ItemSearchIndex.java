@@ -0,0 +1,287 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Инвертированный индекс по названию и описанию доступных вещей.
+ * Термы запроса сопоставляются с префиксами термов индекса, вещь попадает в выдачу,
+ * только если совпали все термы запроса. Выдача по номеру страницы ранжируется по BM25,
+ * выдача по курсору идет по id.
+ */
+@Component
+public class ItemSearchIndex {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+    private Map<Integer, Integer> documentLengths = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock rebuildLock = new ReentrantLock();
+    private Map<Integer, Consumer<ItemSearchIndex>> changesDuringRebuild;
+    private long totalLength;
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public void index(Item item) {
+        index(item.getId(), item.getName(), item.getDescription(), Boolean.TRUE.equals(item.getAvailable()));
+    }
+
+    public void index(int id, String name, String description, boolean available) {
+        change(id, target -> {
+            target.removeDocument(id);
+            if (available) {
+                target.addDocument(id, name, description);
+            }
+        });
+    }
+
+    public void remove(int id) {
+        change(id, target -> target.removeDocument(id));
+    }
+
+    /**
+     * Строит индекс заново рядом с текущим и подменяет его целиком: поиск не видит наполовину построенный индекс.
+     * Снимок может не застать изменения, закоммиченные во время перестроения, поэтому изменения, пришедшие
+     * с его начала, запоминаются и повторяются на новом индексе перед подменой. Снимок открывается
+     * уже после начала записи изменений.
+     */
+    public void replaceAll(Supplier<Stream<ItemSearchView>> snapshot) {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new LinkedHashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            ItemSearchIndex rebuilt = new ItemSearchIndex();
+            boolean built = false;
+            try (Stream<ItemSearchView> items = snapshot.get()) {
+                items.forEach(item -> rebuilt.addDocument(item.getId(), item.getName(), item.getDescription()));
+                built = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (built) {
+                        changesDuringRebuild.values().forEach(change -> change.accept(rebuilt));
+                        postings = rebuilt.postings;
+                        documents = rebuilt.documents;
+                        documentLengths = rebuilt.documentLengths;
+                        totalLength = rebuilt.totalLength;
+                    }
+                } finally {
+                    changesDuringRebuild = null;
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            documentLengths.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> search(String text) {
+        List<Hit> hits = searchHits(text);
+        List<Integer> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.getId());
+        }
+        return result;
+    }
+
+    public List<Hit> searchHits(String text) {
+        List<String> queryTerms = tokenize(text);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+
+            double avgLength = (double) totalLength / documents.size();
+            Map<Integer, Double> scores = null;
+
+            for (String queryTerm : new LinkedHashSet<>(queryTerms)) {
+                Map<Integer, Double> termScores = scoreTerm(queryTerm, avgLength);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+            List<Hit> result = new ArrayList<>(ranked.size());
+            for (Map.Entry<Integer, Double> entry : ranked) {
+                result.add(new Hit(entry.getKey(), entry.getValue()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Совпавшие вещи с id больше afterId по возрастанию id, без подсчета BM25: ключ курсора не меняется,
+     * когда меняются другие документы, а страница не требует ранжировать всю выдачу.
+     */
+    public List<Integer> searchAfterId(String text, int afterId, int limit) {
+        List<String> queryTerms = tokenize(text);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> matches = null;
+            for (String queryTerm : new LinkedHashSet<>(queryTerms)) {
+                Set<Integer> termMatches = new HashSet<>();
+                for (Map<Integer, Integer> frequencies : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).values()) {
+                    termMatches.addAll(frequencies.keySet());
+                }
+                if (matches == null) {
+                    matches = termMatches;
+                } else {
+                    matches.retainAll(termMatches);
+                }
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return matches.stream().filter(id -> id > afterId).sorted().limit(limit).collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Double> scoreTerm(String queryTerm, double avgLength) {
+        Map<Integer, Double> termScores = new HashMap<>();
+        int documentCount = documents.size();
+
+        for (Map.Entry<String, Map<Integer, Integer>> posting : postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+            Map<Integer, Integer> frequencies = posting.getValue();
+            double idf = Math.log(1 + (documentCount - frequencies.size() + 0.5) / (frequencies.size() + 0.5));
+
+            for (Map.Entry<Integer, Integer> frequency : frequencies.entrySet()) {
+                int tf = frequency.getValue();
+                double norm = K1 * (1 - B + B * documentLengths.get(frequency.getKey()) / avgLength);
+                termScores.merge(frequency.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+            }
+        }
+        return termScores;
+    }
+
+    private void change(int id, Consumer<ItemSearchIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(this);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(id, change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addDocument(int id, String name, String description) {
+        List<String> tokens = new ArrayList<>(tokenize(name));
+        tokens.addAll(tokenize(description));
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(id, entry.getValue());
+        }
+
+        documents.put(id, frequencies);
+        documentLengths.put(id, tokens.size());
+        totalLength += tokens.size();
+    }
+
+    private void removeDocument(int id) {
+        Map<String, Integer> frequencies = documents.remove(id);
+        if (frequencies == null) {
+            return;
+        }
+
+        for (String term : frequencies.keySet()) {
+            Map<Integer, Integer> termPostings = postings.get(term);
+            termPostings.remove(id);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= documentLengths.remove(id);
+    }
+
+    @Value
+    public static class Hit {
+        int id;
+        double score;
+    }
+}
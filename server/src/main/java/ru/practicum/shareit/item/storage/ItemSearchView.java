@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.storage;
+
+public interface ItemSearchView {
+    int getId();
+
+    String getName();
+
+    String getDescription();
+}
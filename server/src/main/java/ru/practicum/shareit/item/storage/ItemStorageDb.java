@@ -2,26 +2,103 @@ package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.LockModeType;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemStorageDb extends JpaRepository<Item, Integer> {
     Collection<Item> findItemByOwner(User user);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id = :id")
+    Optional<Item> findByIdForUpdate(@Param("id") int id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id IN :ids ORDER BY i.id")
+    List<Item> findAllByIdInForUpdate(@Param("ids") Collection<Integer> ids);
+
     @Query(value =
-            "SELECT it.id, it.name, it.description, it.is_available, it.owner_id, it.request_id " +
+            "SELECT it.id, it.name, it.description, it.is_available, it.owner_id, it.request_id, it.version " +
                     "FROM items it " +
                     "WHERE it.is_available IS TRUE AND (LOWER(it.name) LIKE '%' || ?1 || '%' OR LOWER(it.description) LIKE '%' || ?1 || '%')",
             nativeQuery = true)
     List<Item> searchItems(String query, Pageable pageable);
 
-    Collection<Item> findItemsByRequestIn(Collection<Request> itemRequests);
+    /**
+     * Та же подстрока, что и в searchItems, но с ранжированием по триграммному сходству (pg_trgm, только PostgreSQL).
+     * Обе выборки обслуживают GIN-индексы ix_items_name_trgm и ix_items_description_trgm.
+     */
+    @Query(value =
+            "SELECT it.id, it.name, it.description, it.is_available, it.owner_id, it.request_id, it.version " +
+                    "FROM items it " +
+                    "WHERE it.is_available IS TRUE AND (LOWER(it.name) LIKE '%' || ?1 || '%' OR LOWER(it.description) LIKE '%' || ?1 || '%') " +
+                    "ORDER BY GREATEST(similarity(LOWER(it.name), ?1), similarity(LOWER(it.description), ?1)) DESC, it.id",
+            nativeQuery = true)
+    List<Item> searchItemsFullText(String query, Pageable pageable);
+
+    @Query(value =
+            "SELECT it.id, it.name, it.description, it.is_available, it.owner_id, it.request_id, it.version " +
+                    "FROM items it " +
+                    "WHERE it.is_available IS TRUE AND (LOWER(it.name) LIKE '%' || ?1 || '%' OR LOWER(it.description) LIKE '%' || ?1 || '%') " +
+                    "AND it.id > ?2 ORDER BY it.id",
+            nativeQuery = true)
+    List<Item> searchItemsAfterId(String query, int afterId, Pageable pageable);
+
+    /**
+     * Ответы на запросы сразу в виде DTO: вещи и их владельцы не попадают в контекст персистентности.
+     */
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemRequestDto(i.id, i.name, i.description, i.available, i.request.id) " +
+            "FROM Item i WHERE i.request.id IN :requestIds ORDER BY i.id")
+    List<ItemRequestDto> findItemRequestDtosByRequestIdIn(@Param("requestIds") Collection<Integer> requestIds);
 
     Collection<Item> findItemsByRequestInAndOwnerIsNot(Collection<Request> itemRequests, User requestor);
 
+    /**
+     * Версии всего, из чего собирается GET /items: вещи владельца, их комментарии с авторами и бронирования.
+     * Для каждого набора строк берутся число, сумма и максимум версий и максимальный id: строки могут исчезать
+     * (удаление пользователя, архивирование партиций бронирований), а новая строка всегда поднимает максимальный id.
+     * Число начавшихся бронирований меняется, когда следующее бронирование становится последним.
+     * Каждая таблица читается одним агрегирующим проходом по индексу владельца или вещи.
+     * Пустой результат — нет такого пользователя.
+     */
+    @Query(value = "SELECT iv.i_count, iv.i_sum, iv.i_max_id, iv.i_max_version, " +
+            "cv.c_count, cv.c_sum, cv.c_max_id, cv.c_max_version, " +
+            "bv.b_count, bv.b_sum, bv.b_max_id, bv.b_max_version, bv.b_started FROM users u " +
+            "CROSS JOIN (SELECT COUNT(*) AS i_count, COALESCE(SUM(i.version), 0) AS i_sum, COALESCE(MAX(i.id), 0) AS i_max_id, COALESCE(MAX(i.version), 0) AS i_max_version " +
+            "FROM items i WHERE i.owner_id = :ownerId) iv " +
+            "CROSS JOIN (SELECT COUNT(*) AS c_count, COALESCE(SUM(c.version + a.version), 0) AS c_sum, COALESCE(MAX(c.id), 0) AS c_max_id, COALESCE(MAX(c.version + a.version), 0) AS c_max_version " +
+            "FROM items i JOIN comments c ON c.item_id = i.id JOIN users a ON a.id = c.author_id WHERE i.owner_id = :ownerId) cv " +
+            "CROSS JOIN (SELECT COUNT(*) AS b_count, COALESCE(SUM(b.version), 0) AS b_sum, COALESCE(MAX(b.id), 0) AS b_max_id, COALESCE(MAX(b.version), 0) AS b_max_version, " +
+            "COUNT(CASE WHEN b.start_date < LOCALTIMESTAMP THEN 1 END) AS b_started " +
+            "FROM items i JOIN bookings b ON b.item_id = i.id WHERE i.owner_id = :ownerId) bv " +
+            "WHERE u.id = :ownerId", nativeQuery = true)
+    List<Object[]> getOwnerItemsVersions(@Param("ownerId") int ownerId);
+
+    /**
+     * Версии для GET /items/{id}: вещь, ее комментарии с авторами, владелец и бронирования вещи,
+     * по тем же правилам, что и в getOwnerItemsVersions. Пустой результат — нет такой вещи или такого пользователя.
+     */
+    @Query(value = "SELECT i.version, cv.c_count, cv.c_sum, cv.c_max_id, cv.c_max_version, i.owner_id, " +
+            "bv.b_count, bv.b_sum, bv.b_max_id, bv.b_max_version, bv.b_started FROM items i JOIN users u ON u.id = :userId " +
+            "CROSS JOIN (SELECT COUNT(*) AS c_count, COALESCE(SUM(c.version + a.version), 0) AS c_sum, COALESCE(MAX(c.id), 0) AS c_max_id, COALESCE(MAX(c.version + a.version), 0) AS c_max_version " +
+            "FROM comments c JOIN users a ON a.id = c.author_id WHERE c.item_id = :itemId) cv " +
+            "CROSS JOIN (SELECT COUNT(*) AS b_count, COALESCE(SUM(b.version), 0) AS b_sum, COALESCE(MAX(b.id), 0) AS b_max_id, COALESCE(MAX(b.version), 0) AS b_max_version, " +
+            "COUNT(CASE WHEN b.start_date < LOCALTIMESTAMP THEN 1 END) AS b_started " +
+            "FROM bookings b WHERE b.item_id = :itemId) bv " +
+            "WHERE i.id = :itemId", nativeQuery = true)
+    List<Object[]> getItemVersions(@Param("itemId") int itemId, @Param("userId") int userId);
+
+    @Query("SELECT i.id AS id, i.name AS name, i.description AS description FROM Item i WHERE i.available = TRUE")
+    Stream<ItemSearchView> findAvailableForSearch();
+
 }
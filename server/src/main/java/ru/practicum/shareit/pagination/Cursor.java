@@ -0,0 +1,59 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class Cursor {
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final String SEPARATOR = "~";
+
+    String key;
+    int id;
+
+    public static Cursor of(LocalDateTime time, int id) {
+        return new Cursor(time.toString(), id);
+    }
+
+    public static Cursor of(int id) {
+        return new Cursor("", id);
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.lastIndexOf(SEPARATOR);
+            return new Cursor(decoded.substring(0, separatorIndex), Integer.parseInt(decoded.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ValidationException("некорректный курсор " + token);
+        }
+    }
+
+    public static boolean isFirstPage(String token) {
+        return token == null || token.isBlank();
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("некорректный курсор " + encode());
+        }
+    }
+}
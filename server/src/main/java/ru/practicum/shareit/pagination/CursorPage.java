@@ -0,0 +1,41 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    List<T> content;
+    String nextCursor;
+
+    public static <T> CursorPage<T> of(List<T> content, int size, Function<T, Cursor> cursorExtractor) {
+        if (content.size() < size) {
+            return new CursorPage<>(content, null);
+        }
+        return new CursorPage<>(content, cursorExtractor.apply(content.get(content.size() - 1)).encode());
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(content.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+
+    public ResponseEntity<Collection<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+}
@@ -1,13 +1,16 @@
 package ru.practicum.shareit.request.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.request.dto.RequestAnswerDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.dto.RequestMapper;
 import ru.practicum.shareit.request.service.RequestService;
 
 import java.util.Collection;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(path = "/requests")
@@ -26,13 +29,22 @@ public class RequestController {
     }
 
     @GetMapping
-    public Collection<RequestAnswerDto> getAll(@RequestHeader("X-Sharer-User-Id") int userId) {
-        return requestService.getAll(userId);
+    public ResponseEntity<Collection<RequestAnswerDto>> getAll(@RequestHeader("X-Sharer-User-Id") int userId, WebRequest request) {
+        Optional<String> eTag = requestService.getAllETag(userId);
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        eTag.ifPresent(response::eTag);
+        return response.body(requestService.getAll(userId));
     }
 
     @GetMapping("/all")
-    public Collection<RequestAnswerDto> getOtherUsersRequests(@RequestHeader("X-Sharer-User-Id") int userId, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size) {
-        return requestService.getAllOtherUsersRequests(userId, from, size);
+    public ResponseEntity<Collection<RequestAnswerDto>> getOtherUsersRequests(@RequestHeader("X-Sharer-User-Id") int userId, @RequestParam(defaultValue = "0") int from, @RequestParam(defaultValue = "2000") int size, @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return requestService.getAllOtherUsersRequests(userId, cursor, size).toResponse();
+        }
+        return ResponseEntity.ok(requestService.getAllOtherUsersRequests(userId, from, size));
     }
 
     @GetMapping("/{requestId}")
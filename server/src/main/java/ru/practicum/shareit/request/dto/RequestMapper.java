@@ -29,6 +29,10 @@ public class RequestMapper {
                 .map(ItemMapper::toItemRequestDto)
                 .collect(Collectors.toList());
 
+        return toRequestAnswerDtoWithItemDtos(itemRequest, itemDtos);
+    }
+
+    public static RequestAnswerDto toRequestAnswerDtoWithItemDtos(Request itemRequest, Collection<ItemRequestDto> itemDtos) {
         return RequestAnswerDto.builder()
                 .id(itemRequest.getId())
                 .description(itemRequest.getDescription())
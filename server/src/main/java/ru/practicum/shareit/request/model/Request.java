@@ -23,12 +23,14 @@ public class Request {
     int id;
     @Column(nullable = false)
     String description;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requestor", referencedColumnName = "id", nullable = false)
     User requestor;
     @Column(name = "created", nullable = false, insertable = false, updatable = false, columnDefinition = "TIMESTAMP WITHOUT TIME ZONE DEFAULT NOW()")
     @CreationTimestamp
     LocalDateTime created;
+    @Version
+    int version;
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "shareit.requests")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RequestProperties {
+    String platform = "all";
+}
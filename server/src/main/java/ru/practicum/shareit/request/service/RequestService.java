@@ -1,25 +1,37 @@
 package ru.practicum.shareit.request.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorageDb;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.pagination.Pagination;
 import ru.practicum.shareit.request.dto.RequestAnswerDto;
 import ru.practicum.shareit.request.dto.RequestMapper;
 import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.storage.RequestAnswersCache;
 import ru.practicum.shareit.request.storage.RequestStorageDb;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
@@ -29,13 +41,21 @@ public class RequestService implements RequestServiceInterface {
     private final RequestStorageDb requestStorage;
     private final ItemStorageDb itemStorage;
     private final UserService userService;
-
+    private final InvalidationFeed invalidationFeed;
+    private final RequestAnswersCache answersCache;
+    private final RequestProperties requestProperties;
+    private final ObjectReader answersReader;
 
     @Autowired
-    public RequestService(RequestStorageDb requestStorage, ItemStorageDb itemStorage, UserService userService) {
+    public RequestService(RequestStorageDb requestStorage, ItemStorageDb itemStorage, UserService userService, InvalidationFeed invalidationFeed,
+                          RequestAnswersCache answersCache, RequestProperties requestProperties, ObjectMapper objectMapper) {
         this.requestStorage = requestStorage;
         this.itemStorage = itemStorage;
         this.userService = userService;
+        this.invalidationFeed = invalidationFeed;
+        this.answersCache = answersCache;
+        this.requestProperties = requestProperties;
+        this.answersReader = objectMapper.readerForListOf(ItemRequestDto.class);
     }
 
     @Override
@@ -47,21 +67,37 @@ public class RequestService implements RequestServiceInterface {
         request.setRequestor(requestor);
         request.setDescription(newRequest.getDescription());
 
-        return requestStorage.save(request);
+        Request createdRequest = requestStorage.save(request);
+        invalidationFeed.publish(InvalidationFeed.requestTag(createdRequest.getId()));
+
+        return createdRequest;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Collection<RequestAnswerDto> getAll(int userId) {
         User requestor = userService.getUserById(userId);
-        Collection<Request> userRequests = requestStorage.findRequestsByRequestor(requestor);
-        Collection<Item> requestedItems = itemStorage.findItemsByRequestInAndOwnerIsNot(userRequests, requestor);
 
-        if (requestedItems.size() > 0) {
-            return getItemRequestsWithResponses(requestedItems);
+        switch (requestProperties.getPlatform()) {
+            case "postgresql":
+                return fromAggregatedRows(requestStorage.findRequestorRequestsWithAnswersJsonAgg(requestor.getId()));
+            case "h2":
+                return fromAggregatedRows(requestStorage.findRequestorRequestsWithAnswersJsonArrayAgg(requestor.getId()));
+            default:
+                List<Request> userRequests = requestStorage.findRequestsByRequestorOrderByCreatedDescIdDesc(requestor);
+                Map<Integer, List<Item>> requestIdToItems = itemStorage.findItemsByRequestInAndOwnerIsNot(userRequests, requestor).stream()
+                        .collect(groupingBy(item -> item.getRequest().getId(), toList()));
+
+                return userRequests.stream()
+                        .map(request -> RequestMapper.toRequestAnswerDto(request, requestIdToItems.getOrDefault(request.getId(), List.of())))
+                        .collect(toList());
         }
+    }
 
-        return userRequests.stream().map(request -> RequestMapper.toRequestAnswerDto(request, requestedItems)).collect(toList());
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getAllETag(int userId) {
+        return requestStorage.getRequestorRequestsVersions(userId).stream().findFirst().map(versions -> EntityTags.of("requests", versions));
     }
 
     @Override
@@ -74,10 +110,25 @@ public class RequestService implements RequestServiceInterface {
         int newFrom = Pagination.adjustFrom(from, size);
 
         User user = userService.getUserById(userId);
-        Collection<Request> otherUsersRequests = requestStorage.findRequestsByRequestorNot(user, PageRequest.of(newFrom, size));
-        Collection<Item> otherUsersRequestedItems = itemStorage.findItemsByRequestIn(otherUsersRequests);
+        List<Request> otherUsersRequests = requestStorage.findRequestsByRequestorNotOrderByCreatedDescIdDesc(user, PageRequest.of(newFrom, size));
+
+        return withAnswers(otherUsersRequests);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<RequestAnswerDto> getAllOtherUsersRequests(int userId, String cursor, int size) {
+        if (!Pagination.isValid(0, size)) {
+            throw new ValidationException("некорректная пагинация");
+        }
+
+        Cursor after = Cursor.isFirstPage(cursor) ? Cursor.of(Cursor.MAX_TIME, Integer.MAX_VALUE) : Cursor.decode(cursor);
+        User user = userService.getUserById(userId);
+        List<Request> otherUsersRequests = requestStorage.findOtherUsersRequestsBeforeCursor(user, after.getTime(), after.getId(), PageRequest.of(0, size));
+        Map<Integer, List<ItemRequestDto>> answers = answersCache.getAnswers(otherUsersRequests.stream().map(Request::getId).collect(toList()));
 
-        return getItemRequestsWithResponses(otherUsersRequestedItems);
+        return CursorPage.of(otherUsersRequests, size, request -> Cursor.of(request.getCreated(), request.getId()))
+                .map(request -> RequestMapper.toRequestAnswerDtoWithItemDtos(request, answers.get(request.getId())));
     }
 
     @Override
@@ -85,9 +136,8 @@ public class RequestService implements RequestServiceInterface {
     public RequestAnswerDto getRequestByIdFull(int userId, int requestId) {
         User user = userService.getUserById(userId);
         Request request = getItemRequestById(user.getId(), requestId);
-        Collection<Item> requestedItems = itemStorage.findItemsByRequestIn(List.of(request));
 
-        return RequestMapper.toRequestAnswerDto(request, requestedItems);
+        return withAnswers(List.of(request)).get(0);
     }
 
     @Override
@@ -96,12 +146,35 @@ public class RequestService implements RequestServiceInterface {
         return requestStorage.findById(requestId).orElseThrow(() -> new NotFoundException("нет товара с id " + requestId));
     }
 
-    private Collection<RequestAnswerDto> getItemRequestsWithResponses(Collection<Item> requestedItems) {
-        Map<Request, List<Item>> requestToItemsMap = requestedItems.stream().collect(groupingBy(Item::getRequest, toList()));
+    /**
+     * Ответы берутся из RequestAnswersCache, поэтому страница уже прочитанных запросов стоит
+     * одного запроса к базе.
+     */
+    private List<RequestAnswerDto> withAnswers(List<Request> requests) {
+        Map<Integer, List<ItemRequestDto>> answers = answersCache.getAnswers(requests.stream().map(Request::getId).collect(toList()));
+
+        return requests.stream()
+                .map(request -> RequestMapper.toRequestAnswerDtoWithItemDtos(request, answers.get(request.getId())))
+                .collect(toList());
+    }
 
-        Collection<RequestAnswerDto> result = new ArrayList<>();
-        for (Request key : requestToItemsMap.keySet()) {
-            result.add(RequestMapper.toRequestAnswerDto(key, requestToItemsMap.get(key)));
+    /**
+     * Строки собираются в DTO напрямую: проекция-интерфейс создавала бы прокси на каждую строку.
+     */
+    private List<RequestAnswerDto> fromAggregatedRows(List<Object[]> rows) {
+        List<RequestAnswerDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            int requestId = ((Number) row[0]).intValue();
+            try {
+                result.add(RequestAnswerDto.builder()
+                        .id(requestId)
+                        .description((String) row[1])
+                        .created(((Timestamp) row[2]).toLocalDateTime())
+                        .items(answersReader.<List<ItemRequestDto>>readValue((String) row[3]))
+                        .build());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException("некорректные ответы на запрос с id " + requestId, e);
+            }
         }
         return result;
     }
@@ -1,17 +1,23 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.RequestAnswerDto;
 import ru.practicum.shareit.request.model.Request;
 
 import java.util.Collection;
+import java.util.Optional;
 
 public interface RequestServiceInterface {
     Request create(int userId, Request newRequest);
 
     Collection<RequestAnswerDto> getAll(int userId);
 
+    Optional<String> getAllETag(int userId);
+
     Collection<RequestAnswerDto> getAllOtherUsersRequests(int userId, int from, int size);
 
+    CursorPage<RequestAnswerDto> getAllOtherUsersRequests(int userId, String cursor, int size);
+
     RequestAnswerDto getRequestByIdFull(int userId, int requestId);
 
     Request getItemRequestById(int userId, int requestId);
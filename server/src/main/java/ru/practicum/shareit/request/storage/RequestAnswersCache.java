@@ -0,0 +1,81 @@
+package ru.practicum.shareit.request.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.AfterCommit;
+import ru.practicum.shareit.cache.ExpiringCache;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.collectingAndThen;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Вещи, ответившие на запрос, по id запроса. Недостающие запросы загружаются одним запросом к базе,
+ * дальше ответы поддерживает ItemService после фиксации транзакции. Ответы, сохраненные через
+ * другой экземпляр сервера, видны не позже чем через ttl.
+ */
+@Component
+public class RequestAnswersCache {
+    private final ItemStorageDb itemStorage;
+    private final ExpiringCache<Integer, List<ItemRequestDto>> answers;
+
+    @Autowired
+    public RequestAnswersCache(ItemStorageDb itemStorage,
+                               @Value("${shareit.requests.answers-cache.max-entries:10000}") int maxEntries,
+                               @Value("${shareit.requests.answers-cache.ttl:1m}") Duration ttl) {
+        this.itemStorage = itemStorage;
+        this.answers = new ExpiringCache<>(maxEntries, ttl);
+    }
+
+    public Map<Integer, List<ItemRequestDto>> getAnswers(Collection<Integer> requestIds) {
+        return answers.getAll(requestIds, this::load, List.of());
+    }
+
+    /**
+     * Добавляет или заменяет ответ вещи после фиксации текущей транзакции.
+     */
+    public void onAnswerSaved(Item item) {
+        if (item.getRequest() == null) {
+            return;
+        }
+        ItemRequestDto answer = ItemMapper.toItemRequestDto(item);
+        AfterCommit.run(() -> answers.update(answer.getRequestId(), cached -> put(cached, answer)));
+    }
+
+    public void clear() {
+        answers.clear();
+    }
+
+    public int size() {
+        return answers.size();
+    }
+
+    private Map<Integer, List<ItemRequestDto>> load(List<Integer> requestIds) {
+        return itemStorage.findItemRequestDtosByRequestIdIn(requestIds).stream()
+                .collect(groupingBy(ItemRequestDto::getRequestId, collectingAndThen(toList(), List::copyOf)));
+    }
+
+    private static List<ItemRequestDto> put(List<ItemRequestDto> cached, ItemRequestDto answer) {
+        List<ItemRequestDto> updated = new ArrayList<>(cached.size() + 1);
+        for (ItemRequestDto dto : cached) {
+            if (dto.getId() != answer.getId()) {
+                updated.add(dto);
+            }
+        }
+        updated.add(answer);
+        updated.sort(Comparator.comparingInt(ItemRequestDto::getId));
+        return List.copyOf(updated);
+    }
+}
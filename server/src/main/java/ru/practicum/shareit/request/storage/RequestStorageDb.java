@@ -2,14 +2,57 @@ package ru.practicum.shareit.request.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.Collection;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RequestStorageDb extends JpaRepository<Request, Integer> {
-    Collection<Request> findRequestsByRequestor(User requestor);
+    List<Request> findRequestsByRequestorOrderByCreatedDescIdDesc(User requestor);
 
-    List<Request> findRequestsByRequestorNot(User requestor, Pageable pageable);
+    /**
+     * Запросы пользователя вместе с чужими вещами, ответившими на них, за один проход: [id, description,
+     * created, JSON-массив ItemRequestDto]. Ответы собирает json_agg, запросы без ответов получают пустой массив.
+     */
+    @Query(value = "SELECT r.id, r.description, r.created, " +
+            "CAST(COALESCE(json_agg(json_build_object('id', i.id, 'name', i.name, 'description', i.description, " +
+            "'available', i.is_available, 'requestId', i.request_id) ORDER BY i.id) FILTER (WHERE i.id IS NOT NULL), '[]') AS TEXT) " +
+            "FROM item_requests r LEFT JOIN items i ON i.request_id = r.id AND i.owner_id <> r.requestor " +
+            "WHERE r.requestor = :requestorId " +
+            "GROUP BY r.id, r.description, r.created " +
+            "ORDER BY r.created DESC, r.id DESC", nativeQuery = true)
+    List<Object[]> findRequestorRequestsWithAnswersJsonAgg(@Param("requestorId") int requestorId);
+
+    /**
+     * То же для H2: вместо json_agg и json_build_object — JSON_ARRAYAGG и JSON_OBJECT.
+     */
+    @Query(value = "SELECT r.id, r.description, r.created, " +
+            "CAST(COALESCE(JSON_ARRAYAGG(JSON_OBJECT(KEY 'id' VALUE i.id, KEY 'name' VALUE i.name, KEY 'description' VALUE i.description, " +
+            "KEY 'available' VALUE i.is_available, KEY 'requestId' VALUE i.request_id) ORDER BY i.id) FILTER (WHERE i.id IS NOT NULL), JSON '[]') AS VARCHAR) " +
+            "FROM item_requests r LEFT JOIN items i ON i.request_id = r.id AND i.owner_id <> r.requestor " +
+            "WHERE r.requestor = :requestorId " +
+            "GROUP BY r.id, r.description, r.created " +
+            "ORDER BY r.created DESC, r.id DESC", nativeQuery = true)
+    List<Object[]> findRequestorRequestsWithAnswersJsonArrayAgg(@Param("requestorId") int requestorId);
+
+    List<Request> findRequestsByRequestorNotOrderByCreatedDescIdDesc(User requestor, Pageable pageable);
+
+    /**
+     * Версии для GET /requests: запросы пользователя и чужие вещи, ответившие на них,
+     * по тем же правилам, что и в ItemStorageDb.getOwnerItemsVersions. Пустой результат — нет такого пользователя.
+     */
+    @Query(value = "SELECT rv.r_count, rv.r_sum, rv.r_max_id, rv.r_max_version, " +
+            "iv.i_count, iv.i_sum, iv.i_max_id, iv.i_max_version FROM users u " +
+            "CROSS JOIN (SELECT COUNT(*) AS r_count, COALESCE(SUM(r.version), 0) AS r_sum, COALESCE(MAX(r.id), 0) AS r_max_id, COALESCE(MAX(r.version), 0) AS r_max_version " +
+            "FROM item_requests r WHERE r.requestor = :requestorId) rv " +
+            "CROSS JOIN (SELECT COUNT(*) AS i_count, COALESCE(SUM(i.version), 0) AS i_sum, COALESCE(MAX(i.id), 0) AS i_max_id, COALESCE(MAX(i.version), 0) AS i_max_version " +
+            "FROM item_requests r JOIN items i ON i.request_id = r.id WHERE r.requestor = :requestorId AND i.owner_id <> :requestorId) iv " +
+            "WHERE u.id = :requestorId", nativeQuery = true)
+    List<Object[]> getRequestorRequestsVersions(@Param("requestorId") int requestorId);
+
+    @Query("SELECT r FROM Request r WHERE r.requestor <> :requestor AND (r.created < :cursorCreated OR (r.created = :cursorCreated AND r.id < :cursorId)) ORDER BY r.created DESC, r.id DESC")
+    List<Request> findOtherUsersRequestsBeforeCursor(@Param("requestor") User requestor, @Param("cursorCreated") LocalDateTime cursorCreated, @Param("cursorId") int cursorId, Pageable pageable);
 }
@@ -3,12 +3,14 @@ package ru.practicum.shareit.user.model;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import org.hibernate.annotations.DynamicUpdate;
+import ru.practicum.shareit.user.storage.UserEmailListener;
 
 import javax.persistence.*;
 
 @Entity
 @DynamicUpdate
 @Table(name = "users", schema = "public")
+@EntityListeners(UserEmailListener.class)
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -22,4 +24,6 @@ public class User {
     String name;
     @Column(nullable = false)
     String email;
+    @Version
+    int version;
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Публикуется в транзакции переименования: слушатели из других модулей сбрасывают копии имени.
+ */
+@Getter
+@AllArgsConstructor
+public class UserRenamedEvent {
+    private final int userId;
+}
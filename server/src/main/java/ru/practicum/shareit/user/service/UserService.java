@@ -1,41 +1,67 @@
 package ru.practicum.shareit.user.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.DuplicateEmailException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserEmailIndex;
 import ru.practicum.shareit.user.storage.UserStorageDb;
 
 import java.util.Collection;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 public class UserService implements UserServiceInterface {
+    private static final String EMAIL_CONSTRAINT = "uq_user_email";
+
     private final UserStorageDb userStorage;
+    private final UserEmailIndex emailIndex;
+    private final InvalidationFeed invalidationFeed;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public UserService(UserStorageDb userStorage) {
+    public UserService(UserStorageDb userStorage, UserEmailIndex emailIndex, InvalidationFeed invalidationFeed, ApplicationEventPublisher eventPublisher) {
         this.userStorage = userStorage;
+        this.emailIndex = emailIndex;
+        this.invalidationFeed = invalidationFeed;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildEmailIndex() {
+        try (Stream<String> emails = userStorage.findAllEmails()) {
+            emailIndex.rebuild(userStorage.count(), emails::iterator);
+        }
     }
 
     @Override
     @Transactional
     public User create(User user) {
-        Boolean isDuplicate = duplicateEmail(user.getId(), user);
-        User u = userStorage.save(user);
-        if (isDuplicate) {
-            userStorage.deleteById(u.getId());
+        if (isEmailTaken(user.getEmail(), user.getId())) {
             throw new DuplicateEmailException("есть такой email " + user.getEmail());
         }
-        return u;
+        return saveUser(user);
     }
 
     @Override
     @Transactional
+    @Retryable(value = OptimisticLockingFailureException.class, maxAttemptsExpression = "${shareit.retry.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${shareit.retry.delay:10}", multiplierExpression = "${shareit.retry.multiplier:2}", random = true))
     public User update(int id, User user) {
-        if (duplicateEmail(id, user)) {
+        if (isEmailTaken(user.getEmail(), id)) {
             throw new DuplicateEmailException("есть такой email " + user.getEmail());
         }
         User userToUpdate = userStorage.findById(id).orElseThrow(() -> new NotFoundException("нет пользователя с id " + id));
@@ -43,21 +69,30 @@ public class UserService implements UserServiceInterface {
         newUser.setId(userToUpdate.getId());
         newUser.setName(userToUpdate.getName());
         newUser.setEmail(userToUpdate.getEmail());
+        newUser.setVersion(userToUpdate.getVersion());
 
         if (Objects.nonNull(user.getEmail())) {
             newUser.setEmail(user.getEmail());
         }
-        if (Objects.nonNull(user.getName())) {
+        boolean renamed = Objects.nonNull(user.getName()) && !user.getName().equals(userToUpdate.getName());
+        if (renamed) {
             newUser.setName(user.getName());
         }
 
-        return userStorage.save(newUser);
+        User updatedUser = saveUser(newUser);
+        invalidationFeed.publish(InvalidationFeed.userTag(id));
+        if (renamed) {
+            eventPublisher.publishEvent(new UserRenamedEvent(id));
+        }
+
+        return updatedUser;
     }
 
     @Override
     @Transactional
     public void delete(int id) {
         userStorage.deleteById(id);
+        invalidationFeed.publish(InvalidationFeed.userTag(id));
     }
 
     @Override
@@ -72,9 +107,24 @@ public class UserService implements UserServiceInterface {
         return userStorage.findAll();
     }
 
-    private Boolean duplicateEmail(int id, User user) {
-        for (User u : userStorage.findAll()) {
-            if (u.getEmail().equals(user.getEmail()) && u.getId() != id) {
+    public boolean isEmailTaken(String email, int userId) {
+        return emailIndex.mightContain(email) && userStorage.existsByEmailAndIdNot(email, userId);
+    }
+
+    private User saveUser(User user) {
+        try {
+            return userStorage.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailViolation(e)) {
+                throw new DuplicateEmailException("есть такой email " + user.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isEmailViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().toLowerCase(Locale.ROOT).contains(EMAIL_CONSTRAINT)) {
                 return true;
             }
         }
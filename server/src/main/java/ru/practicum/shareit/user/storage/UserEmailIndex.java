@@ -0,0 +1,104 @@
+package ru.practicum.shareit.user.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума по email пользователей. Отрицательный ответ mightContain точный,
+ * поэтому проверка уникальности нового email обычно обходится без запроса в базу.
+ * Удаление не поддерживается: email удаленного пользователя дает лишь ложное срабатывание.
+ */
+@Component
+public class UserEmailIndex {
+    private final int expectedSize;
+    private final double falsePositiveRate;
+    private volatile Filter filter;
+
+    public UserEmailIndex(@Value("${shareit.users.email-filter.expected-size:1000000}") int expectedSize,
+                          @Value("${shareit.users.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.expectedSize = expectedSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new Filter(expectedSize, falsePositiveRate);
+    }
+
+    public void add(String email) {
+        if (email != null) {
+            filter.add(email);
+        }
+    }
+
+    public boolean mightContain(String email) {
+        return email != null && filter.mightContain(email);
+    }
+
+    public void rebuild(long userCount, Iterable<String> emails) {
+        Filter rebuilt = new Filter(Math.max(expectedSize, userCount * 2), falsePositiveRate);
+        for (String email : emails) {
+            rebuilt.add(email);
+        }
+        filter = rebuilt;
+    }
+
+    private static final class Filter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        Filter(long expectedSize, double falsePositiveRate) {
+            long size = (long) Math.ceil(-expectedSize * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (size + 63) / 64));
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedSize * Math.log(2)));
+        }
+
+        void add(String email) {
+            long hash = hash(email);
+            long h1 = hash;
+            long h2 = mix(hash);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String email) {
+            long hash = hash(email);
+            long h1 = hash;
+            long h2 = mix(hash);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String email) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : email.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        private static long mix(long value) {
+            value ^= value >>> 33;
+            value *= 0xff51afd7ed558ccdL;
+            value ^= value >>> 33;
+            value *= 0xc4ceb9fe1a85ec53L;
+            value ^= value >>> 33;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.user.storage;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+
+@Component
+public class UserEmailListener {
+    private final ObjectProvider<UserEmailIndex> emailIndex;
+
+    @Autowired
+    public UserEmailListener(ObjectProvider<UserEmailIndex> emailIndex) {
+        this.emailIndex = emailIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(User user) {
+        emailIndex.ifAvailable(index -> index.add(user.getEmail()));
+    }
+}
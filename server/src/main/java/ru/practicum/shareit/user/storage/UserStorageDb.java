@@ -1,7 +1,14 @@
 package ru.practicum.shareit.user.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.stream.Stream;
+
 public interface UserStorageDb extends JpaRepository<User, Integer> {
+    boolean existsByEmailAndIdNot(String email, int id);
+
+    @Query("SELECT u.email FROM User u")
+    Stream<String> findAllEmails();
 }
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS ix_comments_author ON comments (author_id);
@@ -0,0 +1,13 @@
+DROP TABLE IF EXISTS invalidation_feed;
+
+CREATE TABLE invalidation_feed
+(
+    id  BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    tag VARCHAR(512) NOT NULL,
+    CONSTRAINT pk_invalidation_feed PRIMARY KEY (id)
+);
+
+ALTER TABLE invalidation_state DROP COLUMN IF EXISTS last_id;
+ALTER TABLE invalidation_state ADD COLUMN IF NOT EXISTS trimmed_through BIGINT NOT NULL DEFAULT 0;
+
+UPDATE invalidation_state SET epoch = CAST(LOCALTIMESTAMP AS VARCHAR(64)), trimmed_through = 0 WHERE id = 1;
@@ -0,0 +1,15 @@
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item_id, start_date);
+
+CREATE TABLE IF NOT EXISTS item_booking_summary
+(
+    item_id         BIGINT NOT NULL,
+    last_booking_id BIGINT,
+    next_booking_id BIGINT,
+    valid_until     TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_item_booking_summary PRIMARY KEY (item_id),
+    CONSTRAINT fk_summary_item FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_summary_last_booking FOREIGN KEY (last_booking_id) REFERENCES bookings (id),
+    CONSTRAINT fk_summary_next_booking FOREIGN KEY (next_booking_id) REFERENCES bookings (id)
+    );
+
+CREATE INDEX IF NOT EXISTS ix_item_booking_summary_valid_until ON item_booking_summary (valid_until);
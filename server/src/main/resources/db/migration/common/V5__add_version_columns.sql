@@ -0,0 +1,5 @@
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE comments ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE item_requests ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
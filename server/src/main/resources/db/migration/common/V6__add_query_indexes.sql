@@ -0,0 +1,7 @@
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_status_end ON bookings (item_id, status, end_date);
+CREATE INDEX IF NOT EXISTS ix_items_owner ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS ix_items_request ON items (request_id, id);
+CREATE INDEX IF NOT EXISTS ix_item_requests_created ON item_requests (created DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_item_requests_requestor ON item_requests (requestor, created DESC, id DESC);
+CREATE INDEX IF NOT EXISTS ix_comments_item_created ON comments (item_id, created DESC, id DESC);
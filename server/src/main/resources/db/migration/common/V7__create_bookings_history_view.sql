@@ -0,0 +1,5 @@
+CREATE SCHEMA IF NOT EXISTS archive;
+
+CREATE VIEW archive.bookings_history AS
+SELECT id, start_date, end_date, item_id, booker_id, status, version
+FROM bookings;
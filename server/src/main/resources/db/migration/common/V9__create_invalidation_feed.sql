@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS invalidation_state
+(
+    id      INTEGER     NOT NULL,
+    epoch   VARCHAR(64) NOT NULL,
+    last_id BIGINT      NOT NULL,
+    CONSTRAINT pk_invalidation_state PRIMARY KEY (id)
+);
+
+INSERT INTO invalidation_state (id, epoch, last_id)
+SELECT 1, CAST(LOCALTIMESTAMP AS VARCHAR(64)), 0
+WHERE NOT EXISTS (SELECT 1 FROM invalidation_state WHERE id = 1);
+
+CREATE TABLE IF NOT EXISTS invalidation_feed
+(
+    id  BIGINT       NOT NULL,
+    tag VARCHAR(512) NOT NULL,
+    CONSTRAINT pk_invalidation_feed PRIMARY KEY (id)
+);
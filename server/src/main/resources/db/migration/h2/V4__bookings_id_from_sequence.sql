@@ -0,0 +1,3 @@
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY;
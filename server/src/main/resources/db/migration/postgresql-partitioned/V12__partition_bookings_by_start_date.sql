@@ -0,0 +1,36 @@
+DROP VIEW archive.bookings_history;
+
+ALTER TABLE item_booking_summary DROP CONSTRAINT IF EXISTS fk_summary_last_booking;
+ALTER TABLE item_booking_summary DROP CONSTRAINT IF EXISTS fk_summary_next_booking;
+
+ALTER TABLE bookings RENAME TO bookings_unpartitioned;
+
+CREATE TABLE bookings
+(
+    id         BIGINT                      NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT,
+    status     VARCHAR(20),
+    version    INTEGER DEFAULT 0           NOT NULL,
+    CONSTRAINT pk_booking_id_start PRIMARY KEY (id, start_date),
+    CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_booking_booker FOREIGN KEY (booker_id) REFERENCES users (id)
+) PARTITION BY RANGE (start_date);
+
+CREATE TABLE bookings_default PARTITION OF bookings DEFAULT;
+
+INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status, version)
+SELECT id, start_date, end_date, item_id, booker_id, status, version
+FROM bookings_unpartitioned;
+
+DROP TABLE bookings_unpartitioned;
+
+CREATE INDEX ix_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX ix_bookings_item_start ON bookings (item_id, start_date);
+CREATE INDEX ix_bookings_item_status_end ON bookings (item_id, status, end_date);
+
+CREATE VIEW archive.bookings_history AS
+SELECT id, start_date, end_date, item_id, booker_id, status, version
+FROM bookings;
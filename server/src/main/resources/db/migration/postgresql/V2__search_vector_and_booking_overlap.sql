@@ -0,0 +1,17 @@
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (to_tsvector('simple', name || ' ' || description)) STORED;
+
+CREATE INDEX IF NOT EXISTS ix_items_search_vector ON items USING gin (search_vector);
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ''ex_bookings_item_period'') THEN
+        ALTER TABLE bookings ADD CONSTRAINT ex_bookings_item_period
+            EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+            WHERE (status <> ''REJECTED'');
+    END IF;
+END;
+';
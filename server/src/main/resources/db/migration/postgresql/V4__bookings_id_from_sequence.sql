@@ -0,0 +1,5 @@
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+SELECT setval('bookings_seq', GREATEST((SELECT last_value FROM bookings_seq), (SELECT COALESCE(MAX(id), 0) FROM bookings) + 50));
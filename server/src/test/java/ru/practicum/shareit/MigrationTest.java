@@ -0,0 +1,44 @@
+package ru.practicum.shareit;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * База, созданная прежним schema.sql, получает базовую версию 1 и доводится до текущей схемы миграциями V2+.
+ */
+public class MigrationTest {
+    @Test
+    void testBaselinedDatabaseMigratedToCurrentSchema() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:baseline;DB_CLOSE_DELAY=-1", "root", "root");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try (InputStream schema = getClass().getResourceAsStream("/db/migration/common/V1__create_tables.sql")) {
+            jdbcTemplate.execute(StreamUtils.copyToString(schema, StandardCharsets.UTF_8));
+        }
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('user', 'user@mail.com')");
+        jdbcTemplate.update("INSERT INTO items (name, description, is_available, owner_id) VALUES ('item', 'description', TRUE, 1)");
+        jdbcTemplate.update("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) VALUES (NOW(), NOW(), 1, 1, 'WAITING')");
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load().migrate();
+
+        Map<String, Object> booking = jdbcTemplate.queryForMap("SELECT id, version FROM bookings");
+        assertThat(booking).containsEntry("VERSION", 0);
+        Long nextId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR bookings_seq", Long.class);
+        assertThat(nextId).isNotNull();
+        jdbcTemplate.update("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) VALUES (?, NOW(), NOW(), 1, 1, 'WAITING')", nextId + 1);
+        jdbcTemplate.update("INSERT INTO item_booking_summary (item_id, last_booking_id) VALUES (1, ?)", booking.get("ID"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM archive.bookings_history", Integer.class)).isEqualTo(2);
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+}
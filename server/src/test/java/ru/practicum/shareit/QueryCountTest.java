@@ -0,0 +1,179 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.ItemBookingSummaryService;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.storage.ItemCommentsCache;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.storage.RequestAnswersCache;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Фиксирует число SQL-запросов на эндпоинт, чтобы N+1 после ленивых связей не вернулся незаметно.
+ * Тест не транзакционный: запросы идут мимо контекста персистентности теста, как в проде.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class QueryCountTest {
+    private static final int BOOKINGS = 10;
+
+    private final MockMvc mvc;
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final PlatformTransactionManager transactionManager;
+    private final ItemBookingSummaryService summaryService;
+    private final RequestAnswersCache answersCache;
+    private final ItemCommentsCache commentsCache;
+    private User owner;
+    private User booker;
+    private Item item;
+    private Request request;
+    private Booking waiting;
+
+    @BeforeAll
+    void beforeAll() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            owner = new User();
+            owner.setName("owner");
+            owner.setEmail("owner@mail.com");
+            em.persist(owner);
+
+            booker = new User();
+            booker.setName("booker");
+            booker.setEmail("booker@mail.com");
+            em.persist(booker);
+
+            request = new Request();
+            request.setDescription("Нужна дрель");
+            request.setRequestor(booker);
+            em.persist(request);
+
+            for (int i = 0; i < 3; i++) {
+                Item answer = new Item();
+                answer.setName("Дрель " + i);
+                answer.setDescription("Дрель с аккумулятором");
+                answer.setAvailable(true);
+                answer.setOwner(owner);
+                answer.setRequest(request);
+                em.persist(answer);
+                item = answer;
+            }
+
+            for (int i = 0; i < BOOKINGS; i++) {
+                Booking booking = Booking.builder()
+                        .start(now.plusDays(2L * i - BOOKINGS))
+                        .end(now.plusDays(2L * i - BOOKINGS + 1))
+                        .item(item)
+                        .booker(booker)
+                        .status(i == BOOKINGS - 1 ? BookingStatus.WAITING : BookingStatus.APPROVED)
+                        .build();
+                em.persist(booking);
+                waiting = booking;
+            }
+
+            em.persist(Comment.builder().text("Отличная дрель").item(item).author(booker).created(now).build());
+        });
+        summaryService.refreshOutdated();
+    }
+
+    @Test
+    void testGetBookingById() throws Exception {
+        assertThat(statements(get("/bookings/{id}", waiting.getId()).header("X-Sharer-User-Id", booker.getId()))).isEqualTo(1);
+    }
+
+    @Test
+    void testGetUserBookings() throws Exception {
+        assertThat(statements(get("/bookings").header("X-Sharer-User-Id", booker.getId()))).isEqualTo(2);
+        assertThat(statements(get("/bookings").param("cursor", "").param("size", "3").header("X-Sharer-User-Id", booker.getId()))).isEqualTo(2);
+    }
+
+    @Test
+    void testGetOwnedItemsBookings() throws Exception {
+        assertThat(statements(get("/bookings/owner").header("X-Sharer-User-Id", owner.getId()))).isEqualTo(2);
+        assertThat(statements(get("/bookings/owner").param("state", "PAST").header("X-Sharer-User-Id", owner.getId()))).isEqualTo(2);
+    }
+
+    @Test
+    void testApprove() throws Exception {
+        assertThat(statements(patch("/bookings/{id}", waiting.getId()).param("approved", "true").header("X-Sharer-User-Id", owner.getId()))).isEqualTo(3);
+    }
+
+    @Test
+    void testGetItems() throws Exception {
+        commentsCache.clear();
+        assertThat(statements(get("/items").header("X-Sharer-User-Id", owner.getId()))).isEqualTo(5);
+        assertThat(statements(get("/items").header("X-Sharer-User-Id", owner.getId()))).isEqualTo(4);
+        commentsCache.clear();
+        assertThat(statements(get("/items/{id}", item.getId()).header("X-Sharer-User-Id", owner.getId()))).isEqualTo(5);
+        assertThat(statements(get("/items/{id}", item.getId()).header("X-Sharer-User-Id", owner.getId()))).isEqualTo(4);
+        assertThat(statements(get("/items/{id}/comments", item.getId()).header("X-Sharer-User-Id", booker.getId()))).isEqualTo(2);
+        assertThat(statements(get("/items/search").param("text", "дрель").header("X-Sharer-User-Id", booker.getId()))).isEqualTo(0);
+    }
+
+    @Test
+    void testGetRequests() throws Exception {
+        assertThat(statements(get("/requests").header("X-Sharer-User-Id", booker.getId()))).isEqualTo(3);
+        answersCache.clear();
+        assertThat(statements(get("/requests/all").header("X-Sharer-User-Id", owner.getId()))).isEqualTo(3);
+        assertThat(statements(get("/requests/all").header("X-Sharer-User-Id", owner.getId()))).isEqualTo(2);
+        assertThat(statements(get("/requests/{id}", request.getId()).header("X-Sharer-User-Id", owner.getId()))).isEqualTo(2);
+    }
+
+    @Test
+    void testConditionalGets() throws Exception {
+        for (String path : new String[]{"/items", "/items/" + item.getId()}) {
+            String eTag = mvc.perform(get(path).header("X-Sharer-User-Id", owner.getId())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertThat(notModifiedStatements(get(path).header("X-Sharer-User-Id", owner.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))).isEqualTo(1);
+        }
+        String eTag = mvc.perform(get("/requests").header("X-Sharer-User-Id", booker.getId())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(notModifiedStatements(get("/requests").header("X-Sharer-User-Id", booker.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))).isEqualTo(1);
+    }
+
+    private long notModifiedStatements(RequestBuilder requestBuilder) throws Exception {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mvc.perform(requestBuilder).andExpect(status().isNotModified());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statements(RequestBuilder requestBuilder) throws Exception {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mvc.perform(requestBuilder).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Те же планы на PostgreSQL 16+: EXPLAIN (GENERIC_PLAN) строит план без значений параметров, а с выключенным
+ * enable_seqscan Seq Scan в плане остается только там, где подходящего индекса нет.
+ * mvn test -Ppostgres -Dtest='*PostgresTest' -Dpostgres.url=jdbc:postgresql://localhost:5432/shareit_test
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.QueryPlanTest$Recorder",
+        "spring.datasource.driverClassName=org.postgresql.Driver",
+        "spring.datasource.url=${postgres.url}",
+        "spring.datasource.username=${postgres.user:postgres}",
+        "spring.datasource.password=${postgres.password:postgres}",
+        "spring.sql.init.platform=postgresql"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+public class QueryPlanPostgresTest extends QueryPlanTest {
+    @Override
+    protected Set<String> otherPlatformQueries() {
+        return Set.of("findRequestorRequestsWithAnswersJsonArrayAgg");
+    }
+
+    @Override
+    protected Set<String> fullScans() {
+        return FULL_SCANS;
+    }
+
+    @Override
+    protected List<String> indexNames() {
+        return jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE schemaname = 'public'", String.class);
+    }
+
+    @Override
+    protected String explain(String sql) {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numberParameters(sql), String.class));
+    }
+
+    @Override
+    protected boolean scansTable(String plan) {
+        return plan.contains("Seq Scan");
+    }
+
+    /**
+     * JDBC-параметры ? в нумерованные $1, $2, ..., которые понимает EXPLAIN (GENERIC_PLAN).
+     */
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        boolean quoted = false;
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+}
@@ -0,0 +1,270 @@
+package ru.practicum.shareit;
+
+import org.assertj.core.api.SoftAssertions;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingHistoryStorageDb;
+import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryStorageDb;
+import ru.practicum.shareit.comment.storage.CommentStorageDb;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.storage.RequestStorageDb;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorageDb;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет через EXPLAIN, что ни один запрос репозиториев не просматривает таблицу целиком, кроме явно перечисленных
+ * в fullScans. H2 сам индексирует внешние ключи, PostgreSQL — нет, поэтому те же проверки повторяет QueryPlanPostgresTest.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=ru.practicum.shareit.QueryPlanTest$Recorder")
+public class QueryPlanTest {
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final List<Class<?>> REPOSITORIES = List.of(BookingStorageDb.class, BookingHistoryStorageDb.class,
+            ItemBookingSummaryStorageDb.class, CommentStorageDb.class, ItemStorageDb.class, RequestStorageDb.class, UserStorageDb.class);
+    /**
+     * Полные выборки по смыслу: выгрузка всех email, перестроение поискового индекса и поиск вещей без сводки.
+     */
+    protected static final Set<String> FULL_SCANS = Set.of("findAllEmails", "findAvailableForSearch", "findItemIdsWithoutSummary");
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private BookingStorageDb bookingStorage;
+    @Autowired
+    private BookingHistoryStorageDb historyStorage;
+    @Autowired
+    private ItemBookingSummaryStorageDb summaryStorage;
+    @Autowired
+    private ItemStorageDb itemStorage;
+    @Autowired
+    private CommentStorageDb commentStorage;
+    @Autowired
+    private RequestStorageDb requestStorage;
+    @Autowired
+    private UserStorageDb userStorage;
+
+    private User user;
+    private Item item;
+    private Request request;
+
+    @BeforeEach
+    void beforeEach() {
+        user = new User();
+        user.setName("user");
+        user.setEmail("user@mail.com");
+        em.persist(user);
+
+        request = new Request();
+        request.setDescription("request");
+        request.setRequestor(user);
+        em.persist(request);
+
+        item = new Item();
+        item.setName("item");
+        item.setDescription("description");
+        item.setAvailable(true);
+        item.setOwner(user);
+        em.persist(item);
+        em.flush();
+    }
+
+    @Test
+    void testMigrationsCreateQueryIndexes() {
+        List<String> indexes = indexNames().stream().map(String::toUpperCase).collect(Collectors.toList());
+
+        assertThat(indexes).contains("IX_BOOKINGS_BOOKER_START", "IX_BOOKINGS_ITEM_START", "IX_BOOKINGS_ITEM_STATUS_END",
+                "IX_ITEMS_OWNER", "IX_ITEMS_REQUEST", "IX_COMMENTS_ITEM_CREATED", "IX_COMMENTS_AUTHOR", "IX_ITEM_REQUESTS_REQUESTOR",
+                "IX_ITEM_REQUESTS_CREATED", "IX_ITEM_BOOKING_SUMMARY_VALID_UNTIL");
+    }
+
+    @Test
+    void testEveryRepositoryQueryChecked() {
+        Set<String> declared = REPOSITORIES.stream()
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods()))
+                .filter(method -> !method.isDefault() && !method.isSynthetic())
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+
+        assertThat(queries().keySet()).containsAll(declared);
+    }
+
+    @Test
+    void testQueriesUseIndex() {
+        SoftAssertions softly = new SoftAssertions();
+        queries().forEach((name, query) -> {
+            if (otherPlatformQueries().contains(name)) {
+                return;
+            }
+            Recorder.STATEMENTS.clear();
+            query.run();
+            List<String> selects = Recorder.STATEMENTS.stream()
+                    .filter(sql -> sql.stripLeading().regionMatches(true, 0, "select", 0, 6))
+                    .collect(Collectors.toList());
+            softly.assertThat(selects).as(name).isNotEmpty();
+            if (fullScans().contains(name)) {
+                return;
+            }
+            for (String sql : selects) {
+                String plan = explain(sql);
+                softly.assertThat(scansTable(plan)).as(name + "\n" + plan).isFalse();
+            }
+        });
+        softly.assertAll();
+    }
+
+    /**
+     * Каждый метод репозиториев с параметрами, при которых он доходит до базы.
+     */
+    private Map<String, Runnable> queries() {
+        PageRequest page = PageRequest.of(0, 20);
+        LocalDateTime end = NOW.plusDays(1);
+        int userId = user.getId();
+        int itemId = item.getId();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+
+        queries.put("findById", () -> {
+            bookingStorage.findById(1);
+            historyStorage.findById(1);
+        });
+        queries.put("findBookingsByBookerOrderByStartDesc", () -> bookingStorage.findBookingsByBookerOrderByStartDesc(user, page));
+        queries.put("findBookingsByBookerAndStatusOrderByStartDesc", () -> bookingStorage.findBookingsByBookerAndStatusOrderByStartDesc(user, BookingStatus.WAITING, page));
+        queries.put("findBookingsByBookerAndStartAfterOrderByStartDesc", () -> bookingStorage.findBookingsByBookerAndStartAfterOrderByStartDesc(user, NOW, page));
+        queries.put("findBookingsByBookerAndEndBeforeOrderByStartDesc", () -> bookingStorage.findBookingsByBookerAndEndBeforeOrderByStartDesc(user, NOW, page));
+        queries.put("findBookingsByBookerAndStartBeforeAndEndAfterOrderByStartDesc", () -> bookingStorage.findBookingsByBookerAndStartBeforeAndEndAfterOrderByStartDesc(user, NOW, NOW, page));
+        queries.put("findBookingsByOwnerOrderByStartDesc", () -> bookingStorage.findBookingsByOwnerOrderByStartDesc(user, page));
+        queries.put("findBookingsByOwnerAndStatusOrderByStartDesc", () -> bookingStorage.findBookingsByOwnerAndStatusOrderByStartDesc(user, BookingStatus.WAITING, page));
+        queries.put("findBookingsByOwnerAndStartAfterOrderByStartDesc", () -> bookingStorage.findBookingsByOwnerAndStartAfterOrderByStartDesc(user, NOW, page));
+        queries.put("findBookingsByOwnerAndEndBeforeOrderByStartDesc", () -> bookingStorage.findBookingsByOwnerAndEndBeforeOrderByStartDesc(user, NOW, page));
+        queries.put("findBookingsByOwnerAndStartBeforeAndEndAfterOrderByStartDesc", () -> bookingStorage.findBookingsByOwnerAndStartBeforeAndEndAfterOrderByStartDesc(user, NOW, NOW, page));
+        queries.put("findBookingsByBookerBeforeCursor", () -> bookingStorage.findBookingsByBookerBeforeCursor(user, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findBookingsByBookerAndStatusBeforeCursor", () -> bookingStorage.findBookingsByBookerAndStatusBeforeCursor(user, BookingStatus.WAITING, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findFutureBookingsByBookerBeforeCursor", () -> bookingStorage.findFutureBookingsByBookerBeforeCursor(user, NOW, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findPastBookingsByBookerBeforeCursor", () -> bookingStorage.findPastBookingsByBookerBeforeCursor(user, NOW, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findCurrentBookingsByBookerBeforeCursor", () -> bookingStorage.findCurrentBookingsByBookerBeforeCursor(user, NOW, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findBookingsByOwnerBeforeCursor", () -> bookingStorage.findBookingsByOwnerBeforeCursor(user, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findBookingsByOwnerAndStatusBeforeCursor", () -> bookingStorage.findBookingsByOwnerAndStatusBeforeCursor(user, BookingStatus.WAITING, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findFutureBookingsByOwnerBeforeCursor", () -> bookingStorage.findFutureBookingsByOwnerBeforeCursor(user, NOW, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findPastBookingsByOwnerBeforeCursor", () -> bookingStorage.findPastBookingsByOwnerBeforeCursor(user, NOW, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findCurrentBookingsByOwnerBeforeCursor", () -> bookingStorage.findCurrentBookingsByOwnerBeforeCursor(user, NOW, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findPastBookingsByBookerWithArchiveBeforeCursor", () -> bookingStorage.findPastBookingsByBookerWithArchiveBeforeCursor(userId, NOW, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findPastBookingsByOwnerWithArchiveBeforeCursor", () -> bookingStorage.findPastBookingsByOwnerWithArchiveBeforeCursor(userId, NOW, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("streamBookingsByBooker", () -> {
+            try (Stream<?> bookings = bookingStorage.streamBookingsByBooker(user)) {
+                bookings.count();
+            }
+        });
+        queries.put("streamBookingsByOwner", () -> {
+            try (Stream<?> bookings = bookingStorage.streamBookingsByOwner(user)) {
+                bookings.count();
+            }
+        });
+        queries.put("findBookingsByItemInAndStatusNot", () -> bookingStorage.findBookingsByItemInAndStatusNot(List.of(item), BookingStatus.REJECTED));
+        queries.put("existsOverlapping", () -> bookingStorage.existsOverlapping(itemId, 0, NOW, end, BookingStatus.REJECTED));
+        queries.put("findIntervalsByItemIdAndStatusNot", () -> bookingStorage.findIntervalsByItemIdAndStatusNot(itemId, BookingStatus.REJECTED, NOW, end));
+        queries.put("findIntervalsByItemIdInAndStatusNot", () -> bookingStorage.findIntervalsByItemIdInAndStatusNot(List.of(itemId), BookingStatus.REJECTED, NOW, end));
+
+        queries.put("existsFinished", () -> historyStorage.existsFinished(userId, itemId, NOW, BookingStatus.APPROVED));
+        queries.put("getItemsLastBookings", () -> historyStorage.getItemsLastBookings(List.of(item)));
+        queries.put("getItemsNextBookings", () -> historyStorage.getItemsNextBookings(List.of(item)));
+
+        queries.put("findByItemIdIn", () -> summaryStorage.findByItemIdIn(List.of(itemId)));
+        queries.put("findStaleItemIds", () -> summaryStorage.findStaleItemIds(NOW, page));
+        queries.put("findItemIdsWithoutSummary", () -> summaryStorage.findItemIdsWithoutSummary(page));
+
+        queries.put("findItemCommentsBeforeCursor", () -> commentStorage.findItemCommentsBeforeCursor(itemId, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+        queries.put("findRecentComments", () -> commentStorage.findRecentComments(List.of(itemId), 10));
+        queries.put("findCommentedItemIds", () -> commentStorage.findCommentedItemIds(userId));
+
+        queries.put("findItemByOwner", () -> itemStorage.findItemByOwner(user));
+        queries.put("findByIdForUpdate", () -> itemStorage.findByIdForUpdate(itemId));
+        queries.put("findAllByIdInForUpdate", () -> itemStorage.findAllByIdInForUpdate(List.of(itemId)));
+        queries.put("searchItems", () -> itemStorage.searchItems("item", page));
+        queries.put("searchItemsFullText", () -> itemStorage.searchItemsFullText("item", page));
+        queries.put("searchItemsAfterId", () -> itemStorage.searchItemsAfterId("item", 0, page));
+        queries.put("findItemRequestDtosByRequestIdIn", () -> itemStorage.findItemRequestDtosByRequestIdIn(List.of(request.getId())));
+        queries.put("findItemsByRequestInAndOwnerIsNot", () -> itemStorage.findItemsByRequestInAndOwnerIsNot(List.of(request), user));
+        queries.put("getOwnerItemsVersions", () -> itemStorage.getOwnerItemsVersions(userId));
+        queries.put("getItemVersions", () -> itemStorage.getItemVersions(itemId, userId));
+        queries.put("findAvailableForSearch", () -> {
+            try (Stream<?> views = itemStorage.findAvailableForSearch()) {
+                views.count();
+            }
+        });
+
+        queries.put("findRequestsByRequestorOrderByCreatedDescIdDesc", () -> requestStorage.findRequestsByRequestorOrderByCreatedDescIdDesc(user));
+        queries.put("findRequestorRequestsWithAnswersJsonAgg", () -> requestStorage.findRequestorRequestsWithAnswersJsonAgg(userId));
+        queries.put("findRequestorRequestsWithAnswersJsonArrayAgg", () -> requestStorage.findRequestorRequestsWithAnswersJsonArrayAgg(userId));
+        queries.put("findRequestsByRequestorNotOrderByCreatedDescIdDesc", () -> requestStorage.findRequestsByRequestorNotOrderByCreatedDescIdDesc(user, page));
+        queries.put("getRequestorRequestsVersions", () -> requestStorage.getRequestorRequestsVersions(userId));
+        queries.put("findOtherUsersRequestsBeforeCursor", () -> requestStorage.findOtherUsersRequestsBeforeCursor(user, Cursor.MAX_TIME, Integer.MAX_VALUE, page));
+
+        queries.put("existsByEmailAndIdNot", () -> userStorage.existsByEmailAndIdNot("user@mail.com", userId));
+        queries.put("findAllEmails", () -> {
+            try (Stream<String> emails = userStorage.findAllEmails()) {
+                emails.count();
+            }
+        });
+        return queries;
+    }
+
+    /**
+     * Запросы, которые на H2 не выполняются: json_agg и similarity есть только в PostgreSQL.
+     */
+    protected Set<String> otherPlatformQueries() {
+        return Set.of("findRequestorRequestsWithAnswersJsonAgg", "searchItemsFullText");
+    }
+
+    /**
+     * На H2 поиск по подстроке всегда читает таблицу: триграммные индексы есть только в PostgreSQL.
+     */
+    protected Set<String> fullScans() {
+        Set<String> fullScans = new HashSet<>(FULL_SCANS);
+        fullScans.addAll(Set.of("searchItems", "searchItemsAfterId"));
+        return fullScans;
+    }
+
+    protected List<String> indexNames() {
+        return jdbcTemplate.queryForList("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC'", String.class);
+    }
+
+    /**
+     * Параметры в EXPLAIN не передаются: индекс выбирается по виду условия, а не по значению.
+     */
+    protected String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    protected boolean scansTable(String plan) {
+        return plan.contains("tableScan");
+    }
+
+    public static class Recorder implements StatementInspector {
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
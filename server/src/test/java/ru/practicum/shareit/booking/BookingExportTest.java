@@ -0,0 +1,118 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Выгрузка читается в отдельном потоке, поэтому данные коммитятся заранее, а не в транзакции теста.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class BookingExportTest {
+    private static final String HEADER_PARAM = "X-Sharer-User-Id";
+    private static final int BOOKINGS = 1200;
+
+    private final MockMvc mvc;
+    private final ObjectMapper objectMapper;
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+    private final List<Integer> expectedIds = new ArrayList<>();
+    private User owner;
+    private User booker;
+
+    @BeforeAll
+    void beforeAll() {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(BOOKINGS);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            owner = new User();
+            owner.setName("owner");
+            owner.setEmail("owner@mail.com");
+            em.persist(owner);
+
+            booker = new User();
+            booker.setName("booker");
+            booker.setEmail("booker@mail.com");
+            em.persist(booker);
+
+            Item item = new Item();
+            item.setName("Дрель");
+            item.setDescription("С аккумулятором");
+            item.setAvailable(true);
+            item.setOwner(owner);
+            em.persist(item);
+
+            for (int i = 0; i < BOOKINGS; i++) {
+                Booking booking = Booking.builder().start(start.plusDays(i)).end(start.plusDays(i).plusHours(1))
+                        .item(item).booker(booker).status(BookingStatus.APPROVED).build();
+                em.persist(booking);
+                expectedIds.add(0, booking.getId());
+            }
+        });
+    }
+
+    @Test
+    void testExportUserBookings() throws Exception {
+        assertThat(export("/bookings/export", booker.getId())).containsExactlyElementsOf(expectedIds);
+    }
+
+    @Test
+    void testExportOwnedItemsBookings() throws Exception {
+        assertThat(export("/bookings/owner/export", owner.getId())).containsExactlyElementsOf(expectedIds);
+        assertThat(export("/bookings/owner/export", booker.getId())).isEmpty();
+    }
+
+    @Test
+    void testExportUnknownUser() throws Exception {
+        mvc.perform(get("/bookings/export").header(HEADER_PARAM, 999))
+                .andExpect(status().isNotFound());
+    }
+
+    private List<Integer> export(String path, int userId) throws Exception {
+        MvcResult result = mvc.perform(get(path).header(HEADER_PARAM, userId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        List<Integer> ids = new ArrayList<>();
+        for (String line : body.lines().toArray(String[]::new)) {
+            ids.add(objectMapper.readTree(line).get("id").asInt());
+        }
+        return ids;
+    }
+}
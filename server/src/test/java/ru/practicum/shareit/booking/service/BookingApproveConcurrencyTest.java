@@ -0,0 +1,175 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.exception.SameApproveStatusException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorageDb;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Каждое успешное решение по бронированию меняет его версию ровно на 1, поэтому число успехов,
+ * равное итоговой версии, означает, что ни одно решение не было молча перезаписано.
+ * Повторное подтверждение отклоненного бронирования, которое параллельно подтверждает другой запрос,
+ * находит его бронирование при проверке пересечений под блокировкой вещи и тоже получает 409.
+ */
+@SpringBootTest(properties = "shareit.retry.max-attempts=100")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BookingApproveConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 10;
+
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final UserStorageDb userStorage;
+    private final ItemStorageDb itemStorage;
+    private final BookingStorageDb bookingStorage;
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@mail.com");
+        owner = userStorage.save(owner);
+
+        booker = new User();
+        booker.setName("booker");
+        booker.setEmail("booker@mail.com");
+        booker = userStorage.save(booker);
+
+        item = new Item();
+        item.setName("Дрель");
+        item.setDescription("Одна на всех");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = itemStorage.save(item);
+    }
+
+    @Test
+    void testConcurrentApproveSucceedsOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Booking booking = waitingBooking(round);
+            Outcomes outcomes = race(thread -> bookingService.approve(booking.getId(), owner.getId(), true));
+
+            assertThat(outcomes.succeeded).hasValue(1);
+            assertThat(outcomes.conflicts.get() + outcomes.sameStatus.get()).isEqualTo(THREADS - 1);
+            Booking stored = bookingStorage.findById(booking.getId()).orElseThrow();
+            assertThat(stored.getStatus()).isEqualTo(BookingStatus.APPROVED);
+            assertThat(stored.getVersion()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testConcurrentApproveAndRejectNeverLoseDecision() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Booking booking = waitingBooking(round);
+            Outcomes outcomes = race(thread -> bookingService.approve(booking.getId(), owner.getId(), thread % 2 == 0));
+
+            assertThat(outcomes.succeeded.get()).isPositive();
+            assertThat(outcomes.succeeded.get() + outcomes.conflicts.get() + outcomes.sameStatus.get()).isEqualTo(THREADS);
+            assertThat(bookingStorage.findById(booking.getId()).orElseThrow().getVersion()).isEqualTo(outcomes.succeeded.get());
+        }
+    }
+
+    @Test
+    void testConcurrentCreateAndDecisionsDoNotDeadlock() throws Exception {
+        Booking booking = waitingBooking(0);
+        Outcomes outcomes = race(thread -> {
+            if (thread % 2 == 0) {
+                LocalDateTime bookingStart = start.plusDays(1).plusHours(thread);
+                bookingService.create(booker.getId(), BookingDtoShort.builder()
+                        .start(bookingStart).end(bookingStart.plusHours(1)).itemId(item.getId()).build());
+            } else {
+                bookingService.approve(booking.getId(), owner.getId(), thread % 4 == 1);
+            }
+        });
+
+        assertThat(outcomes.succeeded.get()).isGreaterThanOrEqualTo(THREADS / 2);
+        assertThat(outcomes.succeeded.get() + outcomes.conflicts.get() + outcomes.sameStatus.get()).isEqualTo(THREADS);
+    }
+
+    @Test
+    void testConcurrentItemUpdatesAreRetried() throws Exception {
+        Outcomes outcomes = race(thread -> itemService.update(item.getId(), owner.getId(), Item.builder().description("Описание " + thread).build()));
+
+        assertThat(outcomes.succeeded).hasValue(THREADS);
+        assertThat(itemStorage.findById(item.getId()).orElseThrow().getVersion()).isEqualTo(THREADS);
+    }
+
+    private Booking waitingBooking(int round) {
+        LocalDateTime bookingStart = start.plusHours(round * 2L);
+        return bookingStorage.save(Booking.builder()
+                .start(bookingStart)
+                .end(bookingStart.plusHours(1))
+                .item(item)
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .build());
+    }
+
+    private Outcomes race(RaceTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Outcomes outcomes = new Outcomes();
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadId = thread;
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    try {
+                        task.run(threadId);
+                        outcomes.succeeded.incrementAndGet();
+                    } catch (OptimisticLockingFailureException | BookingOverlapException e) {
+                        outcomes.conflicts.incrementAndGet();
+                    } catch (SameApproveStatusException e) {
+                        outcomes.sameStatus.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcomes;
+    }
+
+    private static class Outcomes {
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger conflicts = new AtomicInteger();
+        final AtomicInteger sameStatus = new AtomicInteger();
+    }
+
+    private interface RaceTask {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Режим CONSTRAINT на H2: исключающего ограничения здесь нет, поэтому тесты проверяют только проверки,
+ * которые идут до записи в базу.
+ */
+@SpringBootTest(properties = "shareit.booking.overlap-guard=constraint")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class BookingConstraintModeTest {
+    private final EntityManager em;
+    private final BookingService bookingService;
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+    private Item item;
+    private User booker;
+
+    @BeforeEach
+    void beforeEach() {
+        booker = new User();
+        booker.setName("user");
+        booker.setEmail("user@mail.com");
+
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@mail.com");
+
+        item = new Item();
+        item.setName("Дрель");
+        item.setDescription("С Аккумулятором");
+        item.setAvailable(true);
+        item.setOwner(owner);
+
+        em.persist(owner);
+        em.persist(booker);
+        em.persist(item);
+        em.flush();
+    }
+
+    @Test
+    void testCreateBatchReportsOverlapsPerEntry() {
+        bookingService.create(booker.getId(), BookingDtoShort.builder().start(start).end(start.plusHours(2)).itemId(item.getId()).build());
+
+        List<BookingBatchResultDto> results = bookingService.createBatch(booker.getId(), List.of(
+                BookingDtoShort.builder().start(start.plusHours(1)).end(start.plusHours(3)).itemId(item.getId()).build(),
+                BookingDtoShort.builder().start(start.plusHours(3)).end(start.plusHours(4)).itemId(item.getId()).build(),
+                BookingDtoShort.builder().start(start.plusHours(3)).end(start.plusHours(5)).itemId(item.getId()).build(),
+                BookingDtoShort.builder().start(start.plusHours(5)).end(start.plusHours(6)).itemId(item.getId()).build()));
+
+        assertThat(results.get(0).getError()).contains("уже забронирован");
+        assertThat(results.get(1).getBooking()).isNotNull();
+        assertThat(results.get(2).getError()).contains("уже забронирован");
+        assertThat(results.get(3).getBooking()).isNotNull();
+
+        em.flush();
+        em.clear();
+        List<Booking> stored = em.createQuery("Select b from Booking b order by b.start", Booking.class).getResultList();
+        assertThat(stored).extracting(Booking::getStart).containsExactly(start, start.plusHours(3), start.plusHours(5));
+    }
+}
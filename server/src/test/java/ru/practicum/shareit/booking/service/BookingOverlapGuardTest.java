@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Путь CONSTRAINT без PostgreSQL: нарушение ex_bookings_item_period (SQLState 23P01) имитируется моком.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BookingOverlapGuardTest {
+    @Mock
+    private BookingStorageDb bookingStorage;
+    @Mock
+    private ItemStorageDb itemStorage;
+    private BookingOverlapGuard overlapGuard;
+    private Booking booking;
+
+    @BeforeEach
+    void beforeEach() {
+        BookingProperties bookingProperties = new BookingProperties();
+        bookingProperties.setOverlapGuard(BookingProperties.OverlapGuard.CONSTRAINT);
+        overlapGuard = new BookingOverlapGuard(bookingStorage, itemStorage, bookingProperties);
+
+        Item item = new Item();
+        item.setId(10);
+        booking = Booking.builder().item(item).start(LocalDateTime.now().plusDays(1)).end(LocalDateTime.now().plusDays(2)).build();
+        when(itemStorage.findByIdForUpdate(10)).thenReturn(Optional.of(item));
+    }
+
+    @Test
+    void testExclusionViolationIsOverlap() {
+        when(bookingStorage.saveAndFlush(booking)).thenThrow(new DataIntegrityViolationException("ex_bookings_item_period",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        assertThatThrownBy(() -> overlapGuard.save(booking))
+                .isInstanceOf(BookingOverlapException.class)
+                .hasMessageContaining("уже забронирован");
+        verify(itemStorage).findByIdForUpdate(10);
+        verify(bookingStorage, never()).existsOverlapping(anyInt(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void testOtherViolationIsRethrown() {
+        when(bookingStorage.saveAndFlush(booking)).thenThrow(new DataIntegrityViolationException("fk_bookings_booker",
+                new SQLException("violates foreign key constraint", "23503")));
+
+        assertThatThrownBy(() -> overlapGuard.save(booking))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
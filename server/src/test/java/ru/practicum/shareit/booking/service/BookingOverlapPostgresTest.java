@@ -0,0 +1,146 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorageDb;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Режим CONSTRAINT на PostgreSQL с ограничением ex_bookings_item_period. Нужна пустая база:
+ * mvn test -Dtest=BookingOverlapPostgresTest -Dpostgres.url=jdbc:postgresql://localhost:5432/shareit_test
+ * -Dpostgres.user=... -Dpostgres.password=...
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driverClassName=org.postgresql.Driver",
+        "spring.datasource.url=${postgres.url}",
+        "spring.datasource.username=${postgres.user:postgres}",
+        "spring.datasource.password=${postgres.password:postgres}",
+        "spring.sql.init.platform=postgresql",
+        "shareit.booking.overlap-guard=constraint"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+public class BookingOverlapPostgresTest {
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 10;
+
+    private final BookingService bookingService;
+    private final BookingOverlapGuard overlapGuard;
+    private final BookingStorageDb bookingStorage;
+    private final UserStorageDb userStorage;
+    private final ItemStorageDb itemStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<User> bookers = new ArrayList<>();
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate.execute("TRUNCATE users CASCADE");
+        bookers.clear();
+
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@mail.com");
+        userStorage.save(owner);
+
+        for (int i = 0; i < THREADS; i++) {
+            User booker = new User();
+            booker.setName("booker" + i);
+            booker.setEmail("booker" + i + "@mail.com");
+            bookers.add(userStorage.save(booker));
+        }
+
+        item = new Item();
+        item.setName("Дрель");
+        item.setDescription("Одна на всех");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = itemStorage.save(item);
+    }
+
+    @Test
+    void testConcurrentCreateBooksSlotOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger created = new AtomicInteger();
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                LocalDateTime roundStart = start.plusHours(round * 2L);
+                CyclicBarrier barrier = new CyclicBarrier(THREADS);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    int threadId = thread;
+                    futures.add(executor.submit(() -> {
+                        barrier.await();
+                        try {
+                            LocalDateTime bookingStart = roundStart.plusMinutes(threadId);
+                            bookingService.create(bookers.get(threadId).getId(), BookingDtoShort.builder()
+                                    .start(bookingStart).end(bookingStart.plusHours(1)).itemId(item.getId()).build());
+                            created.incrementAndGet();
+                        } catch (BookingOverlapException ignored) {
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(created).hasValue(ROUNDS);
+        Integer overlaps = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM bookings a JOIN bookings b ON a.item_id = b.item_id AND a.id < b.id " +
+                        "WHERE a.status <> 'REJECTED' AND b.status <> 'REJECTED' AND a.start_date < b.end_date AND a.end_date > b.start_date",
+                Integer.class);
+        assertThat(overlaps).isZero();
+    }
+
+    @Test
+    void testExclusionConstraintIsReportedAsOverlap() {
+        transactionTemplate.executeWithoutResult(status -> overlapGuard.save(booking(0)));
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> bookingStorage.saveAndFlush(booking(1))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> overlapGuard.save(booking(2))))
+                .isInstanceOf(BookingOverlapException.class);
+    }
+
+    private Booking booking(int booker) {
+        return Booking.builder()
+                .start(start)
+                .end(start.plusHours(1))
+                .item(item)
+                .booker(bookers.get(booker))
+                .status(BookingStatus.WAITING)
+                .build();
+    }
+}
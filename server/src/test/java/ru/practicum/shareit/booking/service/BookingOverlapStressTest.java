@@ -0,0 +1,136 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorageDb;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BookingOverlapStressTest {
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 10;
+
+    private final BookingService bookingService;
+    private final BookingOverlapGuard overlapGuard;
+    private final UserStorageDb userStorage;
+    private final ItemStorageDb itemStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<User> bookers = new ArrayList<>();
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@mail.com");
+        userStorage.save(owner);
+
+        for (int i = 0; i < THREADS; i++) {
+            User booker = new User();
+            booker.setName("booker" + i);
+            booker.setEmail("booker" + i + "@mail.com");
+            bookers.add(userStorage.save(booker));
+        }
+
+        item = new Item();
+        item.setName("Дрель");
+        item.setDescription("Одна на всех");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = itemStorage.save(item);
+    }
+
+    @Test
+    void testConcurrentCreateBooksSlotOnce() throws Exception {
+        int created = race((thread, bookingStart) -> {
+            bookingService.create(bookers.get(thread).getId(), BookingDtoShort.builder()
+                    .start(bookingStart).end(bookingStart.plusHours(1)).itemId(item.getId()).build());
+        });
+
+        assertThat(created).isEqualTo(ROUNDS);
+        assertNoOverlapsInDb();
+    }
+
+    @Test
+    void testConcurrentGuardedSavesBookSlotOnce() throws Exception {
+        int created = race((thread, bookingStart) -> transactionTemplate.executeWithoutResult(status -> {
+            overlapGuard.save(Booking.builder()
+                    .start(bookingStart)
+                    .end(bookingStart.plusHours(1))
+                    .item(item)
+                    .booker(bookers.get(thread))
+                    .status(BookingStatus.WAITING)
+                    .build());
+        }));
+
+        assertThat(created).isEqualTo(ROUNDS);
+        assertNoOverlapsInDb();
+    }
+
+    private int race(RaceTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger created = new AtomicInteger();
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                LocalDateTime roundStart = start.plusHours(round * 2L);
+                CyclicBarrier barrier = new CyclicBarrier(THREADS);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    int threadId = thread;
+                    futures.add(executor.submit(() -> {
+                        barrier.await();
+                        try {
+                            task.run(threadId, roundStart.plusMinutes(threadId));
+                            created.incrementAndGet();
+                        } catch (BookingOverlapException ignored) {
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return created.get();
+    }
+
+    private void assertNoOverlapsInDb() {
+        Integer overlaps = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM bookings a JOIN bookings b ON a.item_id = b.item_id AND a.id < b.id " +
+                        "WHERE a.status <> 'REJECTED' AND b.status <> 'REJECTED' AND a.start_date < b.end_date AND a.end_date > b.start_date",
+                Integer.class);
+        assertThat(overlaps).isZero();
+    }
+
+    private interface RaceTask {
+        void run(int thread, LocalDateTime bookingStart);
+    }
+}
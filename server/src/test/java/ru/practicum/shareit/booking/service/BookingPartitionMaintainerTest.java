@@ -0,0 +1,79 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingPartitionMaintainerTest {
+    private static final YearMonth NOW = YearMonth.of(2026, 10);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookingPartitionMaintainer maintainer;
+
+    @BeforeEach
+    void beforeEach() {
+        BookingProperties properties = new BookingProperties();
+        properties.getPartitions().setMonthsAhead(2);
+        properties.getPartitions().setRetentionMonths(12);
+        maintainer = new BookingPartitionMaintainer(jdbcTemplate, transactionManager, properties);
+    }
+
+    @Test
+    void testPartitionNames() {
+        assertThat(BookingPartitionMaintainer.partitionName(YearMonth.of(2026, 1))).isEqualTo("bookings_p2026_01");
+        assertThat(BookingPartitionMaintainer.partitionMonth("bookings_p2026_01")).contains(YearMonth.of(2026, 1));
+        assertThat(BookingPartitionMaintainer.partitionMonth("bookings_default")).isEmpty();
+    }
+
+    @Test
+    void testMissingMonthsCreatedAhead() {
+        List<YearMonth> months = maintainer.monthsToCreate(NOW, List.of(), List.of("bookings_default", "bookings_p2026_10"));
+
+        assertThat(months).containsExactly(YearMonth.of(2026, 11), YearMonth.of(2026, 12));
+    }
+
+    @Test
+    void testHistoricalMonthsFromDefaultPartitionCreated() {
+        List<YearMonth> defaultMonths = List.of(YearMonth.of(2024, 3), YearMonth.of(2026, 9), YearMonth.of(2026, 11), YearMonth.of(2027, 5));
+
+        List<YearMonth> months = maintainer.monthsToCreate(NOW, defaultMonths, List.of("bookings_default", "bookings_p2026_10"));
+
+        assertThat(months).containsExactly(YearMonth.of(2024, 3), YearMonth.of(2026, 9), YearMonth.of(2026, 11), YearMonth.of(2026, 12));
+        assertThat(maintainer.partitionsToArchive(NOW, List.of("bookings_p2024_03", "bookings_p2026_09"), partition -> null))
+                .containsExactly("bookings_p2024_03");
+    }
+
+    @Test
+    void testPartitionsOlderThanRetentionArchived() {
+        List<String> attached = List.of("bookings_default", "bookings_p2025_11", "bookings_p2025_09", "bookings_p2025_10", "bookings_p2026_10");
+
+        assertThat(maintainer.partitionsToArchive(NOW, attached, partition -> LocalDateTime.of(2025, 9, 30, 12, 0)))
+                .containsExactly("bookings_p2025_09");
+    }
+
+    @Test
+    void testPartitionWithUnfinishedBookingKept() {
+        List<String> attached = List.of("bookings_p2025_08", "bookings_p2025_09");
+        Map<String, LocalDateTime> lastEnds = Map.of(
+                "bookings_p2025_08", LocalDateTime.of(2025, 10, 1, 0, 0),
+                "bookings_p2025_09", LocalDateTime.of(2025, 9, 30, 23, 59));
+
+        assertThat(maintainer.partitionsToArchive(NOW, attached, lastEnds::get)).containsExactly("bookings_p2025_09");
+    }
+}
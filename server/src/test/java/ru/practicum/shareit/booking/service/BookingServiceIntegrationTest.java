@@ -1,23 +1,38 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.TimeWindowDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -69,4 +84,151 @@ public class BookingServiceIntegrationTest {
         assertThat(createdBooking.getBooker()).usingRecursiveComparison().isEqualTo(booker);
         assertThat(createdBooking.getStatus()).isEqualTo(BookingStatus.WAITING);
     }
+
+    @Test
+    void testGetUserBookingsByCursor() {
+        for (int i = 0; i < 5; i++) {
+            LocalDateTime bookingStart = start.truncatedTo(ChronoUnit.SECONDS).plusDays(i % 3).plusHours(i);
+            bookingService.create(booker.getId(), BookingDtoShort.builder().start(bookingStart).end(bookingStart.plusHours(1)).itemId(item.getId()).build());
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        String cursor = "";
+        do {
+            CursorPage<BookingView> page = bookingService.getUserBookings(booker.getId(), BookingState.FUTURE, cursor, 2);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(2);
+            page.getContent().forEach(booking -> ids.add(booking.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null && ids.size() <= 5);
+
+        List<Integer> expected = bookingService.getUserBookings(booker.getId(), BookingState.FUTURE, 0, 10).stream()
+                .sorted(Comparator.comparing(BookingView::getStart).thenComparing(BookingView::getId).reversed())
+                .map(BookingView::getId)
+                .collect(Collectors.toList());
+        assertThat(ids).isEqualTo(expected).hasSize(5);
+    }
+
+    @Test
+    void testGetUserBookingsByInvalidCursor() {
+        assertThatThrownBy(() -> bookingService.getUserBookings(booker.getId(), BookingState.ALL, "не курсор", 2))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void testCreateOverlappingBooking() {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime to = end.truncatedTo(ChronoUnit.SECONDS);
+        bookingService.create(booker.getId(), BookingDtoShort.builder().start(from).end(to).itemId(item.getId()).build());
+
+        assertThatThrownBy(() -> bookingService.create(booker.getId(), BookingDtoShort.builder().start(from.plusHours(1)).end(to.plusHours(1)).itemId(item.getId()).build()))
+                .isInstanceOf(BookingOverlapException.class);
+        bookingService.create(booker.getId(), BookingDtoShort.builder().start(to).end(to.plusHours(1)).itemId(item.getId()).build());
+    }
+
+    @Test
+    void testCreateBatch() {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime to = end.truncatedTo(ChronoUnit.SECONDS);
+        bookingService.create(booker.getId(), BookingDtoShort.builder().start(from).end(to).itemId(item.getId()).build());
+
+        List<BookingBatchResultDto> results = bookingService.createBatch(booker.getId(), List.of(
+                BookingDtoShort.builder().start(to).end(to.plusHours(1)).itemId(item.getId()).build(),
+                BookingDtoShort.builder().start(to).end(from).itemId(item.getId()).build(),
+                BookingDtoShort.builder().start(to).end(to.plusHours(1)).itemId(999).build(),
+                BookingDtoShort.builder().start(from.plusHours(1)).end(from.plusHours(2)).itemId(item.getId()).build(),
+                BookingDtoShort.builder().start(to.plusMinutes(30)).end(to.plusHours(2)).itemId(item.getId()).build(),
+                BookingDtoShort.builder().start(to.plusHours(2)).end(to.plusHours(3)).itemId(item.getId()).build()));
+
+        assertThat(results).extracting(BookingBatchResultDto::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(results.get(0).getBooking().getStart()).isEqualTo(to);
+        assertThat(results.get(1).getError()).isEqualTo("период бронирования не валидный");
+        assertThat(results.get(2).getError()).isEqualTo("нет товара с id 999");
+        assertThat(results.get(3).getError()).contains("уже забронирован");
+        assertThat(results.get(4).getError()).contains("уже забронирован");
+        assertThat(results.get(5).getBooking().getStatus()).isEqualTo(BookingState.WAITING);
+
+        em.flush();
+        em.clear();
+        List<Booking> stored = em.createQuery("Select b from Booking b order by b.start", Booking.class).getResultList();
+        assertThat(stored).extracting(Booking::getStart).containsExactly(from, to, to.plusHours(2));
+    }
+
+    @Test
+    void testCreateBatchInsertsInOneJdbcBatch() {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.SECONDS);
+        List<BookingDtoShort> newBookings = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            newBookings.add(BookingDtoShort.builder().start(from.plusHours(i)).end(from.plusHours(i).plusMinutes(30)).itemId(item.getId()).build());
+        }
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        bookingService.createBatch(booker.getId(), newBookings);
+
+        assertThat(statistics.getEntityInsertCount()).isGreaterThanOrEqualTo(20);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(newBookings.size() / 2);
+    }
+
+    @Test
+    void testGetOwnedItemsBookingsDoesNotLoadOwnerItems() {
+        Booking booking = bookingService.create(booker.getId(), BookingDtoShort.builder().start(start).end(end).itemId(item.getId()).build());
+        int ownerId = item.getOwner().getId();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        for (int i = 0; i < 1000; i++) {
+            Item other = new Item();
+            other.setName("Вещь " + i);
+            other.setDescription("Без бронирований");
+            other.setAvailable(true);
+            other.setOwner(item.getOwner());
+            em.persist(other);
+        }
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        for (BookingState state : BookingState.values()) {
+            bookingService.getOwnedItemsBookings(ownerId, state, 0, 10);
+        }
+
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + BookingState.values().length);
+        assertThat(bookingService.getOwnedItemsBookings(ownerId, BookingState.ALL, 0, 10))
+                .extracting(BookingView::getId)
+                .containsExactly(booking.getId());
+    }
+
+    @Test
+    void testRejectedBookingFreesPeriod() {
+        Booking booking = bookingService.create(booker.getId(), BookingDtoShort.builder().start(start).end(end).itemId(item.getId()).build());
+        bookingService.approve(booking.getId(), item.getOwner().getId(), false);
+
+        Booking other = bookingService.create(booker.getId(), BookingDtoShort.builder().start(start).end(end).itemId(item.getId()).build());
+
+        assertThat(other.getId()).isNotEqualTo(booking.getId());
+        assertThatThrownBy(() -> bookingService.approve(booking.getId(), item.getOwner().getId(), true))
+                .isInstanceOf(BookingOverlapException.class);
+    }
+
+    @Test
+    void testGetItemAvailability() {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.HOURS);
+        bookingService.create(booker.getId(), BookingDtoShort.builder().start(from.plusHours(2)).end(from.plusHours(4)).itemId(item.getId()).build());
+        bookingService.create(booker.getId(), BookingDtoShort.builder().start(from.plusHours(4)).end(from.plusHours(5)).itemId(item.getId()).build());
+        bookingService.create(booker.getId(), BookingDtoShort.builder().start(from.plusHours(7)).end(from.plusHours(12)).itemId(item.getId()).build());
+
+        List<TimeWindowDto> windows = bookingService.getItemAvailability(item.getId(), booker.getId(), from, from.plusHours(10));
+
+        assertThat(windows).containsExactly(
+                new TimeWindowDto(from, from.plusHours(2)),
+                new TimeWindowDto(from.plusHours(5), from.plusHours(7)));
+    }
+
+    @Test
+    void testGetItemAvailabilityInvalidPeriod() {
+        assertThatThrownBy(() -> bookingService.getItemAvailability(item.getId(), booker.getId(), end, start))
+                .isInstanceOf(ValidationException.class);
+    }
 }
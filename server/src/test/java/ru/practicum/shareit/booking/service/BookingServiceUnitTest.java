@@ -7,12 +7,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.booking.dto.BookingDtoShort;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingHistoryStorageDb;
 import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.booking.storage.BookingView;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
@@ -21,12 +25,13 @@ import ru.practicum.shareit.user.service.UserService;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class BookingServiceUnitTest {
@@ -35,9 +40,17 @@ public class BookingServiceUnitTest {
     @Mock
     private BookingStorageDb bookingStorage;
     @Mock
+    private BookingHistoryStorageDb historyStorage;
+    @Mock
     private ItemService itemService;
     @Mock
     private UserService userService;
+    @Mock
+    private BookingOverlapGuard overlapGuard;
+    @Mock
+    private InvalidationFeed invalidationFeed;
+    @Mock
+    private ItemBookingSummaryService summaryService;
     @InjectMocks
     private BookingService bookingService;
 
@@ -63,6 +76,18 @@ public class BookingServiceUnitTest {
         return copiedBooking;
     }
 
+    private static BookingView toView(Booking booking) {
+        return new SpelAwareProxyProjectionFactory().createProjection(BookingView.class, Map.of(
+                "id", booking.getId(),
+                "start", booking.getStart(),
+                "end", booking.getEnd(),
+                "status", booking.getStatus(),
+                "itemId", booking.getItem().getId(),
+                "itemName", booking.getItem().getName(),
+                "bookerId", booking.getBooker().getId(),
+                "bookerName", booking.getBooker().getName()));
+    }
+
     @BeforeEach
     void beforeEach() {
         booker = new User();
@@ -102,13 +127,25 @@ public class BookingServiceUnitTest {
 
         when(itemService.getItemById(anyInt())).thenReturn(item);
         when(userService.getUserById(anyInt())).thenReturn(booker);
-        when(bookingStorage.save(any(Booking.class))).thenReturn(correctBooking);
+        when(overlapGuard.save(any(Booking.class))).thenReturn(correctBooking);
 
         Booking createdBooking = bookingService.create(booker.getId(), createBookingDto);
 
         assertThat(createdBooking).usingRecursiveComparison().isEqualTo(correctBooking);
     }
 
+    @Test
+    void testCreateBookingOverlapping() {
+        BookingDtoShort createBookingDto = BookingDtoShort.builder().start(start).end(end).itemId(item.getId()).build();
+
+        when(itemService.getItemById(anyInt())).thenReturn(item);
+        when(userService.getUserById(anyInt())).thenReturn(booker);
+        when(overlapGuard.save(any(Booking.class))).thenThrow(new BookingOverlapException("товар с id 10 уже забронирован на пересекающийся период"));
+
+        assertThatThrownBy(() -> bookingService.create(booker.getId(), createBookingDto))
+                .isInstanceOf(BookingOverlapException.class);
+    }
+
     @Test
     void testCreateBookingInvalidBookingPeriod() {
         BookingDtoShort createBookingDto = BookingDtoShort.builder().start(end).end(start).itemId(item.getId()).build();
@@ -216,24 +253,34 @@ public class BookingServiceUnitTest {
                 .hasMessageContaining("некорректная пагинация");
     }
 
+    @Test
+    void testGetBookingsWithArchiveOnlyPast() {
+        assertThatThrownBy(() -> bookingService.getUserBookingsWithArchive(booker.getId(), BookingState.CURRENT, null, 20))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("архив доступен только для state=PAST");
+        assertThatThrownBy(() -> bookingService.getOwnedItemsBookingsWithArchive(owner.getId(), BookingState.PAST, null, 0))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("некорректная пагинация");
+    }
+
     @Test
     void testGetUserBookingsStatusAll() {
         when(userService.getUserById(anyInt())).thenReturn(booker);
 
         BookingState bookingState = BookingState.ALL;
-        when(bookingStorage.findBookingsByBookerOrderByStartDesc(any(User.class), any(Pageable.class))).thenReturn(List.of(bookingToApprove));
-        Collection<Booking> bookingsALL = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
-        assertThat(bookingsALL).contains(bookingToApprove);
+        when(bookingStorage.findBookingsByBookerOrderByStartDesc(any(User.class), any(Pageable.class))).thenReturn(List.of(toView(bookingToApprove)));
+        Collection<BookingView> bookingsALL = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
+        assertThat(bookingsALL).extracting(BookingView::getStart).containsExactly(bookingToApprove.getStart());
     }
 
     @Test
     void testGetOwnedItemsBookingsStatusAll() {
-        when(itemService.getUserItems(anyInt())).thenReturn(List.of(item));
+        when(userService.getUserById(anyInt())).thenReturn(owner);
 
         BookingState bookingState = BookingState.ALL;
-        when(bookingStorage.findBookingsByItemInOrderByStartDesc(anyCollection(), any(Pageable.class))).thenReturn(List.of(bookingToApprove));
-        Collection<Booking> bookingsALL = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
-        assertThat(bookingsALL).contains(bookingToApprove);
+        when(bookingStorage.findBookingsByOwnerOrderByStartDesc(any(User.class), any(Pageable.class))).thenReturn(List.of(toView(bookingToApprove)));
+        Collection<BookingView> bookingsALL = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
+        assertThat(bookingsALL).extracting(BookingView::getStart).containsExactly(bookingToApprove.getStart());
     }
 
     @Test
@@ -245,23 +292,23 @@ public class BookingServiceUnitTest {
         futureBooking.setStart(LocalDateTime.now().plusDays(10));
         futureBooking.setEnd(LocalDateTime.now().plusDays(2));
         when(bookingStorage.findBookingsByBookerAndStartAfterOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(futureBooking));
-        Collection<Booking> bookingsFUTURE = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
-        assertThat(bookingsFUTURE).contains(futureBooking);
+                .thenReturn(List.of(toView(futureBooking)));
+        Collection<BookingView> bookingsFUTURE = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
+        assertThat(bookingsFUTURE).extracting(BookingView::getStart).containsExactly(futureBooking.getStart());
     }
 
     @Test
     void testGetOwnedItemsBookingsStatusFuture() {
-        when(itemService.getUserItems(anyInt())).thenReturn(List.of(item));
+        when(userService.getUserById(anyInt())).thenReturn(owner);
 
         BookingState bookingState = BookingState.FUTURE;
         Booking futureBooking = copyBooking(bookingToApprove);
         futureBooking.setStart(LocalDateTime.now().plusDays(10));
         futureBooking.setEnd(LocalDateTime.now().plusDays(2));
-        when(bookingStorage.findBookingsByItemInAndStartAfterOrderByStartDesc(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(futureBooking));
-        Collection<Booking> bookingsFUTURE = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
-        assertThat(bookingsFUTURE).contains(futureBooking);
+        when(bookingStorage.findBookingsByOwnerAndStartAfterOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(toView(futureBooking)));
+        Collection<BookingView> bookingsFUTURE = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
+        assertThat(bookingsFUTURE).extracting(BookingView::getStart).containsExactly(futureBooking.getStart());
 
     }
 
@@ -274,23 +321,23 @@ public class BookingServiceUnitTest {
         pastBooking.setStart(LocalDateTime.now().minusDays(10));
         pastBooking.setEnd(LocalDateTime.now().minusDays(8));
         when(bookingStorage.findBookingsByBookerAndEndBeforeOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(pastBooking));
-        Collection<Booking> bookingsPAST = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
-        assertThat(bookingsPAST).contains(pastBooking);
+                .thenReturn(List.of(toView(pastBooking)));
+        Collection<BookingView> bookingsPAST = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
+        assertThat(bookingsPAST).extracting(BookingView::getStart).containsExactly(pastBooking.getStart());
     }
 
     @Test
     void testGetOwnedItemsBookingsStatusPast() {
-        when(itemService.getUserItems(anyInt())).thenReturn(List.of(item));
+        when(userService.getUserById(anyInt())).thenReturn(owner);
 
         BookingState bookingState = BookingState.PAST;
         Booking pastBooking = copyBooking(bookingToApprove);
         pastBooking.setStart(LocalDateTime.now().minusDays(10));
         pastBooking.setEnd(LocalDateTime.now().minusDays(8));
-        when(bookingStorage.findBookingsByItemInAndEndBeforeOrderByStartDesc(anyCollection(), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(pastBooking));
-        Collection<Booking> bookingsPAST = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
-        assertThat(bookingsPAST).contains(pastBooking);
+        when(bookingStorage.findBookingsByOwnerAndEndBeforeOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(toView(pastBooking)));
+        Collection<BookingView> bookingsPAST = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
+        assertThat(bookingsPAST).extracting(BookingView::getStart).containsExactly(pastBooking.getStart());
     }
 
     @Test
@@ -302,23 +349,23 @@ public class BookingServiceUnitTest {
         currentBooking.setStart(LocalDateTime.now().minusDays(1));
         currentBooking.setEnd(LocalDateTime.now().plusDays(2));
         when(bookingStorage.findBookingsByBookerAndStartBeforeAndEndAfterOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(currentBooking));
-        Collection<Booking> bookingsCURRENT = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
-        assertThat(bookingsCURRENT).contains(currentBooking);
+                .thenReturn(List.of(toView(currentBooking)));
+        Collection<BookingView> bookingsCURRENT = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
+        assertThat(bookingsCURRENT).extracting(BookingView::getStart).containsExactly(currentBooking.getStart());
     }
 
     @Test
     void testGetOwnedItemsBookingsStatusCurrent() {
-        when(itemService.getUserItems(anyInt())).thenReturn(List.of(item));
+        when(userService.getUserById(anyInt())).thenReturn(owner);
 
         BookingState bookingState = BookingState.CURRENT;
         Booking currentBooking = copyBooking(bookingToApprove);
         currentBooking.setStart(LocalDateTime.now().minusDays(1));
         currentBooking.setEnd(LocalDateTime.now().plusDays(2));
-        when(bookingStorage.findBookingsByItemInAndStartBeforeAndEndAfterOrderByStartDesc(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
-                .thenReturn(List.of(currentBooking));
-        Collection<Booking> bookingsCURRENT = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
-        assertThat(bookingsCURRENT).contains(currentBooking);
+        when(bookingStorage.findBookingsByOwnerAndStartBeforeAndEndAfterOrderByStartDesc(any(User.class), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(toView(currentBooking)));
+        Collection<BookingView> bookingsCURRENT = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
+        assertThat(bookingsCURRENT).extracting(BookingView::getStart).containsExactly(currentBooking.getStart());
     }
 
     @Test
@@ -331,24 +378,24 @@ public class BookingServiceUnitTest {
         rejectedBooking.setEnd(LocalDateTime.now().plusDays(2));
         rejectedBooking.setStatus(BookingStatus.REJECTED);
         when(bookingStorage.findBookingsByBookerAndStatusOrderByStartDesc(any(User.class), any(BookingStatus.class), any(Pageable.class)))
-                .thenReturn(List.of(rejectedBooking));
-        Collection<Booking> bookingsREJECTED = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
-        assertThat(bookingsREJECTED).contains(rejectedBooking);
+                .thenReturn(List.of(toView(rejectedBooking)));
+        Collection<BookingView> bookingsREJECTED = bookingService.getUserBookings(booker.getId(), bookingState, 0, 2000);
+        assertThat(bookingsREJECTED).extracting(BookingView::getStart).containsExactly(rejectedBooking.getStart());
     }
 
     @Test
     void testGetOwnedItemsBookingsStatusRejected() {
-        when(itemService.getUserItems(anyInt())).thenReturn(List.of(item));
+        when(userService.getUserById(anyInt())).thenReturn(owner);
 
         BookingState bookingState = BookingState.REJECTED;
         Booking rejectedBooking = copyBooking(bookingToApprove);
         rejectedBooking.setStart(LocalDateTime.now().minusDays(1));
         rejectedBooking.setEnd(LocalDateTime.now().plusDays(2));
         rejectedBooking.setStatus(BookingStatus.REJECTED);
-        when(bookingStorage.findBookingsByItemInAndStatusOrderByStartDesc(anyCollection(), any(BookingStatus.class), any(Pageable.class)))
-                .thenReturn(List.of(rejectedBooking));
-        Collection<Booking> bookingsREJECTED = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
-        assertThat(bookingsREJECTED).contains(rejectedBooking);
+        when(bookingStorage.findBookingsByOwnerAndStatusOrderByStartDesc(any(User.class), any(BookingStatus.class), any(Pageable.class)))
+                .thenReturn(List.of(toView(rejectedBooking)));
+        Collection<BookingView> bookingsREJECTED = bookingService.getOwnedItemsBookings(owner.getId(), bookingState, 0, 2000);
+        assertThat(bookingsREJECTED).extracting(BookingView::getStart).containsExactly(rejectedBooking.getStart());
     }
 
 }
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDtoShort;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingHistory;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.ItemBookingSummary;
+import ru.practicum.shareit.booking.storage.ItemBookingSummaryStorageDb;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ItemBookingSummaryServiceTest {
+    private final EntityManager em;
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final ItemBookingSummaryService summaryService;
+    private final ItemBookingSummaryStorageDb summaryStorage;
+    private final LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(1);
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void beforeEach() {
+        owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@mail.com");
+
+        booker = new User();
+        booker.setName("user");
+        booker.setEmail("user@mail.com");
+
+        em.persist(owner);
+        em.persist(booker);
+        em.flush();
+
+        item = itemService.create(owner.getId(), ItemDto.builder().name("Дрель").description("С аккумулятором").available(true).build());
+    }
+
+    @Test
+    void testCreateItemInitializesEmptySummary() {
+        ItemBookingSummary summary = summaryStorage.findById(item.getId()).orElseThrow();
+
+        assertThat(summary.getLastBooking()).isNull();
+        assertThat(summary.getNextBooking()).isNull();
+        assertThat(summary.getValidUntil()).isNull();
+    }
+
+    @Test
+    void testCreateBookingUpdatesNextBooking() {
+        bookingService.create(booker.getId(), BookingDtoShort.builder().start(start.plusDays(2)).end(start.plusDays(3)).itemId(item.getId()).build());
+        Booking sooner = bookingService.create(booker.getId(), BookingDtoShort.builder().start(start).end(start.plusHours(1)).itemId(item.getId()).build());
+
+        ItemBookingSummary summary = summaryStorage.findById(item.getId()).orElseThrow();
+
+        assertThat(summary.getNextBooking().getId()).isEqualTo(sooner.getId());
+        assertThat(summary.getValidUntil()).isEqualTo(start);
+    }
+
+    @Test
+    void testRejectBookingClearsNextBooking() {
+        Booking booking = bookingService.create(booker.getId(), BookingDtoShort.builder().start(start).end(start.plusHours(1)).itemId(item.getId()).build());
+
+        bookingService.approve(booking.getId(), owner.getId(), false);
+
+        ItemBookingSummary summary = summaryStorage.findById(item.getId()).orElseThrow();
+        assertThat(summary.getNextBooking()).isNull();
+        assertThat(summary.getValidUntil()).isNull();
+    }
+
+    @Test
+    void testStaleSummaryIsComputedOnReadAndRefreshedByScheduler() {
+        LocalDateTime past = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(2);
+        Booking started = Booking.builder().start(past).end(past.plusHours(1)).item(item).booker(booker).status(BookingStatus.APPROVED).build();
+        em.persist(started);
+        em.flush();
+        ItemBookingSummary summary = summaryStorage.findById(item.getId()).orElseThrow();
+        summary.setNextBooking(em.find(BookingHistory.class, started.getId()));
+        summary.setValidUntil(past);
+        summaryStorage.saveAndFlush(summary);
+
+        ItemBookingSummary computed = summaryService.getSummaries(List.of(item)).get(item.getId());
+        assertThat(computed.getLastBooking().getId()).isEqualTo(started.getId());
+        assertThat(computed.getNextBooking()).isNull();
+
+        summaryService.refreshOutdated();
+        em.flush();
+        em.clear();
+
+        ItemBookingSummary refreshed = summaryStorage.findById(item.getId()).orElseThrow();
+        assertThat(refreshed.getLastBooking().getId()).isEqualTo(started.getId());
+        assertThat(refreshed.getNextBooking()).isNull();
+        assertThat(refreshed.getValidUntil()).isNull();
+    }
+
+    @Test
+    void testSchedulerBackfillsMissingSummary() {
+        Item legacy = new Item();
+        legacy.setName("Отвертка");
+        legacy.setDescription("Крестовая");
+        legacy.setAvailable(true);
+        legacy.setOwner(owner);
+        em.persist(legacy);
+        em.flush();
+
+        assertThat(summaryStorage.findById(legacy.getId())).isEmpty();
+
+        summaryService.refreshOutdated();
+        em.flush();
+
+        assertThat(summaryStorage.findById(legacy.getId())).isPresent();
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookingIntervalTreeTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void testOverlapsIsHalfOpen() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.insert(1, hour(10), hour(12));
+
+        assertThat(tree.overlaps(hour(8), hour(10))).isFalse();
+        assertThat(tree.overlaps(hour(12), hour(14))).isFalse();
+        assertThat(tree.overlaps(hour(11), hour(13))).isTrue();
+        assertThat(tree.overlaps(hour(9), hour(15))).isTrue();
+    }
+
+    @Test
+    void testOverlappingSortedByStart() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.insert(3, hour(20), hour(22));
+        tree.insert(1, hour(0), hour(50));
+        tree.insert(2, hour(10), hour(12));
+
+        assertThat(tree.overlapping(hour(11), hour(21))).extracting(BookingIntervalTree.Interval::getId).containsExactly(1, 2, 3);
+        assertThat(tree.overlapping(hour(13), hour(19))).extracting(BookingIntervalTree.Interval::getId).containsExactly(1);
+    }
+
+    @Test
+    void testRemove() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.insert(1, hour(10), hour(12));
+        tree.insert(2, hour(10), hour(11));
+
+        assertThat(tree.remove(1, hour(10))).isTrue();
+        assertThat(tree.remove(1, hour(10))).isFalse();
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.overlaps(hour(11), hour(12))).isFalse();
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(7);
+        BookingIntervalTree tree = new BookingIntervalTree();
+        List<BookingIntervalTree.Interval> intervals = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            if (!intervals.isEmpty() && random.nextInt(3) == 0) {
+                BookingIntervalTree.Interval removed = intervals.remove(random.nextInt(intervals.size()));
+                assertThat(tree.remove(removed.getId(), removed.getStart())).isTrue();
+            } else {
+                int start = random.nextInt(1000);
+                BookingIntervalTree.Interval interval = new BookingIntervalTree.Interval(i, hour(start), hour(start + 1 + random.nextInt(30)));
+                intervals.add(interval);
+                tree.insert(interval.getId(), interval.getStart(), interval.getEnd());
+            }
+
+            int from = random.nextInt(1000);
+            LocalDateTime queryFrom = hour(from);
+            LocalDateTime queryTo = hour(from + 1 + random.nextInt(30));
+            List<Integer> expected = intervals.stream()
+                    .filter(interval -> interval.getStart().isBefore(queryTo) && interval.getEnd().isAfter(queryFrom))
+                    .map(BookingIntervalTree.Interval::getId)
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            assertThat(tree.size()).isEqualTo(intervals.size());
+            assertThat(tree.overlaps(queryFrom, queryTo)).isEqualTo(!expected.isEmpty());
+            assertThat(tree.overlapping(queryFrom, queryTo).stream().map(BookingIntervalTree.Interval::getId).sorted())
+                    .containsExactlyElementsOf(expected);
+        }
+    }
+
+    private static LocalDateTime hour(int hours) {
+        return BASE.plusHours(hours);
+    }
+}
@@ -5,15 +5,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -85,6 +89,36 @@ public class BookingStorageDbTest {
         booking.setBooker(booker);
         booking.setStatus(BookingStatus.WAITING);
 
-        assertThatThrownBy(() -> bookingStorage.save(booking)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThatThrownBy(() -> bookingStorage.saveAndFlush(booking)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void testFindPastBookingsWithArchive() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking older = booking(now.minusDays(10), now.minusDays(9));
+        Booking past = booking(now.minusDays(5), now.minusDays(4));
+        booking(now.plusDays(1), now.plusDays(2));
+        em.flush();
+
+        List<BookingView> byBooker = bookingStorage.findPastBookingsByBookerWithArchiveBeforeCursor(booker.getId(), now, Cursor.MAX_TIME, Integer.MAX_VALUE, PageRequest.of(0, 1));
+        assertThat(byBooker).extracting(BookingView::getId).containsExactly(past.getId());
+        assertThat(byBooker.get(0).getStart()).isEqualTo(past.getStart());
+        assertThat(byBooker.get(0).getStatus()).isEqualTo(BookingStatus.APPROVED);
+        assertThat(byBooker.get(0).getItemName()).isEqualTo(item.getName());
+        assertThat(byBooker.get(0).getBookerName()).isEqualTo(booker.getName());
+
+        List<BookingView> byOwner = bookingStorage.findPastBookingsByOwnerWithArchiveBeforeCursor(owner.getId(), now, past.getStart(), past.getId(), PageRequest.of(0, 2));
+        assertThat(byOwner).extracting(BookingView::getId).containsExactly(older.getId());
+    }
+
+    private Booking booking(LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(BookingStatus.APPROVED);
+        em.persist(booking);
+        return booking;
     }
 }
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiringCacheTest {
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final ExpiringCache<Integer, String> cache = new ExpiringCache<>(2, Duration.ofSeconds(30), nanoTime::get);
+    private final List<List<Integer>> loads = new ArrayList<>();
+
+    @Test
+    void testMissingKeysLoadedOnceAndAbsentCached() {
+        assertThat(cache.getAll(List.of(1, 2), loader("a"), "")).isEqualTo(Map.of(1, "a1", 2, ""));
+        assertThat(cache.getAll(List.of(2, 1), loader("b"), "")).isEqualTo(Map.of(1, "a1", 2, ""));
+
+        assertThat(loads).containsExactly(List.of(1, 2));
+    }
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        cache.getAll(List.of(1), loader("a"), "");
+
+        nanoTime.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertThat(cache.getAll(List.of(1), loader("b"), "")).containsEntry(1, "a1");
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.getAll(List.of(1), loader("b"), "")).containsEntry(1, "b1");
+    }
+
+    @Test
+    void testUpdateKeepsExpiryAndSkipsMissingKeys() {
+        cache.getAll(List.of(1), loader("a"), "");
+        nanoTime.addAndGet(Duration.ofSeconds(20).toNanos());
+
+        cache.update(1, value -> value + "!");
+        cache.update(2, value -> value + "!");
+        assertThat(cache.getAll(List.of(1), loader("b"), "")).containsEntry(1, "a1!");
+        assertThat(cache.size()).isEqualTo(1);
+
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(cache.getAll(List.of(1), loader("b"), "")).containsEntry(1, "b1");
+    }
+
+    @Test
+    void testLoadOverlappingUpdateIsNotCached() {
+        assertThat(cache.getAll(List.of(1), keys -> {
+            cache.update(1, value -> value + "!");
+            return loader("a").apply(keys);
+        }, "")).containsEntry(1, "a1");
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() {
+        cache.getAll(List.of(1, 2), loader("a"), "");
+        cache.getAll(List.of(1), loader("a"), "");
+        cache.getAll(List.of(3), loader("a"), "");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getAll(List.of(1, 3), loader("b"), "")).isEqualTo(Map.of(1, "a1", 3, "a3"));
+    }
+
+    private Function<List<Integer>, Map<Integer, String>> loader(String prefix) {
+        return keys -> {
+            loads.add(List.copyOf(keys));
+            return keys.stream()
+                    .filter(key -> key % 2 == 1)
+                    .collect(Collectors.toMap(key -> key, key -> prefix + key));
+        };
+    }
+}
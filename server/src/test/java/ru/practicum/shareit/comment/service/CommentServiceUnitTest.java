@@ -6,19 +6,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.booking.storage.BookingStorageDb;
+import ru.practicum.shareit.booking.storage.BookingHistoryStorageDb;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.comment.storage.CommentStorageDb;
+import ru.practicum.shareit.comment.storage.ItemCommentsCache;
 import ru.practicum.shareit.exception.CannotCommentException;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -31,11 +31,15 @@ public class CommentServiceUnitTest {
     @Mock
     private CommentStorageDb commentStorage;
     @Mock
-    private BookingStorageDb bookingStorage;
+    private BookingHistoryStorageDb bookingStorage;
     @Mock
     private UserService userService;
     @Mock
     private ItemService itemService;
+    @Mock
+    private InvalidationFeed invalidationFeed;
+    @Mock
+    private ItemCommentsCache commentsCache;
     @InjectMocks
     private CommentService commentService;
     private User owner;
@@ -63,14 +67,6 @@ public class CommentServiceUnitTest {
 
     @Test
     void testAddComment() {
-        Booking booking = new Booking();
-        booking.setId(1);
-        booking.setStart(LocalDateTime.now().plusDays(1));
-        booking.setEnd(LocalDateTime.now().plusDays(2));
-        booking.setItem(item);
-        booking.setBooker(new User());
-        booking.setStatus(BookingStatus.WAITING);
-
         Comment comment = new Comment();
         comment.setText("comment");
         comment.setAuthor(owner);
@@ -79,8 +75,7 @@ public class CommentServiceUnitTest {
 
         when(userService.getUserById(anyInt())).thenReturn(requestor);
         when(itemService.getItemById(anyInt())).thenReturn(item);
-        when(bookingStorage.getBookingsByBookerAndItemAndEndIsBeforeAndStatus(any(User.class), any(Item.class), any(LocalDateTime.class), any(BookingStatus.class))
-        ).thenReturn(List.of(booking));
+        when(bookingStorage.existsFinished(anyInt(), anyInt(), any(LocalDateTime.class), any(BookingStatus.class))).thenReturn(true);
 
         when(commentStorage.save(any(Comment.class))).thenReturn(comment);
 
@@ -91,14 +86,6 @@ public class CommentServiceUnitTest {
 
     @Test
     void testAddCommentWithoutFinishedBookings() {
-        Booking booking = new Booking();
-        booking.setId(1);
-        booking.setStart(LocalDateTime.now().plusDays(1));
-        booking.setEnd(LocalDateTime.now().plusDays(2));
-        booking.setItem(item);
-        booking.setBooker(new User());
-        booking.setStatus(BookingStatus.WAITING);
-
         Comment comment = new Comment();
         comment.setText("comment");
         comment.setAuthor(owner);
@@ -107,8 +94,7 @@ public class CommentServiceUnitTest {
 
         when(userService.getUserById(anyInt())).thenReturn(requestor);
         when(itemService.getItemById(anyInt())).thenReturn(item);
-        when(bookingStorage.getBookingsByBookerAndItemAndEndIsBeforeAndStatus(any(User.class), any(Item.class), any(LocalDateTime.class), any(BookingStatus.class))
-        ).thenReturn(List.of());
+        when(bookingStorage.existsFinished(anyInt(), anyInt(), any(LocalDateTime.class), any(BookingStatus.class))).thenReturn(false);
 
         assertThatThrownBy(() -> commentService.addComment(item.getId(), owner.getId(), comment))
                 .isInstanceOf(CannotCommentException.class)
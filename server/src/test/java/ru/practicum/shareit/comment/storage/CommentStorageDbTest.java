@@ -3,15 +3,18 @@ package ru.practicum.shareit.comment.storage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -63,4 +66,41 @@ public class CommentStorageDbTest {
         assertThat(commentFromDb.getAuthor()).isEqualTo(comment.getAuthor());
         assertThat(commentFromDb.getItem()).isEqualTo(comment.getItem());
     }
+
+    @Test
+    void testFindItemCommentsBeforeCursor() {
+        Comment first = comment("first", LocalDateTime.of(2023, 6, 5, 11, 0));
+        Comment second = comment("second", LocalDateTime.of(2023, 6, 6, 11, 0));
+        Comment third = comment("third", LocalDateTime.of(2023, 6, 6, 11, 0));
+
+        List<Comment> firstPage = commentStorage.findItemCommentsBeforeCursor(item.getId(), Cursor.MAX_TIME, Integer.MAX_VALUE, PageRequest.of(0, 2));
+        assertThat(firstPage).containsExactly(third, second);
+
+        List<Comment> secondPage = commentStorage.findItemCommentsBeforeCursor(item.getId(), second.getCreated(), second.getId(), PageRequest.of(0, 2));
+        assertThat(secondPage).containsExactly(first);
+    }
+
+    @Test
+    void testFindRecentComments() {
+        comment("first", LocalDateTime.of(2023, 6, 5, 11, 0));
+        comment("second", LocalDateTime.of(2023, 6, 6, 11, 0));
+        comment("third", LocalDateTime.of(2023, 6, 7, 11, 0));
+
+        List<Object[]> rows = commentStorage.findRecentComments(List.of(item.getId(), item.getId() + 1), 2);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows).extracting(row -> ((Number) row[1]).longValue()).containsOnly(3L);
+        assertThat(rows).extracting(row -> row[3]).containsExactly("third", "second");
+        assertThat(rows).extracting(row -> row[4]).containsOnly(author.getName());
+    }
+
+    private Comment comment(String text, LocalDateTime created) {
+        Comment comment = new Comment();
+        comment.setText(text);
+        comment.setAuthor(author);
+        comment.setItem(item);
+        comment.setCreated(created);
+        em.persist(comment);
+        return comment;
+    }
 }
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.comment.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.service.CommentProperties;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemCommentsCacheTest {
+    private static final LocalDateTime CREATED = LocalDateTime.of(2023, 6, 5, 11, 0);
+
+    @Mock
+    private CommentStorageDb commentStorage;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private ItemCommentsCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        CommentProperties properties = new CommentProperties();
+        properties.setRecent(2);
+        properties.setCacheMaxEntries(2);
+        properties.setCacheTtl(Duration.ofSeconds(30));
+        cache = new ItemCommentsCache(commentStorage, properties, nanoTime::get);
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testMissingItemsLoadedOnce() {
+        when(commentStorage.findRecentComments(anyCollection(), anyInt())).thenReturn(List.of(row(1, 5, 12), row(1, 5, 11)));
+
+        Map<Integer, ItemCommentsCache.Summary> summaries = cache.getSummaries(List.of(1, 2));
+        assertThat(summaries.get(1).getCount()).isEqualTo(5);
+        assertThat(summaries.get(1).getRecent()).extracting(CommentDto::getId).containsExactly(12, 11);
+        assertThat(summaries.get(1).getRecent().get(0).getCreated()).isEqualTo(CREATED);
+        assertThat(summaries.get(2).getCount()).isZero();
+        assertThat(summaries.get(2).getRecent()).isEmpty();
+
+        assertThat(cache.getSummaries(List.of(2, 1))).isEqualTo(summaries);
+        verify(commentStorage, times(1)).findRecentComments(anyCollection(), anyInt());
+    }
+
+    @Test
+    void testAddedCommentShiftsWindow() {
+        when(commentStorage.findRecentComments(anyCollection(), anyInt())).thenReturn(List.of(row(1, 5, 12), row(1, 5, 11)));
+        cache.getSummaries(List.of(1));
+
+        cache.onCommentAdded(comment(13, 1));
+        cache.onCommentAdded(comment(14, 3));
+
+        ItemCommentsCache.Summary summary = cache.getSummaries(List.of(1)).get(1);
+        assertThat(summary.getCount()).isEqualTo(6);
+        assertThat(summary.getRecent()).extracting(CommentDto::getId).containsExactly(13, 12);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testCommentAppliedAfterCommitOnly() {
+        when(commentStorage.findRecentComments(anyCollection(), anyInt())).thenReturn(List.of());
+        cache.getSummaries(List.of(1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.onCommentAdded(comment(10, 1));
+        assertThat(cache.getSummaries(List.of(1)).get(1).getCount()).isZero();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.getSummaries(List.of(1)).get(1).getRecent()).extracting(CommentDto::getId).containsExactly(10);
+    }
+
+    @Test
+    void testLoadOverlappingCommentIsNotCached() {
+        when(commentStorage.findRecentComments(anyCollection(), anyInt())).thenAnswer(invocation -> {
+            cache.onCommentAdded(comment(10, 1));
+            return List.of();
+        }).thenReturn(List.<Object[]>of(row(1, 1, 10)));
+
+        assertThat(cache.getSummaries(List.of(1)).get(1).getCount()).isZero();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getSummaries(List.of(1)).get(1).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testExpiredSummaryReloaded() {
+        when(commentStorage.findRecentComments(anyCollection(), anyInt())).thenReturn(List.of())
+                .thenReturn(List.<Object[]>of(row(1, 1, 10)));
+        cache.getSummaries(List.of(1));
+
+        nanoTime.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertThat(cache.getSummaries(List.of(1)).get(1).getCount()).isZero();
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.getSummaries(List.of(1)).get(1).getCount()).isEqualTo(1);
+        verify(commentStorage, times(2)).findRecentComments(anyCollection(), anyInt());
+    }
+
+    @Test
+    void testAuthorRenameClearsCache() {
+        when(commentStorage.findRecentComments(anyCollection(), anyInt())).thenReturn(List.of());
+        cache.getSummaries(List.of(1, 2));
+
+        cache.onAuthorRenamed();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    private static Object[] row(int itemId, long total, int commentId) {
+        return new Object[]{itemId, total, commentId, "комментарий " + commentId, "booker", Timestamp.valueOf(CREATED)};
+    }
+
+    private static Comment comment(int id, int itemId) {
+        Item item = new Item();
+        item.setId(itemId);
+        User author = new User();
+        author.setName("booker");
+
+        return Comment.builder().id(id).text("комментарий " + id).item(item).author(author).created(CREATED).build();
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit.invalidation.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.invalidation.dto.InvalidationDto;
+import ru.practicum.shareit.invalidation.dto.InvalidationFeedDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Лента пишет в отдельных транзакциях, поэтому тест не транзакционный и очищает ленту сам.
+ */
+@SpringBootTest(properties = "shareit.invalidation.capacity=3")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InvalidationFeedTest {
+    private final InvalidationFeed feed;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate.update("DELETE FROM invalidation_feed");
+        jdbcTemplate.update("UPDATE invalidation_state SET trimmed_through = 0 WHERE id = 1");
+    }
+
+    @Test
+    void testFirstPollResetsAndNextPollsReturnNewTags() {
+        InvalidationFeedDto first = feed.getAfter(null, 0, 0, 10);
+        assertThat(first.isReset()).isTrue();
+        assertThat(first.getLast()).isZero();
+
+        feed.publish(InvalidationFeed.itemTag(1), InvalidationFeed.SEARCH_TAG);
+        feed.publish(InvalidationFeed.userTag(2));
+        InvalidationFeedDto next = feed.getAfter(first.getEpoch(), first.getLast(), 0, 2);
+
+        assertThat(next.isReset()).isFalse();
+        assertThat(next.getEntries()).extracting(InvalidationDto::getTag).containsExactly("/items/1", "/items/search");
+        assertThat(next.getLast()).isEqualTo(next.getEntries().get(1).getId());
+        assertThat(feed.getAfter(first.getEpoch(), next.getLast(), 0, 2).getEntries())
+                .extracting(InvalidationDto::getTag).containsExactly("/users/2");
+    }
+
+    @Test
+    void testEpochIsSharedByInstances() {
+        InvalidationFeed other = new InvalidationFeed(jdbcTemplate, 3);
+
+        assertThat(other.getAfter(null, 0, 0, 10).getEpoch()).isEqualTo(feed.getAfter(null, 0, 0, 10).getEpoch());
+    }
+
+    @Test
+    void testLaggingClientIsReset() {
+        String epoch = feed.getAfter(null, 0, 0, 10).getEpoch();
+        for (int i = 1; i <= 5; i++) {
+            feed.publish(InvalidationFeed.requestTag(i));
+        }
+        List<Long> ids = ids(feed.getAfter(epoch, 0, 0, 10));
+        feed.trim();
+
+        assertThat(feed.getAfter(epoch, ids.get(0), 0, 10).isReset()).isTrue();
+        assertThat(feed.getAfter(epoch, ids.get(1), 0, 10).getEntries())
+                .extracting(InvalidationDto::getTag).containsExactly("/requests/3", "/requests/4", "/requests/5");
+        assertThat(feed.getAfter("other", ids.get(4), 0, 10).isReset()).isTrue();
+    }
+
+    /**
+     * Запись, вставленная раньше, но закоммиченная позже соседней, видна клиенту только в окне overlap.
+     */
+    @Test
+    void testOverlapReturnsLateCommittedEntries() {
+        String epoch = feed.getAfter(null, 0, 0, 10).getEpoch();
+        feed.publish(InvalidationFeed.itemTag(1), InvalidationFeed.itemTag(2), InvalidationFeed.itemTag(3));
+        List<Long> ids = ids(feed.getAfter(epoch, 0, 0, 10));
+        jdbcTemplate.update("DELETE FROM invalidation_feed WHERE id = ?", ids.get(1));
+        long last = feed.getAfter(epoch, 0, 0, 10).getLast();
+        jdbcTemplate.update("INSERT INTO invalidation_feed (id, tag) VALUES (?, ?)", ids.get(1), "/items/2");
+
+        assertThat(feed.getAfter(epoch, last, 0, 10).getEntries()).isEmpty();
+        InvalidationFeedDto window = feed.getAfter(epoch, last, 2, 10);
+        assertThat(window.isReset()).isFalse();
+        assertThat(window.getEntries()).extracting(InvalidationDto::getTag).containsExactly("/items/2", "/items/3");
+        assertThat(window.getLast()).isEqualTo(last);
+    }
+
+    @Test
+    void testPublishWaitsForCommit() {
+        String epoch = feed.getAfter(null, 0, 0, 10).getEpoch();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            feed.publish(InvalidationFeed.itemTag(7));
+            assertThat(feed.getAfter(epoch, 0, 0, 10).getEntries()).isEmpty();
+        });
+
+        assertThat(feed.getAfter(epoch, 0, 0, 10).getEntries()).extracting(InvalidationDto::getTag).containsExactly("/items/7");
+    }
+
+    @Test
+    void testRolledBackChangesAreNotPublished() {
+        String epoch = feed.getAfter(null, 0, 0, 10).getEpoch();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            feed.publish(InvalidationFeed.itemTag(7));
+            status.setRollbackOnly();
+        });
+
+        assertThat(feed.getAfter(epoch, 0, 0, 10).getEntries()).isEmpty();
+    }
+
+    @Test
+    void testPublishReturnsTagsInResponseHeader() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        try {
+            feed.publish(InvalidationFeed.itemTag(1), InvalidationFeed.SEARCH_TAG);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertThat(response.getHeaders(InvalidationFeed.TAGS_HEADER)).containsExactly("/items/1", "/items/search");
+    }
+
+    private static List<Long> ids(InvalidationFeedDto feed) {
+        return feed.getEntries().stream().map(InvalidationDto::getId).collect(Collectors.toList());
+    }
+}
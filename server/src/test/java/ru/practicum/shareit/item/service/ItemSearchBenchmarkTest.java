@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ItemSearchBenchmarkTest {
+    private static final int VOCABULARY = 5000;
+    private static final int QUERIES = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemService itemService;
+    private final ItemSearchProperties searchProperties;
+
+    @Test
+    void benchmarkSearchLatencyByRowCount() {
+        Random random = new Random(42);
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('owner', 'benchmark-owner@mail.com')");
+        int ownerId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'benchmark-owner@mail.com'", Integer.class);
+        ItemSearchProperties.Mode initialMode = searchProperties.getMode();
+
+        int rows = 0;
+        System.out.printf("%10s %10s %14s%n", "rows", "mode", "avg, us");
+        for (String count : System.getProperty("benchmark.item-counts", "1000,10000,100000").split(",")) {
+            int targetRows = Integer.parseInt(count.trim());
+            insertItems(ownerId, targetRows - rows, random);
+            rows = targetRows;
+            itemService.rebuildSearchIndex();
+
+            for (ItemSearchProperties.Mode mode : ItemSearchProperties.Mode.values()) {
+                if (mode == ItemSearchProperties.Mode.FULLTEXT && !searchProperties.isFullTextSupported()) {
+                    continue;
+                }
+                searchProperties.setMode(mode);
+                System.out.printf("%10d %10s %14.1f%n", rows, mode, measureMicros(random));
+            }
+        }
+        searchProperties.setMode(initialMode);
+    }
+
+    private double measureMicros(Random random) {
+        for (int i = 0; i < QUERIES / 10; i++) {
+            itemService.searchItems(word(random), 0, 20);
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            itemService.searchItems(word(random), 0, 20);
+        }
+        return (System.nanoTime() - started) / 1000.0 / QUERIES;
+    }
+
+    private void insertItems(int ownerId, int count, Random random) {
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new Object[]{phrase(random, 2), phrase(random, 6), random.nextInt(10) > 0, ownerId});
+            if (batch.size() == 1000) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO items (name, description, is_available, owner_id) VALUES (?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    private static String phrase(Random random, int words) {
+        StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            phrase.append(i == 0 ? "" : " ").append(word(random));
+        }
+        return phrase.toString();
+    }
+
+    private static String word(Random random) {
+        return "слово" + Integer.toString(random.nextInt(VOCABULARY), Character.MAX_RADIX) + "x";
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Те же проверки на PostgreSQL, где FULLTEXT идет через триграммные индексы:
+ * mvn test -Ppostgres -Dtest='*PostgresTest' -Dpostgres.url=jdbc:postgresql://localhost:5432/shareit_test
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driverClassName=org.postgresql.Driver",
+        "spring.datasource.url=${postgres.url}",
+        "spring.datasource.username=${postgres.user:postgres}",
+        "spring.datasource.password=${postgres.password:postgres}",
+        "spring.sql.init.platform=postgresql"})
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+public class ItemSearchModesPostgresTest extends ItemSearchModesTest {
+    @Autowired
+    public ItemSearchModesPostgresTest(EntityManager em, ItemService itemService, ItemSearchProperties searchProperties) {
+        super(em, itemService, searchProperties);
+    }
+}
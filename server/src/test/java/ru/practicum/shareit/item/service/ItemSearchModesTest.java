@@ -0,0 +1,118 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ItemSearchModesTest {
+    private static final String[][] CORPUS = {
+            {"Дрель", "С аккумулятором", "true"},
+            {"Дрель ударная", "Сетевая, 800 Вт", "true"},
+            {"Дрель", "Сломана", "false"},
+            {"Ключ гаечный", "Набор из 12 штук", "true"},
+            {"Ключ разводной", "Старый, но рабочий", "true"},
+            {"Отвертка", "Крестовая, с набором бит", "true"},
+            {"Шуруповерт", "Аккумуляторный, две батареи", "true"},
+            {"Лестница", "Стремянка на 6 ступеней", "true"},
+            {"Палатка", "Четырехместная", "true"},
+            {"Набор для пикника", "Посуда на 4 персоны", "true"},
+            {"Drill", "Cordless, two batteries", "true"}
+    };
+
+    private final EntityManager em;
+    private final ItemService itemService;
+    private final ItemSearchProperties searchProperties;
+    private ItemSearchProperties.Mode initialMode;
+
+    @BeforeEach
+    void beforeEach() {
+        initialMode = searchProperties.getMode();
+
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@mail.com");
+        em.persist(owner);
+        em.flush();
+
+        for (String[] row : CORPUS) {
+            itemService.create(owner.getId(), ItemDto.builder()
+                    .name(row[0])
+                    .description(row[1])
+                    .available(Boolean.parseBoolean(row[2]))
+                    .build());
+        }
+        em.flush();
+        // транзакция теста не коммитится, поэтому индекс строится из ее незакоммиченных вещей
+        itemService.rebuildSearchIndex();
+    }
+
+    @AfterEach
+    void afterEach() {
+        searchProperties.setMode(initialMode);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"дрель", "ДРЕЛЬ", "аккумулятор", "ключ", "набор", "старый", "стремянка", "мышка"})
+    void testModesReturnSameItems(String text) {
+        Set<Integer> expected = searchIds(ItemSearchProperties.Mode.LIKE, text);
+
+        assertThat(searchIds(ItemSearchProperties.Mode.INDEX, text)).isEqualTo(expected);
+        if (searchProperties.isFullTextSupported()) {
+            assertThat(searchIds(ItemSearchProperties.Mode.FULLTEXT, text)).isEqualTo(expected);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"рель", "люч", "кумулятор", "rill", "RILL"})
+    void testInfixMatchedBySubstringModesOnly(String text) {
+        Set<Integer> expected = searchIds(ItemSearchProperties.Mode.LIKE, text);
+
+        assertThat(expected).isNotEmpty();
+        if (searchProperties.isFullTextSupported()) {
+            assertThat(searchIds(ItemSearchProperties.Mode.FULLTEXT, text)).isEqualTo(expected);
+        }
+        assertThat(searchIds(ItemSearchProperties.Mode.INDEX, text)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"INDEX", "LIKE", "FULLTEXT"})
+    void testCursorPagesCoverWholeResult(String mode) {
+        searchProperties.setMode(ItemSearchProperties.Mode.valueOf(mode));
+        List<Integer> expected = itemService.searchItems("а", 0, 2000).stream().map(Item::getId).collect(Collectors.toList());
+
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Item> page = itemService.searchItems("а", cursor, 3);
+            page.getContent().forEach(item -> ids.add(item.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null && ids.size() <= expected.size());
+
+        assertThat(ids).doesNotHaveDuplicates().isSorted().containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    private Set<Integer> searchIds(ItemSearchProperties.Mode mode, String text) {
+        searchProperties.setMode(mode);
+        return itemService.searchItems(text, 0, 2000).stream().map(Item::getId).collect(Collectors.toSet());
+    }
+}
@@ -6,17 +6,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -27,6 +33,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class ItemServiceIntegrationTest {
     private final EntityManager em;
     private final ItemService itemService;
+    private final ItemSearchIndex searchIndex;
     private Item item;
     private Item itemNoBookingsAndComments;
     private Booking lastBooking;
@@ -55,15 +62,15 @@ public class ItemServiceIntegrationTest {
         itemNoBookingsAndComments.setOwner(booker);
 
         lastBooking = new Booking();
-        lastBooking.setStart(LocalDateTime.now().minusDays(7));
-        lastBooking.setEnd(LocalDateTime.now().minusDays(2));
+        lastBooking.setStart(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(7));
+        lastBooking.setEnd(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(2));
         lastBooking.setItem(item);
         lastBooking.setBooker(booker);
         lastBooking.setStatus(BookingStatus.WAITING);
 
         nextBooking = new Booking();
-        nextBooking.setStart(LocalDateTime.now().plusDays(4));
-        nextBooking.setEnd(LocalDateTime.now().plusDays(5));
+        nextBooking.setStart(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(4));
+        nextBooking.setEnd(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusDays(5));
         nextBooking.setItem(item);
         nextBooking.setBooker(booker);
         nextBooking.setStatus(BookingStatus.WAITING);
@@ -77,6 +84,27 @@ public class ItemServiceIntegrationTest {
         em.flush();
     }
 
+    @Test
+    void testSearchIndexUpdatedAfterCommit() {
+        Item created = itemService.create(item.getOwner().getId(), ItemDto.builder().name("Перфоратор").description("Почти новый").available(true).build());
+
+        assertThat(searchIndex.search("перфоратор")).isEmpty();
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertThat(searchIndex.search("перфоратор")).containsExactly(created.getId());
+    }
+
+    @Test
+    void testSearchIndexIgnoresRolledBackChanges() {
+        itemService.create(item.getOwner().getId(), ItemDto.builder().name("Перфоратор").description("Почти новый").available(true).build());
+
+        TestTransaction.end();
+
+        assertThat(searchIndex.search("перфоратор")).isEmpty();
+    }
+
     @Test
     void testGetUserCurtainItemWithBookingIntervals() {
         ItemDto itemDto = itemService.getItemByIdWithBookingIntervals(1, 1);
@@ -122,5 +150,71 @@ public class ItemServiceIntegrationTest {
         assertThat(itemDto.getLastBooking()).isNull();
         assertThat(itemDto.getNextBooking()).isNull();
         assertThat(itemDto.getRequestId()).isNull();
+        assertThat(itemDto.getComments()).isEmpty();
+        assertThat(itemDto.getCommentCount()).isZero();
+    }
+
+    @Test
+    void testGetItemWithNewestCommentsAndCount() {
+        for (int day = 1; day <= 3; day++) {
+            Comment comment = new Comment();
+            comment.setText("comment " + day);
+            comment.setAuthor(lastBooking.getBooker());
+            comment.setItem(item);
+            comment.setCreated(LocalDateTime.of(2023, 6, day, 11, 0));
+            em.persist(comment);
+        }
+        em.flush();
+
+        ItemDto itemDto = itemService.getItemByIdWithBookingIntervals(1, item.getId());
+
+        assertThat(itemDto.getCommentCount()).isEqualTo(3);
+        assertThat(itemDto.getComments()).extracting(CommentDto::getText)
+                .containsExactly("comment 3", "comment 2", "comment 1");
+        assertThat(itemDto.getComments()).extracting(CommentDto::getAuthorName).containsOnly("user");
+    }
+
+    @Test
+    void testETagsFollowVersions() {
+        String itemsETag = itemService.getUserItemsETag(1).orElseThrow();
+        String ownerETag = itemService.getItemETag(1, 1).orElseThrow();
+        String bookerETag = itemService.getItemETag(1, 2).orElseThrow();
+        assertThat(itemService.getUserItemsETag(1)).contains(itemsETag);
+
+        lastBooking.setStatus(BookingStatus.APPROVED);
+        em.flush();
+        assertThat(itemService.getUserItemsETag(1)).isNotEqualTo(Optional.of(itemsETag));
+        assertThat(itemService.getItemETag(1, 1)).isNotEqualTo(Optional.of(ownerETag));
+        assertThat(itemService.getItemETag(1, 2)).contains(bookerETag);
+
+        itemService.update(1, 1, Item.builder().name("new name").build());
+        em.flush();
+        assertThat(itemService.getItemETag(1, 2)).isNotEqualTo(Optional.of(bookerETag));
+    }
+
+    @Test
+    void testETagsChangeWhenArchivedBookingIsReplaced() {
+        String itemsETag = itemService.getUserItemsETag(1).orElseThrow();
+        String ownerETag = itemService.getItemETag(1, 1).orElseThrow();
+
+        Booking replacement = new Booking();
+        replacement.setStart(nextBooking.getStart().plusDays(2));
+        replacement.setEnd(nextBooking.getEnd().plusDays(2));
+        replacement.setItem(item);
+        replacement.setBooker(nextBooking.getBooker());
+        replacement.setStatus(BookingStatus.WAITING);
+        em.remove(nextBooking);
+        em.persist(replacement);
+        em.flush();
+
+        assertThat(itemService.getUserItemsETag(1)).isNotEqualTo(Optional.of(itemsETag));
+        assertThat(itemService.getItemETag(1, 1)).isNotEqualTo(Optional.of(ownerETag));
+    }
+
+    @Test
+    void testETagsForUnknownUserOrItem() {
+        assertThat(itemService.getUserItemsETag(999)).isEmpty();
+        assertThat(itemService.getItemETag(999, 1)).isEmpty();
+        assertThat(itemService.getItemETag(1, 999)).isEmpty();
     }
 }
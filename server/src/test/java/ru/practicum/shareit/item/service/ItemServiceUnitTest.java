@@ -5,31 +5,40 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.ItemBookingSummaryService;
 import ru.practicum.shareit.comment.dto.CommentMapper;
 import ru.practicum.shareit.comment.model.Comment;
-import ru.practicum.shareit.comment.storage.CommentStorageDb;
+import ru.practicum.shareit.comment.storage.ItemCommentsCache;
 import ru.practicum.shareit.exception.NotOwnerException;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.ItemStorageDb;
 import ru.practicum.shareit.request.model.Request;
 import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.request.storage.RequestAnswersCache;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,11 +46,21 @@ public class ItemServiceUnitTest {
     @Mock
     private ItemStorageDb itemStorage;
     @Mock
-    private CommentStorageDb commentStorage;
+    private ItemCommentsCache commentsCache;
     @Mock
     private UserService userService;
     @Mock
     private RequestService requestService;
+    @Spy
+    private ItemSearchIndex searchIndex = new ItemSearchIndex();
+    @Spy
+    private ItemSearchProperties searchProperties = new ItemSearchProperties();
+    @Mock
+    private InvalidationFeed invalidationFeed;
+    @Mock
+    private ItemBookingSummaryService summaryService;
+    @Mock
+    private RequestAnswersCache answersCache;
     @InjectMocks
     private ItemService itemService;
     private User owner;
@@ -170,10 +189,11 @@ public class ItemServiceUnitTest {
 
         ItemDto expectedItemDto = ItemMapper.toItemDto(item);
         expectedItemDto.setComments(List.of(CommentMapper.toCommentDto(comment)));
+        expectedItemDto.setCommentCount(1);
 
         when(itemStorage.findById(anyInt())).thenReturn(Optional.ofNullable(item));
         when(userService.getUserById(anyInt())).thenReturn(requestor);
-        when(commentStorage.getCommentsByItems(anyCollection())).thenReturn(List.of(comment));
+        when(commentsCache.getSummaries(anyCollection())).thenReturn(Map.of(item.getId(), new ItemCommentsCache.Summary(1, List.of(CommentMapper.toCommentDto(comment)))));
 
         ItemDto resultItemDto = itemService.getItemByIdWithBookingIntervals(requestor.getId(), item.getId());
 
@@ -182,11 +202,70 @@ public class ItemServiceUnitTest {
 
     @Test
     void testSearchItems() {
+        searchIndex.index(item);
+
+        when(itemStorage.findAllById(anyIterable())).thenReturn(List.of(item));
+
+        Collection<Item> foundItems = itemService.searchItems("name", 0, 2000);
+
+        assertThat(foundItems).contains(item);
+    }
+
+    @Test
+    void testSearchItemsLikeMode() {
+        searchProperties.setMode(ItemSearchProperties.Mode.LIKE);
+
+        when(itemStorage.searchItems(anyString(), any(Pageable.class))).thenReturn(List.of(item));
+
+        Collection<Item> foundItems = itemService.searchItems("NaMe", 0, 2000);
+
+        assertThat(foundItems).contains(item);
+        verify(itemStorage).searchItems(eq("name"), any(Pageable.class));
+    }
+
+    @Test
+    void testSearchItemsFullTextModeFallsBackToLike() {
+        searchProperties.setMode(ItemSearchProperties.Mode.FULLTEXT);
+        searchProperties.setPlatform("h2");
+
         when(itemStorage.searchItems(anyString(), any(Pageable.class))).thenReturn(List.of(item));
 
-        Collection<Item> foundItems = itemService.searchItems("item", 0, 2000);
+        Collection<Item> foundItems = itemService.searchItems("name", 0, 2000);
+
+        assertThat(foundItems).contains(item);
+        verify(itemStorage, never()).searchItemsFullText(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void testSearchItemsFullTextModeSearchesSubstring() {
+        searchProperties.setMode(ItemSearchProperties.Mode.FULLTEXT);
+        searchProperties.setPlatform("postgresql");
+
+        when(itemStorage.searchItemsFullText(anyString(), any(Pageable.class))).thenReturn(List.of(item));
+
+        Collection<Item> foundItems = itemService.searchItems("Дрель, аккумулятор", 0, 2000);
 
         assertThat(foundItems).contains(item);
+        verify(itemStorage).searchItemsFullText(eq("дрель, аккумулятор"), any(Pageable.class));
+    }
+
+    @Test
+    void testSearchIndexBuiltOnlyInIndexMode() {
+        searchProperties.setMode(ItemSearchProperties.Mode.LIKE);
+        itemService.resyncSearchIndex();
+        verify(itemStorage, never()).findAvailableForSearch();
+
+        searchProperties.setMode(ItemSearchProperties.Mode.INDEX);
+        when(itemStorage.findAvailableForSearch()).thenReturn(Stream.empty());
+        itemService.resyncSearchIndex();
+        verify(itemStorage).findAvailableForSearch();
+    }
+
+    @Test
+    void testSearchItemsNotIndexed() {
+        Collection<Item> foundItems = itemService.searchItems("name", 0, 2000);
+
+        assertThat(foundItems).isEmpty();
     }
 
     @Test
@@ -0,0 +1,131 @@
+package ru.practicum.shareit.item.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ItemSearchIndexTest {
+    private ItemSearchIndex searchIndex;
+
+    @BeforeEach
+    void beforeEach() {
+        searchIndex = new ItemSearchIndex();
+        searchIndex.index(1, "Дрель", "С Аккумулятором", true);
+        searchIndex.index(2, "Дрель", "Обычная", false);
+        searchIndex.index(3, "Ключ", "Гаечный", true);
+        searchIndex.index(4, "Ключ", "Старый ключ", true);
+        searchIndex.index(5, "Отвертка", "Крестовая, для дрели не подходит", true);
+    }
+
+    @Test
+    void testSearchIgnoresCaseAndUnavailableItems() {
+        assertThat(searchIndex.search("дРелЬ")).containsExactly(1);
+    }
+
+    @Test
+    void testSearchByDescription() {
+        assertThat(searchIndex.search("старый")).containsExactly(4);
+    }
+
+    @Test
+    void testSearchMatchesTermPrefix() {
+        assertThat(searchIndex.search("аккумулятор")).containsExactly(1);
+        assertThat(searchIndex.search("дрел")).containsExactly(1, 5);
+    }
+
+    @Test
+    void testSearchRanksByRelevance() {
+        assertThat(searchIndex.search("ключ")).containsExactly(4, 3);
+    }
+
+    @Test
+    void testSearchRequiresAllTerms() {
+        assertThat(searchIndex.search("ключ гаечный")).containsExactly(3);
+        assertThat(searchIndex.search("ключ мышка")).isEmpty();
+    }
+
+    @Test
+    void testSearchAfterIdOrdersById() {
+        searchIndex.index(6, "Ключ", "Ключ ключ ключ", true);
+
+        assertThat(searchIndex.searchAfterId("ключ", 0, 2)).containsExactly(3, 4);
+        assertThat(searchIndex.searchAfterId("ключ", 4, 2)).containsExactly(6);
+        assertThat(searchIndex.searchAfterId("ключ мышка", 0, 2)).isEmpty();
+    }
+
+    @Test
+    void testSearchBlankText() {
+        assertThat(searchIndex.search(" ,. ")).isEmpty();
+    }
+
+    @Test
+    void testReindexReplacesTerms() {
+        searchIndex.index(3, "Молоток", "Гаечный", true);
+
+        assertThat(searchIndex.search("ключ")).containsExactly(4);
+        assertThat(searchIndex.search("молоток")).containsExactly(3);
+    }
+
+    @Test
+    void testReindexUnavailableRemovesItem() {
+        searchIndex.index(1, "Дрель", "С Аккумулятором", false);
+
+        assertThat(searchIndex.search("дрель")).isEmpty();
+        assertThat(searchIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testReplaceAllReplaysChangesMadeDuringRebuild() {
+        searchIndex.replaceAll(() -> {
+            searchIndex.index(6, "Молоток", "Новый", true);
+            searchIndex.remove(3);
+            searchIndex.index(4, "Ключ", "Старый ключ", false);
+            return Stream.of(view(1, "Дрель", "С Аккумулятором"), view(3, "Ключ", "Гаечный"), view(4, "Ключ", "Старый ключ"));
+        });
+
+        assertThat(searchIndex.search("молоток")).containsExactly(6);
+        assertThat(searchIndex.search("ключ")).isEmpty();
+        assertThat(searchIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testFailedRebuildKeepsCurrentIndex() {
+        assertThatThrownBy(() -> searchIndex.replaceAll(() -> {
+            throw new IllegalStateException("база недоступна");
+        })).isInstanceOf(IllegalStateException.class);
+        searchIndex.index(6, "Молоток", "Новый", true);
+
+        assertThat(searchIndex.search("ключ")).containsExactly(4, 3);
+        assertThat(searchIndex.search("молоток")).containsExactly(6);
+    }
+
+    @Test
+    void testTokenize() {
+        assertThat(ItemSearchIndex.tokenize("Дрель-шуруповерт, 18V!")).isEqualTo(List.of("дрель", "шуруповерт", "18v"));
+        assertThat(ItemSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    private static ItemSearchView view(int id, String name, String description) {
+        return new ItemSearchView() {
+            @Override
+            public int getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+        };
+    }
+}
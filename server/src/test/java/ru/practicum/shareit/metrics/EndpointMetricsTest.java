@@ -0,0 +1,60 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class EndpointMetricsTest {
+    private final EntityManager em;
+    private final MockMvc mvc;
+    private final MeterRegistry registry;
+
+    @Test
+    void testEndpointAndRepositoryTimersHavePercentiles() throws Exception {
+        User booker = new User();
+        booker.setName("booker");
+        booker.setEmail("booker@mail.com");
+        em.persist(booker);
+        em.flush();
+
+        mvc.perform(get("/bookings").param("state", "past").header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isOk());
+        mvc.perform(get("/bookings").param("state", "someday").header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isBadRequest());
+
+        Timer endpoint = registry.get("http.server.requests")
+                .tag("endpoint", "BookingController.getUserBookings")
+                .tag("state", "PAST")
+                .tag("status", "200")
+                .timer();
+        assertThat(endpoint.count()).isEqualTo(1);
+        assertThat(endpoint.takeSnapshot().percentileValues()).hasSize(3);
+        assertThat(registry.get("http.server.requests").tag("state", "UNKNOWN").tag("status", "400").timer().count()).isEqualTo(1);
+
+        Timer repository = registry.get("spring.data.repository.invocations")
+                .tag("repository", "BookingStorageDb")
+                .tag("method", "findBookingsByBookerAndEndBeforeOrderByStartDesc")
+                .timer();
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.takeSnapshot().percentileValues()).hasSize(3);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CursorTest {
+
+    @Test
+    void testEncodeDecodeTime() {
+        LocalDateTime time = LocalDateTime.of(2023, 5, 1, 12, 30, 15, 123456000);
+        Cursor decoded = Cursor.decode(Cursor.of(time, 42).encode());
+
+        assertThat(decoded.getTime()).isEqualTo(time);
+        assertThat(decoded.getId()).isEqualTo(42);
+    }
+
+    @Test
+    void testDecodeInvalid() {
+        assertThatThrownBy(() -> Cursor.decode("не курсор"))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("некорректный курсор");
+        assertThatThrownBy(() -> Cursor.decode(Cursor.of(3).encode()).getTime())
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void testPageNextCursor() {
+        assertThat(CursorPage.of(List.of(1, 2), 3, Cursor::of).getNextCursor()).isNull();
+        assertThat(CursorPage.of(List.of(1, 2, 3), 3, Cursor::of).getNextCursor()).isEqualTo(Cursor.of(3).encode());
+    }
+}
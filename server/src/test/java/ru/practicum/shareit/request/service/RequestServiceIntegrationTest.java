@@ -8,8 +8,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.RequestAnswerDto;
 import ru.practicum.shareit.request.dto.RequestMapper;
 import ru.practicum.shareit.request.model.Request;
@@ -18,6 +20,7 @@ import ru.practicum.shareit.user.model.User;
 import javax.persistence.EntityManager;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -31,6 +34,8 @@ public class RequestServiceIntegrationTest {
 
     private final RequestService requestService;
 
+    private final RequestProperties requestProperties;
+
     private Item item;
 
     private Request request;
@@ -88,6 +93,74 @@ public class RequestServiceIntegrationTest {
         assertThat(requestedItem.getRequestId()).isEqualTo(correctRequestedItem.getRequestId());
     }
 
+    @Test
+    void testGetAllAggregatesAnswersInDatabase() {
+        Request unanswered = new Request();
+        unanswered.setDescription("Нужна стремянка");
+        unanswered.setRequestor(request.getRequestor());
+        em.persist(unanswered);
+
+        Item ownAnswer = new Item();
+        ownAnswer.setName("своя дрель");
+        ownAnswer.setDescription("Без аккумулятора");
+        ownAnswer.setAvailable(false);
+        ownAnswer.setOwner(request.getRequestor());
+        ownAnswer.setRequest(request);
+        em.persist(ownAnswer);
+        em.flush();
+        em.clear();
+
+        List<RequestAnswerDto> aggregated = new ArrayList<>(requestService.getAll(2));
+        assertThat(aggregated).extracting(RequestAnswerDto::getId).containsExactly(unanswered.getId(), request.getId());
+        assertThat(aggregated.get(0).getItems()).isEmpty();
+        assertThat(aggregated.get(1).getItems()).containsExactly(ItemMapper.toItemRequestDto(item));
+        assertThat(aggregated.get(1).getCreated()).isEqualTo(em.find(Request.class, request.getId()).getCreated());
+
+        requestProperties.setPlatform("all");
+        assertThat(requestService.getAll(2)).isEqualTo(aggregated);
+    }
+
+    @Test
+    void testGetAllOtherUsersRequestsByCursor() {
+        Request unanswered = new Request();
+        unanswered.setDescription("Нужна стремянка");
+        unanswered.setRequestor(request.getRequestor());
+        em.persist(unanswered);
+        em.flush();
+        em.clear();
+
+        CursorPage<RequestAnswerDto> firstPage = requestService.getAllOtherUsersRequests(1, "", 1);
+        assertThat(firstPage.getContent()).extracting(RequestAnswerDto::getId).containsExactly(unanswered.getId());
+        assertThat(firstPage.getContent().get(0).getItems()).isEmpty();
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        CursorPage<RequestAnswerDto> secondPage = requestService.getAllOtherUsersRequests(1, firstPage.getNextCursor(), 1);
+        assertThat(secondPage.getContent()).extracting(RequestAnswerDto::getId).containsExactly(request.getId());
+        assertThat(secondPage.getContent().get(0).getItems()).hasSize(1);
+
+        CursorPage<RequestAnswerDto> lastPage = requestService.getAllOtherUsersRequests(1, secondPage.getNextCursor(), 1);
+        assertThat(lastPage.getContent()).isEmpty();
+        assertThat(lastPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testGetAllOtherUsersRequestsNewestFirst() {
+        Request unanswered = new Request();
+        unanswered.setDescription("Нужна стремянка");
+        unanswered.setRequestor(request.getRequestor());
+        em.persist(unanswered);
+        em.flush();
+        em.clear();
+
+        List<RequestAnswerDto> feed = new ArrayList<>(requestService.getAllOtherUsersRequests(1, 0, 10));
+        assertThat(feed).extracting(RequestAnswerDto::getId).containsExactly(unanswered.getId(), request.getId());
+        assertThat(feed.get(0).getItems()).isEmpty();
+        assertThat(feed.get(1).getItems()).extracting(ItemRequestDto::getId).containsExactly(item.getId());
+
+        assertThat(requestService.getAllOtherUsersRequests(1, 1, 1)).extracting(RequestAnswerDto::getId).containsExactly(request.getId());
+        assertThat(requestService.getAllOtherUsersRequests(2, 0, 10)).isEmpty();
+    }
+
     @Test
     void testGetAllNotExist() {
         assertThatThrownBy(() -> requestService.getAll(999))
@@ -95,4 +168,25 @@ public class RequestServiceIntegrationTest {
                 .hasMessageContaining("нет пользователя с id 999");
 
     }
+
+    @Test
+    void testGetAllETag() {
+        String eTag = requestService.getAllETag(2).orElseThrow();
+
+        Item answer = new Item();
+        answer.setName("дрель");
+        answer.setDescription("Ударная");
+        answer.setAvailable(true);
+        answer.setOwner(item.getOwner());
+        answer.setRequest(request);
+        em.persist(answer);
+        em.flush();
+        String answeredETag = requestService.getAllETag(2).orElseThrow();
+        assertThat(answeredETag).isNotEqualTo(eTag);
+
+        answer.setAvailable(false);
+        em.flush();
+        assertThat(requestService.getAllETag(2)).isNotEqualTo(Optional.of(answeredETag));
+        assertThat(requestService.getAllETag(999)).isEmpty();
+    }
 }
@@ -1,18 +1,23 @@
 package ru.practicum.shareit.request.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
+import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorageDb;
 import ru.practicum.shareit.request.dto.RequestAnswerDto;
 import ru.practicum.shareit.request.dto.RequestMapper;
 import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.storage.RequestAnswersCache;
 import ru.practicum.shareit.request.storage.RequestStorageDb;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
@@ -20,6 +25,7 @@ import ru.practicum.shareit.user.service.UserService;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,6 +44,14 @@ public class RequestServiceUnitTest {
 
     @Mock
     private UserService userService;
+    @Mock
+    private InvalidationFeed invalidationFeed;
+    @Mock
+    private RequestAnswersCache answersCache;
+    @Spy
+    private RequestProperties requestProperties = new RequestProperties();
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @InjectMocks
     private RequestService requestService;
@@ -94,8 +108,8 @@ public class RequestServiceUnitTest {
     @Test
     void testGetAllOtherUsersRequests() {
         when(userService.getUserById(anyInt())).thenReturn(owner);
-        when(requestStorage.findRequestsByRequestorNot(any(User.class), any(Pageable.class))).thenReturn(List.of(request));
-        when(itemStorage.findItemsByRequestIn(anyCollection())).thenReturn(List.of(item));
+        when(requestStorage.findRequestsByRequestorNotOrderByCreatedDescIdDesc(any(User.class), any(Pageable.class))).thenReturn(List.of(request));
+        when(answersCache.getAnswers(anyCollection())).thenReturn(Map.of(request.getId(), List.of(ItemMapper.toItemRequestDto(item))));
 
         Collection<RequestAnswerDto> resultRequests = requestService.getAllOtherUsersRequests(owner.getId(), 0, 2000);
 
@@ -114,7 +128,7 @@ public class RequestServiceUnitTest {
     void testGetRequestByIdFull() {
         when(userService.getUserById(anyInt())).thenReturn(requestor);
         when(requestStorage.findById(anyInt())).thenReturn(Optional.ofNullable(request));
-        when(itemStorage.findItemsByRequestIn(anyCollection())).thenReturn(List.of(item));
+        when(answersCache.getAnswers(anyCollection())).thenReturn(Map.of(request.getId(), List.of(ItemMapper.toItemRequestDto(item))));
 
         RequestAnswerDto foundItemRequest = requestService.getRequestByIdFull(requestor.getId(), request.getId());
 
@@ -0,0 +1,131 @@
+package ru.practicum.shareit.request.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorageDb;
+import ru.practicum.shareit.request.model.Request;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RequestAnswersCacheTest {
+    @Mock
+    private ItemStorageDb itemStorage;
+
+    private RequestAnswersCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new RequestAnswersCache(itemStorage, 2, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testMissingRequestsLoadedOnce() {
+        when(itemStorage.findItemRequestDtosByRequestIdIn(anyCollection())).thenReturn(List.of(answer(10, 1)));
+
+        Map<Integer, List<ItemRequestDto>> answers = cache.getAnswers(List.of(1, 2));
+        assertThat(answers.get(1)).extracting(ItemRequestDto::getId).containsExactly(10);
+        assertThat(answers.get(2)).isEmpty();
+
+        assertThat(cache.getAnswers(List.of(2, 1))).isEqualTo(answers);
+        verify(itemStorage, times(1)).findItemRequestDtosByRequestIdIn(anyCollection());
+    }
+
+    @Test
+    void testSavedAnswerUpdatesCachedRequest() {
+        when(itemStorage.findItemRequestDtosByRequestIdIn(anyCollection())).thenReturn(List.of(answer(10, 1)));
+        cache.getAnswers(List.of(1));
+
+        cache.onAnswerSaved(item(12, "Перфоратор", 1));
+        cache.onAnswerSaved(item(10, "Дрель", 1));
+        cache.onAnswerSaved(item(11, "Шуруповерт", 3));
+
+        assertThat(cache.getAnswers(List.of(1)).get(1)).extracting(ItemRequestDto::getId, ItemRequestDto::getName)
+                .containsExactly(tuple(10, "Дрель"), tuple(12, "Перфоратор"));
+        assertThat(cache.size()).isEqualTo(1);
+        verify(itemStorage, times(1)).findItemRequestDtosByRequestIdIn(anyCollection());
+    }
+
+    @Test
+    void testAnswerAppliedAfterCommitOnly() {
+        when(itemStorage.findItemRequestDtosByRequestIdIn(anyCollection())).thenReturn(List.of());
+        cache.getAnswers(List.of(1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.onAnswerSaved(item(10, "Дрель", 1));
+        assertThat(cache.getAnswers(List.of(1)).get(1)).isEmpty();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(cache.getAnswers(List.of(1)).get(1)).extracting(ItemRequestDto::getId).containsExactly(10);
+    }
+
+    @Test
+    void testLoadOverlappingSaveIsNotCached() {
+        when(itemStorage.findItemRequestDtosByRequestIdIn(anyCollection())).thenAnswer(invocation -> {
+            cache.onAnswerSaved(item(10, "Дрель", 1));
+            return List.of();
+        }).thenReturn(List.of(answer(10, 1)));
+
+        assertThat(cache.getAnswers(List.of(1)).get(1)).isEmpty();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getAnswers(List.of(1)).get(1)).extracting(ItemRequestDto::getId).containsExactly(10);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() {
+        when(itemStorage.findItemRequestDtosByRequestIdIn(anyCollection())).thenReturn(List.of());
+
+        cache.getAnswers(List.of(1, 2));
+        cache.getAnswers(List.of(1));
+        cache.getAnswers(List.of(3));
+        cache.getAnswers(List.of(1));
+
+        assertThat(cache.size()).isEqualTo(2);
+        verify(itemStorage, times(2)).findItemRequestDtosByRequestIdIn(anyCollection());
+        cache.getAnswers(List.of(2));
+        verify(itemStorage, times(3)).findItemRequestDtosByRequestIdIn(anyCollection());
+    }
+
+    private static ItemRequestDto answer(int id, int requestId) {
+        return new ItemRequestDto(id, "Дрель", "С аккумулятором", true, requestId);
+    }
+
+    private static Item item(int id, String name, int requestId) {
+        Request request = new Request();
+        request.setId(requestId);
+
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription("С аккумулятором");
+        item.setAvailable(true);
+        item.setRequest(request);
+        return item;
+    }
+}
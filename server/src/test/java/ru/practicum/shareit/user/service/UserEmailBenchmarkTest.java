@@ -0,0 +1,78 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorageDb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class UserEmailBenchmarkTest {
+    private static final int CHECKS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserService userService;
+    private final UserStorageDb userStorage;
+
+    @Test
+    void benchmarkEmailCheckByRowCount() {
+        int rows = 0;
+        System.out.printf("%10s %16s %16s %16s%n", "rows", "full scan, us", "indexed, us", "filtered, us");
+        for (String count : System.getProperty("benchmark.user-counts", "10000,100000,300000").split(",")) {
+            int targetRows = Integer.parseInt(count.trim());
+            insertUsers(rows, targetRows);
+            rows = targetRows;
+            userService.rebuildEmailIndex();
+
+            int scanChecks = Math.max(1, Math.min(CHECKS, 2_000_000 / rows));
+            System.out.printf("%10d %16.1f %16.1f %16.1f%n", rows,
+                    measureMicros(scanChecks, i -> fullScan("new" + i + "@mail.com")),
+                    measureMicros(CHECKS, i -> userStorage.existsByEmailAndIdNot("new" + i + "@mail.com", 0)),
+                    measureMicros(CHECKS, i -> userService.isEmailTaken("new" + i + "@mail.com", 0)));
+        }
+    }
+
+    private boolean fullScan(String email) {
+        for (User user : userStorage.findAll()) {
+            if (user.getEmail().equals(email)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double measureMicros(int checks, IntPredicate check) {
+        for (int i = 0; i < Math.max(1, checks / 10); i++) {
+            check.test(-i);
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            check.test(i);
+        }
+        return (System.nanoTime() - started) / 1000.0 / checks;
+    }
+
+    private void insertUsers(int from, int to) {
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            batch.add(new Object[]{"user" + i, "user" + i + "@mail.com"});
+            if (batch.size() == 1000) {
+                jdbcTemplate.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)", batch);
+    }
+}
@@ -5,17 +5,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.exception.DuplicateEmailException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.invalidation.service.InvalidationFeed;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
 
 @SpringBootTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
@@ -24,6 +30,8 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 public class UserServiceUnitTest {
     private final EntityManager em;
     private final UserService userService;
+    @MockBean
+    private InvalidationFeed invalidationFeed;
     private User oldUser;
     private User user;
 
@@ -101,6 +109,25 @@ public class UserServiceUnitTest {
         assertThat(user.getEmail()).isEqualTo(oldUser.getEmail());
     }
 
+    @Test
+    void testRenameInvalidatesCommentedItems() {
+        Item item = new Item();
+        item.setName("Дрель");
+        item.setDescription("С Аккумулятором");
+        item.setAvailable(true);
+        item.setOwner(oldUser);
+        em.persist(item);
+        em.persist(Comment.builder().text("Отличная дрель").item(item).author(user).created(LocalDateTime.now()).build());
+        em.flush();
+
+        User updatedUser = new User();
+        updatedUser.setName("renamed");
+        userService.update(user.getId(), updatedUser);
+
+        verify(invalidationFeed).publish(InvalidationFeed.userTag(user.getId()));
+        verify(invalidationFeed).publish(InvalidationFeed.itemTag(item.getId()));
+    }
+
     @Test
     void testUpdateUserNotExist() {
         User updatedUser = new User();
@@ -145,4 +172,34 @@ public class UserServiceUnitTest {
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("нет пользователя с id 999");
     }
+
+    @Test
+    void testCreateDuplicateEmail() {
+        User duplicate = new User();
+        duplicate.setName("duplicate");
+        duplicate.setEmail(user.getEmail());
+
+        assertThatThrownBy(() -> userService.create(duplicate))
+                .isInstanceOf(DuplicateEmailException.class)
+                .hasMessageContaining("есть такой email user1@mail.com");
+    }
+
+    @Test
+    void testCreateDuplicateEmailMissingInIndex() {
+        em.createNativeQuery("INSERT INTO users (name, email) VALUES ('other', 'other@mail.com')").executeUpdate();
+        User duplicate = new User();
+        duplicate.setName("duplicate");
+        duplicate.setEmail("other@mail.com");
+
+        assertThatThrownBy(() -> userService.create(duplicate))
+                .isInstanceOf(DuplicateEmailException.class)
+                .hasMessageContaining("есть такой email other@mail.com");
+    }
+
+    @Test
+    void testIsEmailTaken() {
+        assertThat(userService.isEmailTaken(user.getEmail(), 0)).isTrue();
+        assertThat(userService.isEmailTaken(user.getEmail(), user.getId())).isFalse();
+        assertThat(userService.isEmailTaken("new@mail.com", 0)).isFalse();
+    }
 }
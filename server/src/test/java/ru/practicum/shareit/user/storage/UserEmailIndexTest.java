@@ -0,0 +1,50 @@
+package ru.practicum.shareit.user.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserEmailIndexTest {
+
+    @Test
+    void testNoFalseNegatives() {
+        UserEmailIndex emailIndex = new UserEmailIndex(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            emailIndex.add("user" + i + "@mail.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(emailIndex.mightContain("user" + i + "@mail.com")).isTrue();
+        }
+    }
+
+    @Test
+    void testFalsePositiveRate() {
+        UserEmailIndex emailIndex = new UserEmailIndex(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            emailIndex.add("user" + i + "@mail.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (emailIndex.mightContain("other" + i + "@mail.com")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void testRebuildReplacesContent() {
+        UserEmailIndex emailIndex = new UserEmailIndex(100, 0.01);
+        emailIndex.add("old@mail.com");
+
+        emailIndex.rebuild(1, List.of("new@mail.com"));
+
+        assertThat(emailIndex.mightContain("new@mail.com")).isTrue();
+        assertThat(emailIndex.mightContain("old@mail.com")).isFalse();
+        assertThat(emailIndex.mightContain(null)).isFalse();
+    }
+}